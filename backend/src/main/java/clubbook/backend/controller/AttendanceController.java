@@ -1,19 +1,29 @@
 package clubbook.backend.controller;
 
 import clubbook.backend.dtos.AttendanceDto;
+import clubbook.backend.dtos.AttendanceRateDto;
 import clubbook.backend.dtos.ClassGroupAttendanceDto;
 import clubbook.backend.model.ClassGroup;
 import clubbook.backend.responses.ResponseMessages;
 import clubbook.backend.responses.ResponseWrapper;
 import clubbook.backend.service.AttendanceService;
 import clubbook.backend.service.ClassGroupService;
+import clubbook.backend.service.IdempotencyService;
 import clubbook.backend.service.SeasonService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 
 /**
@@ -25,9 +35,12 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 public class AttendanceController {
 
+    private static final String IDEMPOTENCY_SCOPE = "attendance";
+
     private final AttendanceService attendanceService;
     private final ClassGroupService classGroupService;
     private final SeasonService seasonService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Constructs an AttendanceController with the specified services.
@@ -35,28 +48,60 @@ public class AttendanceController {
      * @param attendanceService the service for managing attendance data.
      * @param classGroupService  the service for managing class group data.
      * @param seasonService      the service for managing seasons.
+     * @param idempotencyService the service that keeps the results of idempotent requests.
      */
     @Autowired
-    public AttendanceController(AttendanceService attendanceService, ClassGroupService classGroupService, SeasonService seasonService) {
+    public AttendanceController(AttendanceService attendanceService, ClassGroupService classGroupService, SeasonService seasonService, IdempotencyService idempotencyService) {
         this.attendanceService = attendanceService;
         this.classGroupService = classGroupService;
         this.seasonService = seasonService;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * Saves attendance records for a specific attendance DTO.
+     * Records already registered for the same date are overwritten. Requests sent again by the
+     * same user with the same Idempotency-Key header and body are answered with the stored result
+     * without touching the database; a key reused with a different body is rejected.
      * Requires the user to have the role of 'TEACHER'.
      *
      * @param attendanceDto the DTO containing attendance data to be saved.
+     * @param idempotencyKey optional key identifying retries of the same submission.
      * @return a ResponseEntity containing a response wrapper with the result of the operation.
      */
     @PostMapping("/new")
     @PreAuthorize("hasAnyRole('TEACHER')")
-    public ResponseEntity<ResponseWrapper<AttendanceDto>> saveAttendances(@RequestBody AttendanceDto attendanceDto) {
+    public ResponseEntity<ResponseWrapper<AttendanceDto>> saveAttendances(@RequestBody AttendanceDto attendanceDto,
+                                                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         if (!this.seasonService.seasonStarted()){
             return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.SEASON_NOT_STARTED, null));
         }
-        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ASSISTANCE_REGISTERED_CORRECT, this.attendanceService.saveAll(attendanceDto)));
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ASSISTANCE_REGISTERED_CORRECT, this.attendanceService.saveAll(attendanceDto)));
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        IdempotencyService.Claim claim = this.idempotencyService.claim(IDEMPOTENCY_SCOPE, authentication.getName(), idempotencyKey, attendanceDto);
+        switch (claim.getStatus()) {
+            case MISMATCH:
+                return ResponseEntity.unprocessableEntity().body(new ResponseWrapper<>(ResponseMessages.IDEMPOTENCY_KEY_REUSED, null));
+            case IN_PROGRESS:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseWrapper<>(ResponseMessages.IDEMPOTENCY_KEY_IN_PROGRESS, null));
+            case COMPLETED:
+                return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ASSISTANCE_REGISTERED_CORRECT, claim.getValue(AttendanceDto.class)));
+            default:
+                break;
+        }
+
+        AttendanceDto saved;
+        try {
+            saved = this.attendanceService.saveAll(attendanceDto);
+        } catch (RuntimeException e) {
+            this.idempotencyService.release(claim);
+            throw e;
+        }
+        this.idempotencyService.complete(claim, saved);
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ASSISTANCE_REGISTERED_CORRECT, saved));
     }
 
     /**
@@ -76,31 +121,147 @@ public class AttendanceController {
         return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.attendanceService.getClassGroupAttendanceWithYearAndMonth(Integer.parseInt(month), Integer.parseInt(classGroupId))));
     }
 
+    /**
+     * Retrieves the attendance rate of a student over a range of months.
+     * Requires the user to have the role of 'TEACHER' or 'ADMINISTRATOR'.
+     *
+     * @param userId the ID of the student.
+     * @param from   the first month included, as yyyy-MM.
+     * @param to     the last month included, as yyyy-MM.
+     * @return a ResponseEntity containing a response wrapper with the attendance rate of the student.
+     */
+    @GetMapping("/rate/student/{userId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMINISTRATOR')")
+    public ResponseEntity<ResponseWrapper<AttendanceRateDto>> getStudentRate(@PathVariable String userId, @RequestParam String from, @RequestParam String to) {
+        YearMonth[] range = this.parseRange(from, to);
+        if (range == null) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.INVALID_DATE_RANGE, null));
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.attendanceService.getStudentRate(Integer.parseInt(userId), range[0], range[1])));
+    }
+
+    /**
+     * Retrieves the attendance rate of a class group over a range of months.
+     * Requires the user to have the role of 'TEACHER' or 'ADMINISTRATOR'.
+     *
+     * @param classGroupId the ID of the class group.
+     * @param from         the first month included, as yyyy-MM.
+     * @param to           the last month included, as yyyy-MM.
+     * @return a ResponseEntity containing a response wrapper with the attendance rate of the class group.
+     */
+    @GetMapping("/rate/classgroup/{classGroupId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMINISTRATOR')")
+    public ResponseEntity<ResponseWrapper<AttendanceRateDto>> getClassGroupRate(@PathVariable String classGroupId, @RequestParam String from, @RequestParam String to) {
+        YearMonth[] range = this.parseRange(from, to);
+        if (range == null) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.INVALID_DATE_RANGE, null));
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.attendanceService.getClassGroupRate(Integer.parseInt(classGroupId), range[0], range[1])));
+    }
+
+    /**
+     * Parses a range of months.
+     *
+     * @param from the first month of the range, as yyyy-MM.
+     * @param to   the last month of the range, as yyyy-MM.
+     * @return the first and last month, or null if they cannot be parsed or are not in order.
+     */
+    private YearMonth[] parseRange(String from, String to) {
+        try {
+            YearMonth first = YearMonth.parse(from);
+            YearMonth last = YearMonth.parse(to);
+            return first.isAfter(last) ? null : new YearMonth[]{first, last};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     /**
      * Generates a PDF report of attendance for a specific class group.
+     * The report is written straight to the response stream while it is being generated.
      * Requires the user to have the role of 'TEACHER' or 'ADMINISTRATOR'.
      *
      * @param classGroupId the ID of the class group for which the PDF report is generated.
-     * @return a ResponseEntity containing the PDF report as a byte array.
+     * @return a ResponseEntity containing the body that streams the PDF report.
      */
     @GetMapping("/generatepdf/{classGroupId}")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMINISTRATOR')")
-    public ResponseEntity<byte[]> generatePdf(@PathVariable String classGroupId) {
+    public ResponseEntity<StreamingResponseBody> generatePdf(@PathVariable String classGroupId) {
         if (!this.seasonService.seasonStarted()){
             return ResponseEntity.badRequest().build();
         }
 
-        byte[] output = this.attendanceService.generatePdf(Integer.parseInt(classGroupId));
+        int id = Integer.parseInt(classGroupId);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        ClassGroup classgroup = classGroupService.findById(Integer.parseInt(classGroupId));
+        ClassGroup classgroup = classGroupService.findById(id);
         headers.setContentDispositionFormData("filename", "Attendance_ClassGroup_" + classgroup.getName() + ".pdf");
 
+        StreamingResponseBody output = out -> this.attendanceService.generatePdf(id, out);
+
+        return ResponseEntity
+                .ok()
+                .headers(headers)
+                .body(output);
+    }
+
+    /**
+     * Exports the attendance of the active season of every class group taught by a teacher as CSV.
+     * The file is written straight to the response stream while it is being generated.
+     * Requires the user to have the role of 'TEACHER' or 'ADMINISTRATOR'.
+     *
+     * @param teacherId the ID of the teacher whose class groups are exported.
+     * @return a ResponseEntity containing the body that streams the CSV file.
+     */
+    @GetMapping("/export/{teacherId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> exportTeacherCsv(@PathVariable String teacherId) {
+        if (!this.seasonService.seasonStarted()){
+            return ResponseEntity.badRequest().build();
+        }
+
+        int id = Integer.parseInt(teacherId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("filename", "Attendance_Teacher_" + id + ".csv");
+
+        StreamingResponseBody output = out -> this.attendanceService.generateTeacherCsv(id, out);
+
         return ResponseEntity
                 .ok()
                 .headers(headers)
                 .body(output);
+    }
+
+    /**
+     * Rebuilds the attendance bitmaps of the active season from the attendance records.
+     * Requires the user to have the role of 'ADMINISTRATOR'.
+     *
+     * @return a ResponseEntity containing a response wrapper with the number of bitmaps written.
+     */
+    @PostMapping("/bitmaps/rebuild")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<ResponseWrapper<Integer>> rebuildBitmaps() {
+        if (!this.seasonService.seasonStarted()){
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.SEASON_NOT_STARTED, null));
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.attendanceService.rebuildAttendanceBitmaps()));
+    }
 
+    /**
+     * Rebuilds the monthly attendance totals of the active season from the attendance records.
+     * Requires the user to have the role of 'ADMINISTRATOR'.
+     *
+     * @return a ResponseEntity containing a response wrapper with the number of monthly totals written.
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<ResponseWrapper<Integer>> rebuildRollups() {
+        if (!this.seasonService.seasonStarted()){
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.SEASON_NOT_STARTED, null));
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.attendanceService.rebuildAttendanceRollups()));
     }
 }
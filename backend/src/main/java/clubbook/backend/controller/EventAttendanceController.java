@@ -1,11 +1,14 @@
 package clubbook.backend.controller;
 
+import clubbook.backend.dtos.EventHeadcountDto;
 import clubbook.backend.dtos.UpdateEventAttendanceDto;
 import clubbook.backend.model.EventAttendance;
 import clubbook.backend.responses.ResponseMessages;
 import clubbook.backend.responses.ResponseWrapper;
 import clubbook.backend.service.EventAttendanceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -53,6 +56,18 @@ public class EventAttendanceController {
         return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.eventAttendanceService.getEventAttendanceTeachers(eventId)));
     }
 
+    /**
+     * Retrieves the RSVP totals of a specific event.
+     *
+     * @param eventId The ID of the event for which to retrieve the totals.
+     * @return A response containing the number of users attending, not attending and pending an answer.
+     */
+    @GetMapping("/{eventId}/headcount")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER')")
+    public ResponseEntity<ResponseWrapper<EventHeadcountDto>> getHeadcount(@PathVariable int eventId) {
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.eventAttendanceService.getHeadcount(eventId)));
+    }
+
     /**
      * Retrieves the attendance of a specific user for a given event.
      *
@@ -70,12 +85,22 @@ public class EventAttendanceController {
      * Updates the attendance for a specific event.
      *
      * @param attendance Object containing the attendance information to be updated.
-     * @return A response indicating whether the attendance update was successful.
+     * @return A response indicating whether the attendance update was successful, whether the user
+     *         was put on the waitlist of a full event instead (with false as data),
+     *         or a conflict if the attendance kept changing while it was being updated.
      */
     @PutMapping("/update")
     @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT')")
     public ResponseEntity<ResponseWrapper<Boolean>> updateAttendance(@RequestBody UpdateEventAttendanceDto attendance) {
-        this.eventAttendanceService.saveEventAttendance(attendance);
+        boolean waitlisted;
+        try {
+            waitlisted = this.eventAttendanceService.saveEventAttendance(attendance);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ResponseWrapper<>(ResponseMessages.ATTENDANCE_CONFLICT, false));
+        }
+        if (waitlisted) {
+            return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ATTENDANCE_WAITLISTED, false));
+        }
         return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.ATTENDANCE_UPDATED, true));
     }
 }
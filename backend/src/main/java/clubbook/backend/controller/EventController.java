@@ -1,14 +1,21 @@
 package clubbook.backend.controller;
 
 import clubbook.backend.dtos.EventDto;
+import clubbook.backend.dtos.EventPageDto;
 import clubbook.backend.dtos.NewEventDto;
-import clubbook.backend.model.Event;
 import clubbook.backend.model.EventType;
+import clubbook.backend.model.User;
+import clubbook.backend.model.enumClasses.EventTypeEnum;
 import clubbook.backend.responses.ResponseMessages;
 import clubbook.backend.responses.ResponseWrapper;
+import clubbook.backend.service.CalendarFeedService;
 import clubbook.backend.service.EventService;
+import clubbook.backend.service.EventStreamService;
 import clubbook.backend.service.SeasonService;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,9 +24,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Controller to manage events.
@@ -33,11 +44,16 @@ public class EventController {
 
     private final EventService eventService;
     private final SeasonService seasonService;
+    private final CalendarFeedService calendarFeedService;
+    private final EventStreamService eventStreamService;
 
     @Autowired
-    public EventController(EventService eventService, SeasonService seasonService) {
+    public EventController(EventService eventService, SeasonService seasonService, CalendarFeedService calendarFeedService,
+                           EventStreamService eventStreamService) {
         this.eventService = eventService;
         this.seasonService = seasonService;
+        this.calendarFeedService = calendarFeedService;
+        this.eventStreamService = eventStreamService;
     }
 
     /**
@@ -115,23 +131,97 @@ public class EventController {
         return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, events));
     }
 
+    /**
+     * Retrieves a page of future events for a specific user based on their role.
+     *
+     * @param userId The ID of the user for whom to retrieve events.
+     * @param token  The continuation token returned with the previous page, absent for the first page.
+     * @param size   The maximum number of events of the page.
+     * @return A response containing the page of future events.
+     */
+    @GetMapping("/all/{userId}/page")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER', 'STUDENT')")
+    public ResponseEntity<ResponseWrapper<EventPageDto>> getAllEventsPage(@PathVariable int userId,
+                                                                          @RequestParam(required = false) String token,
+                                                                          @RequestParam(defaultValue = "20") int size) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String role = authentication.getAuthorities().stream()
+                .findFirst().orElseThrow()
+                .getAuthority();
+
+        if (!role.equals("ROLE_ADMINISTRATOR") && !this.seasonService.seasonStarted()) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.SEASON_NOT_STARTED, null));
+        }
+
+        EventPageDto page;
+        try {
+            if (role.equals("ROLE_STUDENT")) {
+                page = this.eventService.findStudentFutureEventsPage(userId, token, size);
+            } else {
+                page = this.eventService.findFutureEventsPage(token, size);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.INVALID_PAGE_TOKEN, null));
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, page));
+    }
+
+    /**
+     * Searches the events by the words of their title, address and additional information for a user based on their role.
+     * Words are matched ignoring case and accents and by their beginning, so partial words can be searched.
+     * Students only find the events they can attend.
+     *
+     * @param userId The ID of the user searching.
+     * @param q      The words to search; when absent, every event passing the filters is found.
+     * @param type   The type of the events, absent for any type.
+     * @param from   The first event date included, absent for no limit.
+     * @param to     The last event date included, absent for no limit.
+     * @param size   The maximum number of events to return.
+     * @return A response containing the events found, ordered by date.
+     */
+    @GetMapping("/search/{userId}")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER', 'STUDENT')")
+    public ResponseEntity<ResponseWrapper<List<EventDto>>> searchEvents(@PathVariable int userId,
+                                                                        @RequestParam(required = false) String q,
+                                                                        @RequestParam(required = false) EventTypeEnum type,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                        @RequestParam(defaultValue = "20") int size) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String role = authentication.getAuthorities().stream()
+                .findFirst().orElseThrow()
+                .getAuthority();
+
+        if (!role.equals("ROLE_ADMINISTRATOR") && !this.seasonService.seasonStarted()) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.SEASON_NOT_STARTED, null));
+        }
+
+        List<EventDto> events;
+        if (role.equals("ROLE_STUDENT")) {
+            events = this.eventService.searchStudentEvents(userId, q, type, from, to, size);
+        } else {
+            events = this.eventService.searchEvents(q, type, from, to, size);
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, events));
+    }
+
     /**
      * Retrieves events for a specific month and year for a user based on their role.
      *
      * @param monthValue The month for which to retrieve events.
      * @param year      The year for which to retrieve events.
      * @param userId    The ID of the user for whom to retrieve events.
-     * @return A response containing a map of days to events for the specified month.
+     * @return A response containing a map of days to events for the specified month, already serialized.
      */
     @GetMapping("/month/{monthValue}/{year}/{userId}")
     @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER', 'STUDENT')")
-    public ResponseEntity<ResponseWrapper<Map<Integer,List<EventDto>>>> getMonthEvents(@PathVariable int monthValue, @PathVariable int year, @PathVariable int userId) {
+    public ResponseEntity<ResponseWrapper<RawValue>> getMonthEvents(@PathVariable int monthValue, @PathVariable int year, @PathVariable int userId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String role = authentication.getAuthorities().stream()
                 .findFirst().orElseThrow()
                 .getAuthority();
 
-        Map<Integer, List<EventDto>> events;
+        RawValue events;
 
         if (role.equals("ROLE_ADMINISTRATOR")) {
             events = this.eventService.findActualMonthEvents(monthValue, year);
@@ -160,6 +250,24 @@ public class EventController {
         return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.eventService.findAllPastEvents()));
     }
 
+    /**
+     * Retrieves a page of past events, from the most recent one backwards.
+     *
+     * @param token The continuation token returned with the previous page, absent for the first page.
+     * @param size  The maximum number of events of the page.
+     * @return A response containing the page of past events.
+     */
+    @GetMapping("/past/page")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER')")
+    public ResponseEntity<ResponseWrapper<EventPageDto>> getAllPastEventsPage(@RequestParam(required = false) String token,
+                                                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, this.eventService.findPastEventsPage(token, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ResponseWrapper<>(ResponseMessages.INVALID_PAGE_TOKEN, null));
+        }
+    }
+
     /**
      * Retrieves the next event for a specific user based on their role.
      *
@@ -215,30 +323,77 @@ public class EventController {
      */
     @GetMapping("/generatepdf/{eventId}")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMINISTRATOR')")
-    public ResponseEntity<byte[]> generatePdf(@PathVariable String eventId) {
+    public ResponseEntity<StreamingResponseBody> generatePdf(@PathVariable String eventId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String role = authentication.getAuthorities().stream()
                 .findFirst().orElseThrow()
                 .getAuthority();
 
-        byte[] output = new byte[0];
-        if (role.equals("ROLE_ADMINISTRATOR")) {
-            output = this.eventService.generatePdf(Integer.parseInt(eventId));
-        } else if (role.equals("ROLE_TEACHER")) {
-            if (!this.seasonService.seasonStarted()) {
-                return ResponseEntity.badRequest().build();
-            }
-            output = this.eventService.generatePdf(Integer.parseInt(eventId));
+        if (role.equals("ROLE_TEACHER") && !this.seasonService.seasonStarted()) {
+            return ResponseEntity.badRequest().build();
         }
 
-        
-
+        EventDto event = this.eventService.findEventDto(Integer.parseInt(eventId));
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        Event event = eventService.findEvent(Integer.parseInt(eventId));
         headers.setContentDispositionFormData("filename", "Attendance_Event_" + event.getTitle() + ".pdf");
 
-        return ResponseEntity.ok().headers(headers).body(output);
+        return ResponseEntity.ok().headers(headers).body(out -> this.eventService.writeRosterPdf(event, out));
+    }
 
+    /**
+     * Retrieves the secret token of the iCalendar feed of the authenticated user, creating it the first time.
+     * Calendar clients cannot log in, so the feed is fetched from /event/calendar/{token}.ics.
+     *
+     * @return A response containing the token of the feed.
+     */
+    @GetMapping("/calendar/token")
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER', 'STUDENT')")
+    public ResponseEntity<ResponseWrapper<String>> getCalendarToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String token = this.calendarFeedService.getFeedToken(authentication.getName());
+        if (token == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new ResponseWrapper<>(ResponseMessages.OK, token));
+    }
+
+    /**
+     * Retrieves the iCalendar feed of the user owning a feed token, based on their role: the upcoming events and the weekly classes.
+     * The feed carries a strong ETag, so a request with a matching If-None-Match gets a 304 without the feed.
+     *
+     * @param token   The secret token of the feed.
+     * @param request The request, checked against the ETag of the feed.
+     * @return A response containing the feed, or null if the client's copy is still current.
+     */
+    @GetMapping("/calendar/{token}.ics")
+    public ResponseEntity<String> getCalendarFeed(@PathVariable String token, WebRequest request) {
+        User user = this.calendarFeedService.findFeedOwner(token);
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String eTag = this.calendarFeedService.getETag(user);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .body(this.calendarFeedService.buildFeed(user));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream with the changes to the events and their RSVPs:
+     * "change" events carry the type of change, the event and the RSVP deltas, and a "reset"
+     * event tells a client that fell behind to reload the events instead.
+     *
+     * @return The emitter of the stream.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'TEACHER', 'STUDENT')")
+    public SseEmitter getEventStream() {
+        return this.eventStreamService.connect();
     }
 }
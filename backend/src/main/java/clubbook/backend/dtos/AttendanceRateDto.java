@@ -0,0 +1,64 @@
+package clubbook.backend.dtos;
+
+/**
+ * Data Transfer Object representing the attendance rate of a student or a class group
+ * over a range of months.
+ */
+public class AttendanceRateDto {
+
+    /**
+     * The number of classes attended.
+     */
+    private long attended;
+
+    /**
+     * The number of classes with registered attendance.
+     */
+    private long marked;
+
+    /**
+     * The ratio between attended and registered classes, from 0 to 1.
+     */
+    private double rate;
+
+    /**
+     * Constructs a new AttendanceRateDto from the attended and registered class counts.
+     *
+     * @param attended the number of classes attended
+     * @param marked the number of classes with registered attendance
+     */
+    public AttendanceRateDto(long attended, long marked) {
+        this.attended = attended;
+        this.marked = marked;
+        this.rate = marked == 0 ? 0 : (double) attended / marked;
+    }
+
+    /**
+     * Default constructor for creating an empty AttendanceRateDto.
+     */
+    public AttendanceRateDto() {}
+
+    public long getAttended() {
+        return attended;
+    }
+
+    public void setAttended(long attended) {
+        this.attended = attended;
+    }
+
+    public long getMarked() {
+        return marked;
+    }
+
+    public void setMarked(long marked) {
+        this.marked = marked;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+}
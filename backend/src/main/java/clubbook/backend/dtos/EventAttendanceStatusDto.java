@@ -0,0 +1,110 @@
+package clubbook.backend.dtos;
+
+/**
+ * Data Transfer Object representing the current reply of an event attendance record
+ * together with the version it was read at and the capacity of its event.
+ */
+public class EventAttendanceStatusDto {
+
+    /**
+     * The unique identifier for the event attendance record.
+     */
+    private int id;
+
+    /**
+     * The unique identifier for the event.
+     */
+    private int eventId;
+
+    /**
+     * The attendance status: true (attending), false (not attending) or null (not answered).
+     */
+    private Boolean status;
+
+    /**
+     * The version of the event attendance record.
+     */
+    private int version;
+
+    /**
+     * The place of the user in the waitlist of the event, or null if the user is not waiting for a slot.
+     */
+    private Long waitlistTicket;
+
+    /**
+     * The maximum number of users attending the event, or null if it is unlimited.
+     */
+    private Integer capacity;
+
+    /**
+     * Constructs an EventAttendanceStatusDto with the specified details.
+     *
+     * @param id      the unique identifier for the event attendance record
+     * @param eventId the unique identifier for the event
+     * @param status  the attendance status
+     * @param version the version of the record
+     * @param waitlistTicket the place of the user in the waitlist, or null if not waiting
+     * @param capacity the capacity of the event, or null if it is unlimited
+     */
+    public EventAttendanceStatusDto(int id, int eventId, Boolean status, int version, Long waitlistTicket, Integer capacity) {
+        this.id = id;
+        this.eventId = eventId;
+        this.status = status;
+        this.version = version;
+        this.waitlistTicket = waitlistTicket;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Default constructor for creating an empty EventAttendanceStatusDto.
+     */
+    public EventAttendanceStatusDto() {}
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(int eventId) {
+        this.eventId = eventId;
+    }
+
+    public Boolean getStatus() {
+        return status;
+    }
+
+    public void setStatus(Boolean status) {
+        this.status = status;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Long getWaitlistTicket() {
+        return waitlistTicket;
+    }
+
+    public void setWaitlistTicket(Long waitlistTicket) {
+        this.waitlistTicket = waitlistTicket;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -0,0 +1,168 @@
+package clubbook.backend.dtos;
+
+import clubbook.backend.model.enumClasses.EventChangeType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Data Transfer Object representing a change to the events or their RSVPs, as pushed to
+ * the clients following them. Only the fields of its kind of change are set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventChangeDto {
+
+    /**
+     * The kind of change.
+     */
+    private EventChangeType type;
+
+    /**
+     * The ID of the event changed, absent when every event was deleted.
+     */
+    private Integer eventId;
+
+    /**
+     * The date of the event, for changes to the event itself.
+     */
+    private LocalDate date;
+
+    /**
+     * The change in the number of users attending, for RSVP changes.
+     */
+    private Integer attending;
+
+    /**
+     * The change in the number of users not attending, for RSVP changes.
+     */
+    private Integer declined;
+
+    /**
+     * The change in the number of users that have not answered, for RSVP changes.
+     */
+    private Integer pending;
+
+    /**
+     * Default constructor for creating an empty EventChangeDto.
+     */
+    public EventChangeDto() {}
+
+    /**
+     * Creates the change of an event created, edited or deleted.
+     *
+     * @param type the kind of change
+     * @param eventId the ID of the event
+     * @param date the date of the event
+     * @return the change
+     */
+    public static EventChangeDto ofEvent(EventChangeType type, int eventId, LocalDate date) {
+        EventChangeDto change = new EventChangeDto();
+        change.type = type;
+        change.eventId = eventId;
+        change.date = date;
+        return change;
+    }
+
+    /**
+     * Creates the change of every event deleted.
+     *
+     * @return the change
+     */
+    public static EventChangeDto cleared() {
+        EventChangeDto change = new EventChangeDto();
+        change.type = EventChangeType.CLEARED;
+        return change;
+    }
+
+    /**
+     * Creates the change of the RSVP totals of an event.
+     *
+     * @param eventId the ID of the event
+     * @param attending the change in the number of users attending
+     * @param declined the change in the number of users not attending
+     * @param pending the change in the number of users that have not answered
+     * @return the change
+     */
+    public static EventChangeDto ofRsvp(int eventId, int attending, int declined, int pending) {
+        EventChangeDto change = new EventChangeDto();
+        change.type = EventChangeType.RSVP;
+        change.eventId = eventId;
+        change.attending = attending;
+        change.declined = declined;
+        change.pending = pending;
+        return change;
+    }
+
+    /**
+     * Creates the change of a reply moved from one status to another.
+     *
+     * @param eventId the ID of the event
+     * @param previous the previous status of the reply: true attending, false declined, null pending
+     * @param current the new status of the reply
+     * @return the change
+     */
+    public static EventChangeDto ofReply(int eventId, Boolean previous, Boolean current) {
+        return ofRsvp(eventId, delta(Boolean.TRUE, previous, current), delta(Boolean.FALSE, previous, current), delta(null, previous, current));
+    }
+
+    /**
+     * Computes how a total changes when a reply moves from one status to another.
+     *
+     * @param status the status counted by the total
+     * @param previous the previous status of the reply
+     * @param current the new status of the reply
+     * @return 1 if the reply enters the total, -1 if it leaves it, 0 otherwise
+     */
+    private static int delta(Boolean status, Boolean previous, Boolean current) {
+        return (Objects.equals(status, current) ? 1 : 0) - (Objects.equals(status, previous) ? 1 : 0);
+    }
+
+    public EventChangeType getType() {
+        return type;
+    }
+
+    public void setType(EventChangeType type) {
+        this.type = type;
+    }
+
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Integer getAttending() {
+        return attending;
+    }
+
+    public void setAttending(Integer attending) {
+        this.attending = attending;
+    }
+
+    public Integer getDeclined() {
+        return declined;
+    }
+
+    public void setDeclined(Integer declined) {
+        this.declined = declined;
+    }
+
+    public Integer getPending() {
+        return pending;
+    }
+
+    public void setPending(Integer pending) {
+        this.pending = pending;
+    }
+}
@@ -2,8 +2,10 @@ package clubbook.backend.dtos;
 
 import clubbook.backend.model.Event;
 import clubbook.backend.model.EventType;
+import clubbook.backend.model.enumClasses.EventTypeEnum;
 
 import java.time.LocalDate;
+import java.util.Date;
 
 /**
  * Data Transfer Object representing an event.
@@ -56,6 +58,11 @@ public class EventDto {
      */
     private LocalDate deadline;
 
+    /**
+     * Maximum number of users attending the event, or null if it is unlimited.
+     */
+    private Integer capacity;
+
     /**
      * Constructs an EventDto with specified details.
      *
@@ -81,6 +88,29 @@ public class EventDto {
         this.deadline = deadline;
     }
 
+    /**
+     * Constructs an EventDto from the columns of an event and its type, as selected by projection queries.
+     *
+     * @param id the unique identifier of the event
+     * @param title the title of the event
+     * @param additionalInfo additional information about the event
+     * @param address the address of the event location
+     * @param typeId the identifier of the event type, or null if the event has no type
+     * @param typeName the name of the event type
+     * @param typeCreatedAt the creation timestamp of the event type
+     * @param date the date of the event
+     * @param birthYearStart the starting birth year for eligible participants
+     * @param birthYearEnd the ending birth year for eligible participants
+     * @param deadline the registration deadline for the event
+     * @param capacity the maximum number of users attending the event, or null if it is unlimited
+     */
+    public EventDto(int id, String title, String additionalInfo, String address, Integer typeId, EventTypeEnum typeName, Date typeCreatedAt,
+                    LocalDate date, LocalDate birthYearStart, LocalDate birthYearEnd, LocalDate deadline, Integer capacity) {
+        this(id, title, additionalInfo, address, typeId == null ? null : new EventType(typeId, typeName, typeCreatedAt),
+                date, birthYearStart, birthYearEnd, deadline);
+        this.capacity = capacity;
+    }
+
     /**
      * Default constructor for EventDto.
      */
@@ -102,6 +132,7 @@ public class EventDto {
         this.birthYearStart = event.getBirthYearStart();
         this.birthYearEnd = event.getBirthYearEnd();
         this.deadline = event.getDeadline();
+        this.capacity = event.getCapacity();
     }
 
     public int getId() {
@@ -175,4 +206,12 @@ public class EventDto {
     public void setDeadline(LocalDate deadline) {
         this.deadline = deadline;
     }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
 }
@@ -0,0 +1,64 @@
+package clubbook.backend.dtos;
+
+/**
+ * Data Transfer Object representing the RSVP totals of an event.
+ */
+public class EventHeadcountDto {
+
+    /**
+     * The number of users attending the event.
+     */
+    private long attending;
+
+    /**
+     * The number of users not attending the event.
+     */
+    private long declined;
+
+    /**
+     * The number of users that have not answered yet.
+     */
+    private long pending;
+
+    /**
+     * Constructs a new EventHeadcountDto with the specified totals.
+     *
+     * @param attending the number of users attending
+     * @param declined the number of users not attending
+     * @param pending the number of users that have not answered
+     */
+    public EventHeadcountDto(long attending, long declined, long pending) {
+        this.attending = attending;
+        this.declined = declined;
+        this.pending = pending;
+    }
+
+    /**
+     * Default constructor for creating an empty EventHeadcountDto.
+     */
+    public EventHeadcountDto() {}
+
+    public long getAttending() {
+        return attending;
+    }
+
+    public void setAttending(long attending) {
+        this.attending = attending;
+    }
+
+    public long getDeclined() {
+        return declined;
+    }
+
+    public void setDeclined(long declined) {
+        this.declined = declined;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+}
@@ -0,0 +1,52 @@
+package clubbook.backend.dtos;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing a page of an event listing.
+ * Contains the events of the page and the token to request the next one.
+ */
+public class EventPageDto {
+
+    /**
+     * The events of the page.
+     */
+    private List<EventDto> events;
+
+    /**
+     * Opaque token to request the next page, or null if this is the last one.
+     */
+    private String nextToken;
+
+    /**
+     * Constructs an EventPageDto with the specified events and continuation token.
+     *
+     * @param events the events of the page
+     * @param nextToken the token to request the next page, or null if this is the last one
+     */
+    public EventPageDto(List<EventDto> events, String nextToken) {
+        this.events = events;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Default constructor for creating an empty EventPageDto.
+     */
+    public EventPageDto() {}
+
+    public List<EventDto> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<EventDto> events) {
+        this.events = events;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+}
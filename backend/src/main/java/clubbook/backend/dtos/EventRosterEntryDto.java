@@ -0,0 +1,82 @@
+package clubbook.backend.dtos;
+
+import clubbook.backend.model.enumClasses.RoleEnum;
+
+/**
+ * Data Transfer Object representing one line of the roster of an event:
+ * who the user is and how they answered.
+ */
+public class EventRosterEntryDto {
+
+    /**
+     * The role of the user.
+     */
+    private RoleEnum role;
+
+    /**
+     * The first name of the user.
+     */
+    private String firstName;
+
+    /**
+     * The last name of the user.
+     */
+    private String lastName;
+
+    /**
+     * The attendance status: true (attending), false (not attending) or null (not answered).
+     */
+    private Boolean status;
+
+    /**
+     * Constructs an EventRosterEntryDto with the specified details.
+     *
+     * @param role      the role of the user
+     * @param firstName the first name of the user
+     * @param lastName  the last name of the user
+     * @param status    the attendance status of the user
+     */
+    public EventRosterEntryDto(RoleEnum role, String firstName, String lastName, Boolean status) {
+        this.role = role;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.status = status;
+    }
+
+    /**
+     * Default constructor for creating an empty EventRosterEntryDto.
+     */
+    public EventRosterEntryDto() {}
+
+    public RoleEnum getRole() {
+        return role;
+    }
+
+    public void setRole(RoleEnum role) {
+        this.role = role;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public Boolean getStatus() {
+        return status;
+    }
+
+    public void setStatus(Boolean status) {
+        this.status = status;
+    }
+}
@@ -48,6 +48,11 @@ public class NewEventDto {
      */
     private LocalDate deadline;
 
+    /**
+     * The maximum number of users attending the event, or null if it is unlimited.
+     */
+    private Integer capacity;
+
     /**
      * Constructs a NewEventDto with specified values.
      *
@@ -140,4 +145,12 @@ public class NewEventDto {
     public void setDeadline(LocalDate deadline) {
         this.deadline = deadline;
     }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
 }
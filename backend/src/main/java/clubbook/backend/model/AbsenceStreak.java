@@ -0,0 +1,93 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Class representing the current run of consecutive absences of a user.
+ */
+@Entity
+@Table(name = "T_Absence_Streak")
+public class AbsenceStreak {
+
+    /**
+     * Last date of a streak created before any class was applied to it, earlier than every class.
+     */
+    public static final LocalDate NO_CLASS = LocalDate.of(1970, 1, 1);
+
+    /**
+     * Unique identifier of the absence streak.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * User who the streak is referring to.
+     */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+
+    /**
+     * Date of the latest registered class of the user.
+     */
+    @Column(nullable = false)
+    @Temporal(TemporalType.DATE)
+    private LocalDate lastDate;
+
+    /**
+     * Number of consecutive classes missed up to the latest registered class.
+     */
+    @Column(nullable = false)
+    private int absences;
+
+    /**
+     * Constructor for an empty AbsenceStreak of a user.
+     *
+     * @param user the user associated with the streak
+     * @param lastDate the date of the latest registered class
+     */
+    public AbsenceStreak(User user, LocalDate lastDate) {
+        this.user = user;
+        this.lastDate = lastDate;
+    }
+
+    /**
+     * Default constructor for AbsenceStreak.
+     */
+    public AbsenceStreak() {}
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public int getAbsences() {
+        return absences;
+    }
+
+    public void setAbsences(int absences) {
+        this.absences = absences;
+    }
+}
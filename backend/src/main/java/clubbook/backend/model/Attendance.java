@@ -9,7 +9,8 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "T_ATTENDANCE",
-        uniqueConstraints = {@UniqueConstraint(columnNames = {"attendance_date", "user_id"})})
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"attendance_date", "user_id"})},
+        indexes = {@Index(name = "idx_attendance_user_date", columnList = "user_id, attendance_date")})
 public class Attendance {
 
     /**
@@ -0,0 +1,119 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Class representing the compact attendance of a user during a season.
+ * Two bitmaps are stored, indexed by the ordinal of the day within the season:
+ * one with the days the user was marked and one with the days the user attended.
+ */
+@Entity
+@Table(name = "T_Attendance_Bitmap",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"season_start", "user_id"})})
+public class AttendanceBitmap {
+
+    /**
+     * Unique identifier of the attendance bitmap.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * User who the bitmaps are referring to.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * First day of the season the bitmaps belong to.
+     */
+    @Column(nullable = false)
+    @Temporal(TemporalType.DATE)
+    private LocalDate seasonStart;
+
+    /**
+     * Bitmap of the days the user attended.
+     */
+    @Column(columnDefinition = "BYTEA", nullable = false)
+    private byte[] present;
+
+    /**
+     * Bitmap of the days the user's attendance was registered.
+     */
+    @Column(columnDefinition = "BYTEA", nullable = false)
+    private byte[] marked;
+
+    /**
+     * Constructor for an empty AttendanceBitmap of a user in a season.
+     *
+     * @param user        the user associated with the bitmaps
+     * @param seasonStart the first day of the season
+     */
+    public AttendanceBitmap(User user, LocalDate seasonStart) {
+        this.user = user;
+        this.seasonStart = seasonStart;
+        this.present = new byte[0];
+        this.marked = new byte[0];
+    }
+
+    /**
+     * Default constructor for AttendanceBitmap.
+     */
+    public AttendanceBitmap() {}
+
+    /**
+     * Returns the ordinal of a date within the season, used as bit index.
+     *
+     * @param seasonStart the first day of the season
+     * @param date        the date to convert
+     * @return the number of days between the start of the season and the date
+     */
+    public static int ordinal(LocalDate seasonStart, LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(seasonStart, date);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public LocalDate getSeasonStart() {
+        return seasonStart;
+    }
+
+    public void setSeasonStart(LocalDate seasonStart) {
+        this.seasonStart = seasonStart;
+    }
+
+    public byte[] getPresent() {
+        return present;
+    }
+
+    public void setPresent(byte[] present) {
+        this.present = present;
+    }
+
+    public byte[] getMarked() {
+        return marked;
+    }
+
+    public void setMarked(byte[] marked) {
+        this.marked = marked;
+    }
+}
@@ -0,0 +1,120 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Class representing the attendance totals of a student in a class group during a month.
+ */
+@Entity
+@Table(name = "T_Attendance_Rollup",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"user_id", "class_group_id", "month_start"})})
+public class AttendanceRollup {
+
+    /**
+     * Unique identifier of the attendance rollup.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * User who the totals are referring to.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * Class group in which the attendance was registered.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_group_id", nullable = false)
+    private ClassGroup classGroup;
+
+    /**
+     * First day of the month the totals belong to.
+     */
+    @Column(nullable = false)
+    @Temporal(TemporalType.DATE)
+    private LocalDate monthStart;
+
+    /**
+     * Number of classes attended.
+     */
+    @Column(nullable = false)
+    private int attended;
+
+    /**
+     * Number of classes with registered attendance.
+     */
+    @Column(nullable = false)
+    private int marked;
+
+    /**
+     * Constructor for empty totals of a user in a class group during a month.
+     *
+     * @param user       the user associated with the totals
+     * @param classGroup the class group in which the attendance was registered
+     * @param monthStart the first day of the month
+     */
+    public AttendanceRollup(User user, ClassGroup classGroup, LocalDate monthStart) {
+        this.user = user;
+        this.classGroup = classGroup;
+        this.monthStart = monthStart;
+    }
+
+    /**
+     * Default constructor for AttendanceRollup.
+     */
+    public AttendanceRollup() {}
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public ClassGroup getClassGroup() {
+        return classGroup;
+    }
+
+    public void setClassGroup(ClassGroup classGroup) {
+        this.classGroup = classGroup;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+
+    public int getAttended() {
+        return attended;
+    }
+
+    public void setAttended(int attended) {
+        this.attended = attended;
+    }
+
+    public int getMarked() {
+        return marked;
+    }
+
+    public void setMarked(int marked) {
+        this.marked = marked;
+    }
+}
@@ -0,0 +1,45 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Represents the change version of a part of the calendar feeds, increased every time
+ * that part changes. A feed is identified by the versions of the parts it is built from.
+ */
+@Entity
+@Table(name = "T_Calendar_Version")
+public class CalendarVersion {
+
+    /**
+     * Part of the feeds the version belongs to.
+     */
+    @Id
+    private String scope;
+
+    /**
+     * Number of changes committed to the part.
+     */
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * Default constructor for CalendarVersion.
+     */
+    public CalendarVersion() {}
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -12,7 +12,7 @@ import java.util.List;
  * title, type, date, and attendance information.
  */
 @Entity
-@Table(name = "T_Event")
+@Table(name = "T_Event", indexes = {@Index(name = "idx_event_date_id", columnList = "date, id")})
 public class Event {
 
     /**
@@ -63,6 +63,11 @@ public class Event {
      */
     private LocalDate deadline;
 
+    /**
+     * The maximum number of users attending the event, or null if it is unlimited.
+     */
+    private Integer capacity;
+
     /**
      * The list of attendances for this event.
      */
@@ -175,6 +180,14 @@ public class Event {
         this.deadline = deadline;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
     public List<EventAttendance> getAttendances() {
         return attendances;
     }
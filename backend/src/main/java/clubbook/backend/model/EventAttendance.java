@@ -35,6 +35,18 @@ public class EventAttendance {
      */
     private Boolean status;
 
+    /**
+     * Version of the record, increased on every change of its status.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int version;
+
+    /**
+     * Place of the user in the waitlist of the event, lower first, or null if the user is not waiting for a slot.
+     */
+    private Long waitlistTicket;
+
     /**
      * Default constructor for EventAttendance.
      */
@@ -84,4 +96,20 @@ public class EventAttendance {
     public void setStatus(Boolean status) {
         this.status = status;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Long getWaitlistTicket() {
+        return waitlistTicket;
+    }
+
+    public void setWaitlistTicket(Long waitlistTicket) {
+        this.waitlistTicket = waitlistTicket;
+    }
 }
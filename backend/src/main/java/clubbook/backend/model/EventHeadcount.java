@@ -0,0 +1,89 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Represents the running RSVP totals of an event: how many attendance records are
+ * confirmed, declined or still pending an answer.
+ */
+@Entity
+@Table(name = "T_Event_Headcount")
+public class EventHeadcount {
+
+    /**
+     * Identifier of the event the totals belong to.
+     */
+    @Id
+    @Column(name = "event_id")
+    private int eventId;
+
+    /**
+     * Number of users attending the event.
+     */
+    @Column(nullable = false)
+    private int attending;
+
+    /**
+     * Number of users not attending the event.
+     */
+    @Column(nullable = false)
+    private int declined;
+
+    /**
+     * Number of users that have not answered yet.
+     */
+    @Column(nullable = false)
+    private int pending;
+
+    /**
+     * Default constructor for EventHeadcount.
+     */
+    public EventHeadcount() {}
+
+    /**
+     * Constructs a new EventHeadcount with specified parameters.
+     *
+     * @param eventId   the identifier of the event
+     * @param attending the number of users attending
+     * @param declined  the number of users not attending
+     * @param pending   the number of users that have not answered
+     */
+    public EventHeadcount(int eventId, int attending, int declined, int pending) {
+        this.eventId = eventId;
+        this.attending = attending;
+        this.declined = declined;
+        this.pending = pending;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(int eventId) {
+        this.eventId = eventId;
+    }
+
+    public int getAttending() {
+        return attending;
+    }
+
+    public void setAttending(int attending) {
+        this.attending = attending;
+    }
+
+    public int getDeclined() {
+        return declined;
+    }
+
+    public void setDeclined(int declined) {
+        this.declined = declined;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+}
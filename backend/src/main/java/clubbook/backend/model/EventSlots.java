@@ -0,0 +1,90 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Represents the slot counter of an event with a limited capacity: how many slots the
+ * event has, how many are taken and the last waitlist place handed out.
+ * Events without a capacity have no counter.
+ */
+@Entity
+@Table(name = "T_Event_Slots")
+public class EventSlots {
+
+    /**
+     * Identifier of the event the counter belongs to.
+     */
+    @Id
+    @Column(name = "event_id")
+    private int eventId;
+
+    /**
+     * Number of slots of the event.
+     */
+    @Column(nullable = false)
+    private int capacity;
+
+    /**
+     * Number of slots taken by users attending the event.
+     */
+    @Column(nullable = false)
+    private int taken;
+
+    /**
+     * Last waitlist place handed out for the event.
+     */
+    @Column(nullable = false)
+    private long lastTicket;
+
+    /**
+     * Default constructor for EventSlots.
+     */
+    public EventSlots() {}
+
+    /**
+     * Constructs a new EventSlots with specified parameters.
+     *
+     * @param eventId    the identifier of the event
+     * @param capacity   the number of slots of the event
+     * @param taken      the number of slots taken
+     * @param lastTicket the last waitlist place handed out
+     */
+    public EventSlots(int eventId, int capacity, int taken, long lastTicket) {
+        this.eventId = eventId;
+        this.capacity = capacity;
+        this.taken = taken;
+        this.lastTicket = lastTicket;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(int eventId) {
+        this.eventId = eventId;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getTaken() {
+        return taken;
+    }
+
+    public void setTaken(int taken) {
+        this.taken = taken;
+    }
+
+    public long getLastTicket() {
+        return lastTicket;
+    }
+
+    public void setLastTicket(long lastTicket) {
+        this.lastTicket = lastTicket;
+    }
+}
@@ -0,0 +1,127 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the progress of a run of a chunked scheduled job, so that a run
+ * interrupted by a failure resumes after the last chunk committed.
+ * Jobs walk events in ID order and, within an event, users in ID order.
+ */
+@Entity
+@Table(name = "T_Job_Checkpoint")
+public class JobCheckpoint {
+
+    /**
+     * User position stored once every user of an event has been processed.
+     */
+    public static final int EVENT_DONE = Integer.MAX_VALUE;
+
+    /**
+     * Name of the job.
+     */
+    @Id
+    private String name;
+
+    /**
+     * Day of the run the progress belongs to.
+     */
+    @Column(nullable = false)
+    @Temporal(TemporalType.DATE)
+    private LocalDate runDate;
+
+    /**
+     * ID of the event of the last chunk committed, or 0 if none was.
+     */
+    @Column(nullable = false)
+    private int eventId;
+
+    /**
+     * ID of the last user of the last chunk committed, or {@link #EVENT_DONE}.
+     */
+    @Column(nullable = false)
+    private int userId;
+
+    /**
+     * Whether the run has processed every event.
+     */
+    @Column(nullable = false)
+    private boolean finished;
+
+    /**
+     * Default constructor for JobCheckpoint.
+     */
+    public JobCheckpoint() {}
+
+    /**
+     * Constructs the checkpoint of a run that has not processed anything yet.
+     *
+     * @param name    the name of the job
+     * @param runDate the day of the run
+     */
+    public JobCheckpoint(String name, LocalDate runDate) {
+        this.name = name;
+        this.runDate = runDate;
+    }
+
+    /**
+     * Tells whether an event has been completely processed.
+     *
+     * @param eventId the ID of the event
+     * @return true if every user of the event was processed
+     */
+    public boolean isEventDone(int eventId) {
+        return eventId < this.eventId || (eventId == this.eventId && this.userId == EVENT_DONE);
+    }
+
+    /**
+     * Returns the ID of the last user of an event already processed.
+     *
+     * @param eventId the ID of the event
+     * @return the ID of the last user processed, or 0 if none was
+     */
+    public int lastUserOf(int eventId) {
+        return eventId == this.eventId ? this.userId : 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    public void setRunDate(LocalDate runDate) {
+        this.runDate = runDate;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(int eventId) {
+        this.eventId = eventId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+}
@@ -0,0 +1,61 @@
+package clubbook.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents the lease on a scheduled job shared by every instance of the backend.
+ * Only the instance holding an unexpired lease runs the job.
+ */
+@Entity
+@Table(name = "T_Job_Lease")
+public class JobLease {
+
+    /**
+     * Name of the job, or of the job shard.
+     */
+    @Id
+    private String name;
+
+    /**
+     * Identifier of the instance that last acquired the lease.
+     */
+    @Column(nullable = false)
+    private String owner;
+
+    /**
+     * Instant until which the lease is held.
+     */
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    /**
+     * Default constructor for JobLease.
+     */
+    public JobLease() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+}
@@ -99,6 +99,13 @@ public class User implements UserDetails {
     @Column(name = "profile_picture", columnDefinition="BYTEA", nullable = false)
     private byte[] profilePicture;
 
+    /**
+     * The secret token identifying the calendar feed of the user. Null until the user asks for the feed.
+     */
+    @JsonIgnore
+    @Column(unique = true, length = 43)
+    private String calendarToken;
+
     /**
      * Constructs a User with specified parameters.
      *
@@ -185,6 +192,10 @@ public class User implements UserDetails {
         return allowedAccess;
     }
 
+    public String getCalendarToken() {
+        return calendarToken;
+    }
+
     public void setId(int id) {
         this.id = id;
     }
@@ -237,6 +248,10 @@ public class User implements UserDetails {
         this.allowedAccess = allowedAccess;
     }
 
+    public void setCalendarToken(String calendarToken) {
+        this.calendarToken = calendarToken;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,12 @@
+package clubbook.backend.model.enumClasses;
+
+/**
+ * Enum representing the kinds of change pushed to the clients following the events.
+ */
+public enum EventChangeType {
+    CREATED,
+    EDITED,
+    DELETED,
+    CLEARED,
+    RSVP
+}
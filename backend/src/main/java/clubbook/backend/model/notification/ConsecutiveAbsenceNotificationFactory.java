@@ -0,0 +1,49 @@
+package clubbook.backend.model.notification;
+
+import clubbook.backend.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Factory class for creating escalation notifications for users.
+ * This class constructs a notification when a user has missed several classes in a row.
+ */
+public class ConsecutiveAbsenceNotificationFactory extends NotificationFactory {
+
+    private static final String TITLE = "Faltas de asistencia consecutivas";
+    private static final String CONTENT_PART_1 = "El alumno ";
+    private static final String CONTENT_PART_2 = " ha faltado a ";
+    private static final String CONTENT_PART_3 = " clases seguidas. La última falta fue el día ";
+
+    private final int absences;
+
+    /**
+     * Constructs a ConsecutiveAbsenceNotificationFactory with the specified date, user and number of absences.
+     *
+     * @param date the date of the last missed class
+     * @param user the user who missed the classes
+     * @param absences the number of consecutive classes missed
+     */
+    public ConsecutiveAbsenceNotificationFactory(LocalDate date, User user, int absences) {
+        this.absences = absences;
+        super.notification = new Notification();
+        super.notification.setTitle(TITLE);
+        super.notification.setDate(date);
+        super.notification.setCreatedAt(LocalDateTime.now());
+        super.notification.setUser(user);
+    }
+
+    /**
+     * Creates the content of the escalation notification.
+     * This method sets the content of the notification, detailing the number of
+     * consecutive absences and the date of the last one.
+     */
+    public void createNotification() {
+        super.notification.setContent(CONTENT_PART_1 + super.notification.getUser().getFirstName() + " "
+                + super.notification.getUser().getLastName() + CONTENT_PART_2 + this.absences + CONTENT_PART_3
+                + super.notification.getDate().getDayOfMonth() + " de "
+                + super.getSpanishMonth(super.notification.getDate().getMonthValue()) + " " + super.notification.getDate().getYear());
+    }
+
+}
@@ -0,0 +1,132 @@
+package clubbook.backend.model.notification;
+
+import clubbook.backend.model.User;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a notification waiting to be delivered.
+ * Rows are written in the same transaction as the change that produces the notification
+ * and moved to the "T_Notification" table in the background, so no notification is lost
+ * if the application stops before delivering it.
+ */
+@Entity
+@Table(name = "T_Notification_Outbox")
+public class NotificationOutbox {
+
+    /**
+     * Unique identifier of the pending notification, generated by the application.
+     */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    /**
+     * Title of the notification.
+     */
+    private String title;
+
+    /**
+     * Date of creation.
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * Date for notifications that need date information.
+     */
+    private LocalDate date;
+
+    /**
+     * Information of the notification.
+     */
+    private String content;
+
+    /**
+     * User who is notification created for.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    private User user;
+
+    /**
+     * Number of failed delivery attempts.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Error of the last failed delivery attempt.
+     */
+    @Column(length = 1000)
+    private String lastError;
+
+    /**
+     * Default constructor for the NotificationOutbox class.
+     */
+    public NotificationOutbox() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
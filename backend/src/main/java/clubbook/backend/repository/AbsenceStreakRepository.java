@@ -0,0 +1,29 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.AbsenceStreak;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing AbsenceStreak entities.
+ */
+@Repository
+public interface AbsenceStreakRepository extends JpaRepository<AbsenceStreak, Integer>, AbsenceStreakRepositoryCustom {
+
+    /**
+     * Retrieves and locks the absence streaks of the given users.
+     *
+     * @param userIds the IDs of the users
+     * @return the absence streaks found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AbsenceStreak s WHERE s.user.id IN :userIds")
+    List<AbsenceStreak> findForUpdate(@Param("userIds") Collection<Integer> userIds);
+}
@@ -0,0 +1,19 @@
+package clubbook.backend.repository;
+
+import java.util.Collection;
+
+/**
+ * Custom repository fragment for AbsenceStreak entities.
+ * Declares bulk write operations executed directly through JDBC.
+ */
+public interface AbsenceStreakRepositoryCustom {
+
+    /**
+     * Creates the empty absence streaks of the given users that do not exist yet, in a single
+     * statement, with no class registered. Streaks created meanwhile by another transaction
+     * are skipped instead of breaking the user_id unique constraint.
+     *
+     * @param userIds the IDs of the users
+     */
+    void insertMissing(Collection<Integer> userIds);
+}
@@ -0,0 +1,88 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.AbsenceStreak;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+
+/**
+ * JDBC implementation of {@link AbsenceStreakRepositoryCustom}.
+ * Missing streaks are inserted ignoring the ones that already exist, using the
+ * native statement of the database in use.
+ */
+public class AbsenceStreakRepositoryImpl implements AbsenceStreakRepositoryCustom {
+
+    private static final String INSERT_MISSING_POSTGRESQL =
+            "INSERT INTO T_Absence_Streak (user_id, last_date, absences) " +
+            "SELECT u.id, ?, 0 FROM T_USER u WHERE u.id = ANY (?) " +
+            "ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String INSERT_MISSING_H2 =
+            "MERGE INTO T_Absence_Streak s USING (SELECT u.id AS user_id FROM T_USER u WHERE u.id = ANY (?)) n " +
+            "ON s.user_id = n.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, last_date, absences) VALUES (n.user_id, ?, 0)";
+
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs an AbsenceStreakRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public AbsenceStreakRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Integer[] ids = userIds.toArray(new Integer[0]);
+        if (this.isH2()) {
+            this.mergeH2(INSERT_MISSING_H2, ids, AbsenceStreak.NO_CLASS);
+        } else {
+            this.jdbcTemplate.update(INSERT_MISSING_POSTGRESQL, AbsenceStreak.NO_CLASS, ids);
+        }
+    }
+
+    /**
+     * Runs an H2 MERGE, running it again when a concurrent transaction committed
+     * one of the rows first. Unlike ON CONFLICT, the MERGE does not skip rows
+     * inserted meanwhile, but the second run sees them as matched.
+     *
+     * @param sql the MERGE statement
+     * @param args the arguments of the statement
+     */
+    private void mergeH2(String sql, Object... args) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.jdbcTemplate.update(sql, args);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt == MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
@@ -0,0 +1,61 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.AttendanceBitmap;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing AttendanceBitmap entities.
+ * This interface extends JpaRepository to provide CRUD operations
+ * and custom query methods for the compact attendance representation.
+ */
+@Repository
+public interface AttendanceBitmapRepository extends JpaRepository<AttendanceBitmap, Integer>, AttendanceBitmapRepositoryCustom {
+
+    /**
+     * Retrieves and locks the attendance bitmaps of the given users in a season.
+     *
+     * @param seasonStart the first day of the season
+     * @param userIds     the IDs of the users
+     * @return the attendance bitmaps found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AttendanceBitmap b WHERE b.seasonStart = :seasonStart AND b.user.id IN :userIds")
+    List<AttendanceBitmap> findForUpdate(@Param("seasonStart") LocalDate seasonStart, @Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * Retrieves the attendance bitmaps of every student of a class group in a season, ordered by name.
+     * Students without bitmap come with null bitmap columns.
+     *
+     * @param classGroup  the ID of the class group
+     * @param seasonStart the first day of the season
+     * @return a list of objects containing user ID, first name, last name, present bitmap and marked bitmap
+     */
+    @Query(
+            value = "SELECT u.id, u.first_name, u.last_name, b.present, b.marked FROM T_CLASS_GROUP_STUDENTS c " +
+                    "JOIN T_USER u ON c.students_id = u.id " +
+                    "LEFT JOIN T_ATTENDANCE_BITMAP b ON b.user_id = u.id AND b.season_start = :seasonStart " +
+                    "WHERE c.class_group_id = :classGroup " +
+                    "ORDER BY u.first_name, u.last_name, u.id ;",
+            nativeQuery = true
+    )
+    List<Object[]> findClassGroupBitmaps(@Param("classGroup") int classGroup, @Param("seasonStart") LocalDate seasonStart);
+
+    /**
+     * Deletes every attendance bitmap of a season.
+     *
+     * @param seasonStart the first day of the season
+     */
+    @Modifying
+    @Query("DELETE FROM AttendanceBitmap b WHERE b.seasonStart = :seasonStart")
+    void deleteBySeasonStart(@Param("seasonStart") LocalDate seasonStart);
+}
@@ -0,0 +1,21 @@
+package clubbook.backend.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Custom repository fragment for AttendanceBitmap entities.
+ * Declares bulk write operations executed directly through JDBC.
+ */
+public interface AttendanceBitmapRepositoryCustom {
+
+    /**
+     * Creates the empty attendance bitmaps of the given users in a season that do not exist yet,
+     * in a single statement. Bitmaps created meanwhile by another transaction are skipped
+     * instead of breaking the (season_start, user_id) unique constraint.
+     *
+     * @param seasonStart the first day of the season
+     * @param userIds     the IDs of the users
+     */
+    void insertMissing(LocalDate seasonStart, Collection<Integer> userIds);
+}
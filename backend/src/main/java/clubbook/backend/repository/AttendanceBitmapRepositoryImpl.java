@@ -0,0 +1,89 @@
+package clubbook.backend.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * JDBC implementation of {@link AttendanceBitmapRepositoryCustom}.
+ * Missing bitmaps are inserted ignoring the ones that already exist, using the
+ * native statement of the database in use.
+ */
+public class AttendanceBitmapRepositoryImpl implements AttendanceBitmapRepositoryCustom {
+
+    private static final String INSERT_MISSING_POSTGRESQL =
+            "INSERT INTO T_ATTENDANCE_BITMAP (season_start, user_id, present, marked) " +
+            "SELECT ?, u.id, ?, ? FROM T_USER u WHERE u.id = ANY (?) " +
+            "ON CONFLICT (season_start, user_id) DO NOTHING";
+
+    private static final String INSERT_MISSING_H2 =
+            "MERGE INTO T_ATTENDANCE_BITMAP b USING (SELECT CAST(? AS DATE) AS season_start, u.id AS user_id " +
+            "FROM T_USER u WHERE u.id = ANY (?)) s ON b.season_start = s.season_start AND b.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (season_start, user_id, present, marked) VALUES (s.season_start, s.user_id, ?, ?)";
+
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs an AttendanceBitmapRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public AttendanceBitmapRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(LocalDate seasonStart, Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Integer[] ids = userIds.toArray(new Integer[0]);
+        byte[] empty = new byte[0];
+        if (this.isH2()) {
+            this.mergeH2(INSERT_MISSING_H2, seasonStart, ids, empty, empty);
+        } else {
+            this.jdbcTemplate.update(INSERT_MISSING_POSTGRESQL, seasonStart, empty, empty, ids);
+        }
+    }
+
+    /**
+     * Runs an H2 MERGE, running it again when a concurrent transaction committed
+     * one of the rows first. Unlike ON CONFLICT, the MERGE does not skip rows
+     * inserted meanwhile, but the second run sees them as matched.
+     *
+     * @param sql the MERGE statement
+     * @param args the arguments of the statement
+     */
+    private void mergeH2(String sql, Object... args) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.jdbcTemplate.update(sql, args);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt == MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
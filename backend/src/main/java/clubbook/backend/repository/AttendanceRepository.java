@@ -1,12 +1,19 @@
 package clubbook.backend.repository;
 
 import clubbook.backend.model.Attendance;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Repository interface for managing Attendance entities.
@@ -14,48 +21,48 @@ import java.util.List;
  * and custom query methods for attendance-related data.
  */
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Integer> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Integer>, AttendanceRepositoryCustom {
 
     /**
-     * Retrieves a list of user attendance records for a specific year and month
-     * for a given class group. The result includes user ID, first name, last name,
-     * and an aggregated list of attendance records for each user.
+     * Streams every attendance record between two dates, ordered by user and date.
+     * Must be consumed inside a transaction and closed after use.
      *
-     * @param year      the year of attendance records to retrieve
-     * @param month     the month of attendance records to retrieve
-     * @param classGroup the ID of the class group to filter the attendance records
-     * @return a list of objects containing user ID, first name, last name,
-     *         and an array of attendance records
+     * @param from the first date included in the scan
+     * @param to   the first date excluded from the scan
+     * @return a stream of objects containing user ID, attendance date and attended flag
      */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
     @Query(
-            value = "SELECT u.id, u.first_name, u.last_name, ARRAY_AGG(a.attended ORDER BY EXTRACT(DAY FROM a.attendance_date)) AS attended_list FROM T_ATTENDANCE a " +
-                    "JOIN T_USER u ON a.user_id = u.id JOIN T_CLASS_GROUP_STUDENTS c ON a.user_id = c.students_id " +
-                    "WHERE EXTRACT(YEAR FROM a.attendance_date) = :year " +
-                    "AND EXTRACT(MONTH FROM a.attendance_date) = :month " +
-                    "AND c.class_group_id = :classGroup " +
-                    "GROUP BY u.id, u.first_name, u.last_name " +
-                    "ORDER BY CONCAT(u.first_name, ' ', u.last_name);",
+            value = "SELECT a.user_id, CAST(a.attendance_date AS DATE), a.attended FROM T_ATTENDANCE a " +
+                    "WHERE a.attendance_date >= :from AND a.attendance_date < :to " +
+                    "ORDER BY a.user_id, a.attendance_date ;",
             nativeQuery = true
     )
-    List<Object[]> findAllUserAttendanceDtoRaw(int year, int month, int classGroup);
+    Stream<Object[]> streamAttendanceBetween(LocalDate from, LocalDate to);
 
     /**
-     * Retrieves distinct attendance dates for a given class group
-     * in a specified month.
+     * Streams the attendance records of the students of several class groups between two dates,
+     * ordered by class group, student name and date. Must be consumed inside a transaction and
+     * closed after use.
      *
-     * @param month      the month of attendance records to retrieve
-     * @param classGroup the ID of the class group to filter the attendance records
-     * @return a list of distinct dates when attendance was recorded
+     * @param classGroupIds the IDs of the class groups
+     * @param from          the first date included in the scan
+     * @param to            the first date excluded from the scan
+     * @return a stream of objects containing class group ID, user ID, first name, last name,
+     *         attendance date and attended flag
      */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
     @Query(
-            value = "SELECT DISTINCT CAST(a.attendance_date AS DATE) " +
-                    "FROM T_ATTENDANCE a " +
-                    "JOIN T_CLASS_GROUP_STUDENTS c ON a.user_id = c.students_id " +
-                    "WHERE EXTRACT(MONTH FROM a.attendance_date) = :month " +
-                    "AND c.class_group_id = :classGroup ;",
+            value = "SELECT c.class_group_id, u.id, u.first_name, u.last_name, CAST(a.attendance_date AS DATE), a.attended " +
+                    "FROM T_CLASS_GROUP_STUDENTS c " +
+                    "JOIN T_USER u ON c.students_id = u.id " +
+                    "JOIN T_ATTENDANCE a ON a.user_id = u.id " +
+                    "AND a.attendance_date >= :from AND a.attendance_date < :to " +
+                    "WHERE c.class_group_id IN (:classGroupIds) " +
+                    "ORDER BY c.class_group_id, u.first_name, u.last_name, u.id, a.attendance_date ;",
             nativeQuery = true
     )
-    List<java.sql.Date> getClassDates(int month, int classGroup);
+    Stream<Object[]> streamClassGroupsAttendanceBetween(Collection<Integer> classGroupIds, LocalDate from, LocalDate to);
 
     /**
      * Retrieves distinct years of attendance records for a specific class group.
@@ -84,4 +91,14 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Integer>
             "WHERE a.attendance_date = :date AND a.user_id = :userId ;", nativeQuery = true
     )
     Attendance findAttendance(int userId, LocalDate date);
+
+    /**
+     * Retrieves the attendance already registered on a date for the given users.
+     *
+     * @param date    the date of the attendance records
+     * @param userIds the IDs of the users to check
+     * @return a list of objects containing user ID and attended flag
+     */
+    @Query("SELECT a.user.id, a.attended FROM Attendance a WHERE a.attendanceDate = :date AND a.user.id IN :userIds")
+    List<Object[]> findMarks(@Param("date") LocalDate date, @Param("userIds") Collection<Integer> userIds);
 }
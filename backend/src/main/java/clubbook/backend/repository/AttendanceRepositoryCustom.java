@@ -0,0 +1,20 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.Attendance;
+
+import java.util.List;
+
+/**
+ * Custom repository fragment for Attendance entities.
+ * Declares bulk write operations executed directly through JDBC.
+ */
+public interface AttendanceRepositoryCustom {
+
+    /**
+     * Inserts the given attendance records as a single JDBC batch. Records that already
+     * exist for the same date and user are overwritten with the new attended value.
+     *
+     * @param attendances the attendance records to insert or update
+     */
+    void upsertAllInBatch(List<Attendance> attendances);
+}
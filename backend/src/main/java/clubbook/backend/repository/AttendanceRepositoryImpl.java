@@ -0,0 +1,62 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.Attendance;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link AttendanceRepositoryCustom}.
+ * Attendance identifiers are generated by the database, which prevents Hibernate
+ * from batching the inserts, so they are sent through a JdbcTemplate batch instead.
+ * Rows are upserted on the (attendance_date, user_id) unique constraint, using the
+ * native statement of the database in use.
+ */
+public class AttendanceRepositoryImpl implements AttendanceRepositoryCustom {
+
+    private static final String UPSERT_ATTENDANCE_POSTGRESQL =
+            "INSERT INTO T_ATTENDANCE (attendance_date, user_id, attended) VALUES (?, ?, ?) " +
+            "ON CONFLICT (attendance_date, user_id) DO UPDATE SET attended = EXCLUDED.attended";
+
+    private static final String UPSERT_ATTENDANCE_H2 =
+            "MERGE INTO T_ATTENDANCE (attendance_date, user_id, attended) KEY (attendance_date, user_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String upsertAttendance;
+
+    /**
+     * Constructs an AttendanceRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the batch statements
+     */
+    public AttendanceRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAllInBatch(List<Attendance> attendances) {
+        if (attendances.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.batchUpdate(this.getUpsertAttendance(), attendances, attendances.size(), (ps, attendance) -> {
+            ps.setObject(1, attendance.getAttendanceDate());
+            ps.setInt(2, attendance.getUser().getId());
+            ps.setBoolean(3, attendance.isAttended());
+        });
+    }
+
+    /**
+     * Returns the upsert statement for the database in use, resolving it on first use.
+     *
+     * @return the upsert statement
+     */
+    private String getUpsertAttendance() {
+        if (this.upsertAttendance == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.upsertAttendance = "H2".equals(product) ? UPSERT_ATTENDANCE_H2 : UPSERT_ATTENDANCE_POSTGRESQL;
+        }
+        return this.upsertAttendance;
+    }
+}
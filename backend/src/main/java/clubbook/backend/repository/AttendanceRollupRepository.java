@@ -0,0 +1,91 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.dtos.AttendanceRateDto;
+import clubbook.backend.model.AttendanceRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing AttendanceRollup entities.
+ * This interface extends JpaRepository to provide CRUD operations
+ * and the aggregations used to compute attendance rates.
+ */
+@Repository
+public interface AttendanceRollupRepository extends JpaRepository<AttendanceRollup, Integer>, AttendanceRollupRepositoryCustom {
+
+    /**
+     * Retrieves and locks the monthly totals of the given users in a class group.
+     *
+     * @param classGroupId the ID of the class group
+     * @param monthStart   the first day of the month
+     * @param userIds      the IDs of the users
+     * @return the monthly totals found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AttendanceRollup r WHERE r.classGroup.id = :classGroupId AND r.monthStart = :monthStart AND r.user.id IN :userIds")
+    List<AttendanceRollup> findForUpdate(@Param("classGroupId") int classGroupId, @Param("monthStart") LocalDate monthStart, @Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * Adds up the monthly totals of a user between two months.
+     *
+     * @param userId the ID of the user
+     * @param from   the first day of the first month included
+     * @param to     the first day of the first month excluded
+     * @return the attendance rate of the user in the range
+     */
+    @Query("SELECT new clubbook.backend.dtos.AttendanceRateDto(COALESCE(SUM(r.attended), 0L), COALESCE(SUM(r.marked), 0L)) " +
+            "FROM AttendanceRollup r WHERE r.user.id = :userId AND r.monthStart >= :from AND r.monthStart < :to")
+    AttendanceRateDto sumByUser(@Param("userId") int userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Adds up the monthly totals of every student of a class group between two months.
+     *
+     * @param classGroupId the ID of the class group
+     * @param from         the first day of the first month included
+     * @param to           the first day of the first month excluded
+     * @return the attendance rate of the class group in the range
+     */
+    @Query("SELECT new clubbook.backend.dtos.AttendanceRateDto(COALESCE(SUM(r.attended), 0L), COALESCE(SUM(r.marked), 0L)) " +
+            "FROM AttendanceRollup r WHERE r.classGroup.id = :classGroupId AND r.monthStart >= :from AND r.monthStart < :to")
+    AttendanceRateDto sumByClassGroup(@Param("classGroupId") int classGroupId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Deletes the monthly totals of every class group between two months.
+     *
+     * @param from the first day of the first month included
+     * @param to   the first day of the first month excluded
+     */
+    @Modifying
+    @Query("DELETE FROM AttendanceRollup r WHERE r.monthStart >= :from AND r.monthStart < :to")
+    void deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Computes the monthly totals between two months from the attendance records, in a single
+     * statement. The records of a student count in every class group the student belongs to.
+     *
+     * @param from the first day of the first month included
+     * @param to   the first day of the first month excluded
+     * @return the number of monthly totals written
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Attendance_Rollup (user_id, class_group_id, month_start, attended, marked) " +
+                    "SELECT a.user_id, c.class_group_id, CAST(DATE_TRUNC('MONTH', a.attendance_date) AS DATE), " +
+                    "SUM(CASE WHEN a.attended THEN 1 ELSE 0 END), COUNT(*) " +
+                    "FROM T_ATTENDANCE a " +
+                    "JOIN T_CLASS_GROUP_STUDENTS c ON c.students_id = a.user_id " +
+                    "WHERE a.attendance_date >= :from AND a.attendance_date < :to " +
+                    "GROUP BY a.user_id, c.class_group_id, CAST(DATE_TRUNC('MONTH', a.attendance_date) AS DATE) ;",
+            nativeQuery = true
+    )
+    int insertCountedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
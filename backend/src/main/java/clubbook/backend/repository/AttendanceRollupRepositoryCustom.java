@@ -0,0 +1,22 @@
+package clubbook.backend.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Custom repository fragment for AttendanceRollup entities.
+ * Declares bulk write operations executed directly through JDBC.
+ */
+public interface AttendanceRollupRepositoryCustom {
+
+    /**
+     * Creates the empty monthly totals of the given users in a class group that do not exist yet,
+     * in a single statement. Totals created meanwhile by another transaction are skipped instead
+     * of breaking the (user_id, class_group_id, month_start) unique constraint.
+     *
+     * @param classGroupId the ID of the class group
+     * @param monthStart   the first day of the month
+     * @param userIds      the IDs of the users
+     */
+    void insertMissing(int classGroupId, LocalDate monthStart, Collection<Integer> userIds);
+}
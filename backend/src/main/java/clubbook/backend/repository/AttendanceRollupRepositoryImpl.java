@@ -0,0 +1,90 @@
+package clubbook.backend.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * JDBC implementation of {@link AttendanceRollupRepositoryCustom}.
+ * Missing monthly totals are inserted ignoring the ones that already exist, using the
+ * native statement of the database in use.
+ */
+public class AttendanceRollupRepositoryImpl implements AttendanceRollupRepositoryCustom {
+
+    private static final String INSERT_MISSING_POSTGRESQL =
+            "INSERT INTO T_Attendance_Rollup (user_id, class_group_id, month_start, attended, marked) " +
+            "SELECT u.id, ?, ?, 0, 0 FROM T_USER u WHERE u.id = ANY (?) " +
+            "ON CONFLICT (user_id, class_group_id, month_start) DO NOTHING";
+
+    private static final String INSERT_MISSING_H2 =
+            "MERGE INTO T_Attendance_Rollup r USING (SELECT u.id AS user_id, CAST(? AS INTEGER) AS class_group_id, " +
+            "CAST(? AS DATE) AS month_start FROM T_USER u WHERE u.id = ANY (?)) n " +
+            "ON r.user_id = n.user_id AND r.class_group_id = n.class_group_id AND r.month_start = n.month_start " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, class_group_id, month_start, attended, marked) " +
+            "VALUES (n.user_id, n.class_group_id, n.month_start, 0, 0)";
+
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs an AttendanceRollupRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public AttendanceRollupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(int classGroupId, LocalDate monthStart, Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Integer[] ids = userIds.toArray(new Integer[0]);
+        if (this.isH2()) {
+            this.mergeH2(INSERT_MISSING_H2, classGroupId, monthStart, ids);
+        } else {
+            this.jdbcTemplate.update(INSERT_MISSING_POSTGRESQL, classGroupId, monthStart, ids);
+        }
+    }
+
+    /**
+     * Runs an H2 MERGE, running it again when a concurrent transaction committed
+     * one of the rows first. Unlike ON CONFLICT, the MERGE does not skip rows
+     * inserted meanwhile, but the second run sees them as matched.
+     *
+     * @param sql the MERGE statement
+     * @param args the arguments of the statement
+     */
+    private void mergeH2(String sql, Object... args) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.jdbcTemplate.update(sql, args);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt == MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
@@ -0,0 +1,14 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.CalendarVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing CalendarVersion entities.
+ * Versions are increased in the transaction making the change they record, through
+ * the statements of {@link CalendarVersionRepositoryCustom}.
+ */
+@Repository
+public interface CalendarVersionRepository extends JpaRepository<CalendarVersion, String>, CalendarVersionRepositoryCustom {
+}
@@ -0,0 +1,29 @@
+package clubbook.backend.repository;
+
+import java.util.Collection;
+
+/**
+ * Custom repository fragment for CalendarVersion entities.
+ * Declares the version increases executed directly through JDBC.
+ */
+public interface CalendarVersionRepositoryCustom {
+
+    /**
+     * Increases the versions of some parts of the calendar feeds in the current transaction,
+     * creating those changed for the first time, in a single batch. A version created meanwhile
+     * by another transaction is increased instead of breaking the scope primary key.
+     *
+     * @param scopes the parts of the feeds, in the order they are locked
+     */
+    void incrementAll(Collection<String> scopes);
+
+    /**
+     * Increases the version of a part of the calendar feeds in the current transaction,
+     * creating it on its first change, and returns the version it was given. The version
+     * stays locked until the transaction ends, so no other change is given the same one.
+     *
+     * @param scope the part of the feeds
+     * @return the new version of the part
+     */
+    long incrementAndGet(String scope);
+}
@@ -0,0 +1,75 @@
+package clubbook.backend.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link CalendarVersionRepositoryCustom}.
+ * Versions are increased or created with the native upsert of the database in use.
+ */
+public class CalendarVersionRepositoryImpl implements CalendarVersionRepositoryCustom {
+
+    private static final String INCREMENT_POSTGRESQL =
+            "INSERT INTO T_Calendar_Version (scope, version) VALUES (?, 1) " +
+            "ON CONFLICT (scope) DO UPDATE SET version = T_Calendar_Version.version + 1";
+
+    private static final String INCREMENT_AND_GET_POSTGRESQL = INCREMENT_POSTGRESQL + " RETURNING version";
+
+    private static final String INCREMENT_H2 =
+            "MERGE INTO T_Calendar_Version v USING (SELECT CAST(? AS VARCHAR) AS scope) s ON v.scope = s.scope " +
+            "WHEN MATCHED THEN UPDATE SET version = v.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (scope, version) VALUES (s.scope, 1)";
+
+    private static final String SELECT_VERSION = "SELECT version FROM T_Calendar_Version WHERE scope = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs a CalendarVersionRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public CalendarVersionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void incrementAll(Collection<String> scopes) {
+        if (scopes.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(scopes.size());
+        for (String scope : scopes) {
+            args.add(new Object[]{scope});
+        }
+        this.jdbcTemplate.batchUpdate(this.isH2() ? INCREMENT_H2 : INCREMENT_POSTGRESQL, args);
+    }
+
+    @Override
+    public long incrementAndGet(String scope) {
+        if (this.isH2()) {
+            this.jdbcTemplate.update(INCREMENT_H2, scope);
+            return this.jdbcTemplate.queryForObject(SELECT_VERSION, Long.class, scope);
+        }
+        return this.jdbcTemplate.queryForObject(INCREMENT_AND_GET_POSTGRESQL, Long.class, scope);
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
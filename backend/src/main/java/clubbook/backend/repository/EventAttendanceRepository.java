@@ -1,15 +1,23 @@
 package clubbook.backend.repository;
 
+import clubbook.backend.dtos.EventAttendanceStatusDto;
+import clubbook.backend.dtos.EventRosterEntryDto;
 import clubbook.backend.model.EventAttendance;
 import clubbook.backend.model.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing EventAttendance entities.
@@ -28,6 +36,114 @@ public interface EventAttendanceRepository extends JpaRepository<EventAttendance
     @Query("SELECT ea FROM EventAttendance ea WHERE ea.event.id = :event AND ea.user.id = :user")
     Optional<EventAttendance> findByEventAndUser(int event, int user);
 
+    /**
+     * Finds the IDs of the users registered in an event after a given user ID, in ascending order.
+     *
+     * @param eventId the ID of the event
+     * @param afterUserId the user ID to start after, exclusive
+     * @param pageable the maximum number of IDs to return
+     * @return the user IDs found
+     */
+    @Query("SELECT ea.user.id FROM EventAttendance ea WHERE ea.event.id = :eventId AND ea.user.id > :afterUserId ORDER BY ea.user.id")
+    List<Integer> findUserIdsAfter(@Param("eventId") int eventId, @Param("afterUserId") int afterUserId, Pageable pageable);
+
+    /**
+     * Finds the IDs of the users attending an event after a given user ID, in ascending order.
+     *
+     * @param eventId the ID of the event
+     * @param afterUserId the user ID to start after, exclusive
+     * @param pageable the maximum number of IDs to return
+     * @return the user IDs found
+     */
+    @Query("SELECT ea.user.id FROM EventAttendance ea WHERE ea.event.id = :eventId AND ea.user.id > :afterUserId AND ea.status = true ORDER BY ea.user.id")
+    List<Integer> findAttendingUserIdsAfter(@Param("eventId") int eventId, @Param("afterUserId") int afterUserId, Pageable pageable);
+
+    /**
+     * Streams the roster of an event: the role, name and status of every user with access,
+     * attending first, then pending an answer, then not attending.
+     * Only those columns are read, so no User entity nor profile picture is loaded.
+     *
+     * @param eventId the ID of the event
+     * @return the roster entries, to be consumed within a transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("SELECT new clubbook.backend.dtos.EventRosterEntryDto(r.name, u.firstName, u.lastName, ea.status) " +
+            "FROM EventAttendance ea JOIN ea.user u JOIN u.role r " +
+            "WHERE ea.event.id = :eventId AND u.allowedAccess = true " +
+            "ORDER BY CASE WHEN ea.status = true THEN 0 WHEN ea.status IS NULL THEN 1 ELSE 2 END, ea.id")
+    Stream<EventRosterEntryDto> streamRoster(@Param("eventId") int eventId);
+
+    /**
+     * Reads the current status, version and waitlist place of an EventAttendance record, with the
+     * capacity of its event, without loading the entity, so every read within a transaction sees
+     * the latest committed state.
+     *
+     * @param id the ID of the event attendance
+     * @return an Optional containing the status of the record if found, otherwise empty
+     */
+    @Query("SELECT new clubbook.backend.dtos.EventAttendanceStatusDto(ea.id, e.id, ea.status, ea.version, ea.waitlistTicket, e.capacity) " +
+            "FROM EventAttendance ea JOIN ea.event e WHERE ea.id = :id")
+    Optional<EventAttendanceStatusDto> findStatusById(@Param("id") int id);
+
+    /**
+     * Finds the first user waiting for a slot of an event, the one with the lowest waitlist place.
+     *
+     * @param eventId  the ID of the event
+     * @param pageable the maximum number of records to return
+     * @return the status of the record found, if any
+     */
+    @Query("SELECT new clubbook.backend.dtos.EventAttendanceStatusDto(ea.id, e.id, ea.status, ea.version, ea.waitlistTicket, e.capacity) " +
+            "FROM EventAttendance ea JOIN ea.event e WHERE e.id = :eventId AND ea.waitlistTicket IS NOT NULL ORDER BY ea.waitlistTicket")
+    List<EventAttendanceStatusDto> findWaitlistHead(@Param("eventId") int eventId, Pageable pageable);
+
+    /**
+     * Sets the status and waitlist place of an EventAttendance record only if it is still at the
+     * given version, increasing the version when it does.
+     *
+     * @param id             the ID of the event attendance
+     * @param version        the version the status was read at
+     * @param status         the new status
+     * @param waitlistTicket the new waitlist place, or null if the user is not waiting for a slot
+     * @return 1 if the status was set, 0 if the record changed since it was read
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Attendance SET status = :status, waitlist_ticket = :waitlistTicket, version = version + 1 " +
+                    "WHERE id = :id AND version = :version ;",
+            nativeQuery = true
+    )
+    int compareAndSetStatus(@Param("id") int id, @Param("version") int version, @Param("status") Boolean status,
+                            @Param("waitlistTicket") Long waitlistTicket);
+
+    /**
+     * Marks as attending every user waiting for a slot of an event, once its capacity is removed.
+     *
+     * @param eventId the ID of the event
+     * @return the number of records marked
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Attendance SET status = TRUE, waitlist_ticket = NULL, version = version + 1 " +
+                    "WHERE event_id = :eventId AND waitlist_ticket IS NOT NULL;",
+            nativeQuery = true
+    )
+    int admitWaitlisted(@Param("eventId") int eventId);
+
+    /**
+     * Marks as not attending every record of an event that has not been answered yet.
+     * Records answered concurrently, and users waiting for a slot, are left as they are.
+     *
+     * @param eventId the ID of the event
+     * @return the number of records marked
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Attendance SET status = FALSE, version = version + 1 " +
+                    "WHERE event_id = :eventId AND status IS NULL AND waitlist_ticket IS NULL;",
+            nativeQuery = true
+    )
+    int declinePending(@Param("eventId") int eventId);
+
     /**
      * Retrieves a list of EventAttendance records for a specific event ID
      * and user role.
@@ -40,13 +156,63 @@ public interface EventAttendanceRepository extends JpaRepository<EventAttendance
     List<EventAttendance> findByEventIdAndUserRole(@Param("eventId") int eventId, @Param("role") Role role);
 
     /**
-     * Retrieves a set of EventAttendance records for a specific event ID
-     * and user role.
+     * Registers every user eligible for an event with a single statement: all teachers and
+     * the students born within the event's birth date range, provided they have access.
      *
-     * @param eventId the ID of the event to filter attendance records
-     * @param role    the role of the users whose attendance records are to be retrieved
-     * @return a set of EventAttendance records matching the specified event ID and user role
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the birth date range of the students
+     * @param birthYearEnd the end of the birth date range of the students
+     * @return the number of attendance records created
      */
-    @Query("SELECT ea FROM EventAttendance ea WHERE ea.event.id = :eventId AND ea.user.role = :role")
-    Set<EventAttendance> findByEventId(@Param("eventId") int eventId, @Param("role") Role role);
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Event_Attendance (event_id, user_id) " +
+                    "SELECT :eventId, u.id FROM T_user u JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE u.allowed_access AND (r.name = 'TEACHER' OR (r.name = 'STUDENT' AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd));",
+            nativeQuery = true
+    )
+    int insertEligibleAttendances(@Param("eventId") int eventId,
+                                  @Param("birthYearStart") LocalDate birthYearStart,
+                                  @Param("birthYearEnd") LocalDate birthYearEnd);
+
+    /**
+     * Removes from an event, with a single statement, the students that no longer have
+     * access or were not born within the given birth date range.
+     *
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the new birth date range
+     * @param birthYearEnd the end of the new birth date range
+     * @return the number of attendance records deleted
+     */
+    @Modifying
+    @Query(
+            value = "DELETE FROM T_Event_Attendance WHERE event_id = :eventId AND user_id IN (" +
+                    "SELECT u.id FROM T_user u JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE r.name = 'STUDENT' AND NOT (u.allowed_access AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd));",
+            nativeQuery = true
+    )
+    int deleteStudentsOutsideRange(@Param("eventId") int eventId,
+                                   @Param("birthYearStart") LocalDate birthYearStart,
+                                   @Param("birthYearEnd") LocalDate birthYearEnd);
+
+    /**
+     * Registers in an event, with a single statement, the students born within the given
+     * birth date range that are not registered yet.
+     *
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the new birth date range
+     * @param birthYearEnd the end of the new birth date range
+     * @return the number of attendance records created
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Event_Attendance (event_id, user_id) " +
+                    "SELECT :eventId, u.id FROM T_user u JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE r.name = 'STUDENT' AND u.allowed_access AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd " +
+                    "AND NOT EXISTS (SELECT 1 FROM T_Event_Attendance ea WHERE ea.event_id = :eventId AND ea.user_id = u.id);",
+            nativeQuery = true
+    )
+    int insertMissingStudents(@Param("eventId") int eventId,
+                              @Param("birthYearStart") LocalDate birthYearStart,
+                              @Param("birthYearEnd") LocalDate birthYearEnd);
 }
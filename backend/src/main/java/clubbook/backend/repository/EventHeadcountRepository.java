@@ -0,0 +1,84 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.EventHeadcount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for managing EventHeadcount entities.
+ * This interface extends JpaRepository to provide CRUD operations
+ * and the atomic updates that keep the totals in step with the attendance records.
+ */
+@Repository
+public interface EventHeadcountRepository extends JpaRepository<EventHeadcount, Integer>, EventHeadcountRepositoryCustom {
+
+    /**
+     * Adds the given amounts to the totals of an event in a single atomic statement.
+     *
+     * @param eventId   the ID of the event
+     * @param attending the change in the number of users attending
+     * @param declined  the change in the number of users not attending
+     * @param pending   the change in the number of users that have not answered
+     * @return the number of totals updated
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Headcount SET attending = attending + :attending, declined = declined + :declined, pending = pending + :pending " +
+                    "WHERE event_id = :eventId ;",
+            nativeQuery = true
+    )
+    int increment(@Param("eventId") int eventId, @Param("attending") int attending, @Param("declined") int declined, @Param("pending") int pending);
+
+    /**
+     * Retrieves and locks the totals of an event.
+     *
+     * @param eventId the ID of the event
+     * @return an Optional containing the totals if the event has them, otherwise empty
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM EventHeadcount h WHERE h.eventId = :eventId")
+    Optional<EventHeadcount> findForUpdate(@Param("eventId") int eventId);
+
+    /**
+     * Recomputes the totals of an event from its attendance records.
+     *
+     * @param eventId the ID of the event
+     * @return the number of totals updated
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Headcount SET " +
+                    "attending = (SELECT COUNT(*) FROM T_Event_Attendance a WHERE a.event_id = :eventId AND a.status = TRUE), " +
+                    "declined = (SELECT COUNT(*) FROM T_Event_Attendance a WHERE a.event_id = :eventId AND a.status = FALSE), " +
+                    "pending = (SELECT COUNT(*) FROM T_Event_Attendance a WHERE a.event_id = :eventId AND a.status IS NULL) " +
+                    "WHERE event_id = :eventId ;",
+            nativeQuery = true
+    )
+    int recount(@Param("eventId") int eventId);
+
+    /**
+     * Deletes the totals of an event.
+     *
+     * @param eventId the ID of the event
+     * @return the number of totals deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM T_Event_Headcount WHERE event_id = :eventId ;", nativeQuery = true)
+    int deleteByEventId(@Param("eventId") int eventId);
+
+    /**
+     * Deletes the totals of every event.
+     *
+     * @return the number of totals deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM T_Event_Headcount;", nativeQuery = true)
+    int deleteAllHeadcounts();
+}
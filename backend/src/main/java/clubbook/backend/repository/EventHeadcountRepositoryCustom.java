@@ -0,0 +1,18 @@
+package clubbook.backend.repository;
+
+/**
+ * Custom repository fragment for EventHeadcount entities.
+ * Declares the creation of totals executed directly through JDBC.
+ */
+public interface EventHeadcountRepositoryCustom {
+
+    /**
+     * Creates the totals of an event by counting its attendance records, unless the event
+     * already has them or does not exist. Totals created meanwhile by another transaction
+     * are skipped instead of breaking the event_id primary key, once that transaction ends.
+     *
+     * @param eventId the ID of the event
+     * @return the number of totals created
+     */
+    int insertCounted(int eventId);
+}
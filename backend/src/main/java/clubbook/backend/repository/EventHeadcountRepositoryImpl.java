@@ -0,0 +1,57 @@
+package clubbook.backend.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link EventHeadcountRepositoryCustom}.
+ * Missing totals are inserted ignoring the ones that already exist, using the
+ * native statement of the database in use.
+ */
+public class EventHeadcountRepositoryImpl implements EventHeadcountRepositoryCustom {
+
+    private static final String COUNT =
+            "SELECT e.id AS event_id, COUNT(CASE WHEN a.status = TRUE THEN 1 END) AS attending, " +
+            "COUNT(CASE WHEN a.status = FALSE THEN 1 END) AS declined, " +
+            "COUNT(CASE WHEN a.id IS NOT NULL AND a.status IS NULL THEN 1 END) AS pending " +
+            "FROM T_Event e LEFT JOIN T_Event_Attendance a ON a.event_id = e.id WHERE e.id = ? GROUP BY e.id";
+
+    private static final String INSERT_COUNTED_POSTGRESQL =
+            "INSERT INTO T_Event_Headcount (event_id, attending, declined, pending) " + COUNT + " " +
+            "ON CONFLICT (event_id) DO NOTHING";
+
+    private static final String INSERT_COUNTED_H2 =
+            "MERGE INTO T_Event_Headcount h USING (" + COUNT + ") c ON h.event_id = c.event_id " +
+            "WHEN NOT MATCHED THEN INSERT (event_id, attending, declined, pending) VALUES (c.event_id, c.attending, c.declined, c.pending)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs an EventHeadcountRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public EventHeadcountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertCounted(int eventId) {
+        return this.jdbcTemplate.update(this.isH2() ? INSERT_COUNTED_H2 : INSERT_COUNTED_POSTGRESQL, eventId);
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
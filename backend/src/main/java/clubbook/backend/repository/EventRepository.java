@@ -1,85 +1,104 @@
 package clubbook.backend.repository;
 
+import clubbook.backend.dtos.EventDto;
 import clubbook.backend.model.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing Event entities.
  * This interface extends JpaRepository to provide CRUD operations
  * and custom query methods for event-related data.
  */
-public interface EventRepository extends JpaRepository<Event, Integer> {
+public interface EventRepository extends JpaRepository<Event, Integer>, EventRepositoryCustom {
 
     /**
-     * Finds all Event records with a date greater than or equal to the specified date,
-     * ordered by date in ascending order.
+     * Selects exactly the columns of an {@link EventDto}, with the event type joined in,
+     * so listings never hydrate Event entities nor touch their attendances.
+     */
+    String PROJECTION = "SELECT new clubbook.backend.dtos.EventDto(e.id, e.title, e.additionalInfo, e.address, t.eventTypeId, t.name, t.createdAt, " +
+            "e.date, e.birthYearStart, e.birthYearEnd, e.deadline, e.capacity) FROM Event e LEFT JOIN e.type t ";
+
+    /**
+     * Finds an event by its ID.
      *
-     * @param now the date to compare against
-     * @return a list of Event entities occurring on or after the specified date
+     * @param id the ID of the event
+     * @return an Optional containing the event if found, otherwise empty
      */
-    List<Event> findAllByDateGreaterThanEqualOrderByDate(LocalDate now);
+    @Query(PROJECTION + "WHERE e.id = :id")
+    Optional<EventDto> findEventDtoById(@Param("id") int id);
 
     /**
-     * Finds the first Event record with a date greater than or equal to the specified date,
-     * ordered by date in ascending order.
+     * Finds the events with a date greater than or equal to the specified date,
+     * ordered by date and ID in ascending order.
      *
-     * @param now the date to compare against
-     * @return the first Event entity occurring on or after the specified date
+     * @param from     the first date included
+     * @param pageable the maximum number of events to retrieve
+     * @return the events occurring on or after the specified date
      */
-    Event findFirstByDateGreaterThanEqualOrderByDateAsc(LocalDate now);
+    @Query(PROJECTION + "WHERE e.date >= :from ORDER BY e.date ASC, e.id ASC")
+    List<EventDto> findEventDtosFrom(@Param("from") LocalDate from, Pageable pageable);
 
     /**
-     * Finds all Event records with a date before the specified date,
-     * ordered by date in ascending order.
+     * Finds every event, ordered by ID in ascending order.
      *
-     * @param now the date to compare against
-     * @return a list of Event entities occurring before the specified date
+     * @return all the events
      */
-    List<Event> findAllByDateBeforeOrderByDateAsc(LocalDate now);
+    @Query(PROJECTION + "ORDER BY e.id ASC")
+    List<EventDto> findAllEventDtos();
 
     /**
-     * Finds all Event records that occur in the specified month and year.
+     * Finds the events with a date before the specified date,
+     * ordered by date and ID in ascending order.
      *
-     * @param month the month to filter events by
-     * @param year  the year to filter events by
-     * @return a list of Event entities occurring in the specified month and year
+     * @param to the first date excluded
+     * @return the events occurring before the specified date
      */
-    @Query("SELECT e FROM Event e WHERE MONTH(e.date) = :month AND YEAR(e.date) = :year")
-    List<Event> findAllByCurrentMonth(int month, int year);
+    @Query(PROJECTION + "WHERE e.date < :to ORDER BY e.date ASC, e.id ASC")
+    List<EventDto> findEventDtosBefore(@Param("to") LocalDate to);
 
     /**
-     * Finds all Event records that admit users with the specified birthday.
+     * Finds the events with a date within the specified range,
+     * ordered by date and ID in ascending order.
      *
-     * @param birthday the birthday to filter events by
-     * @return a list of Event entities that admit users with the specified birthday
+     * @param from the first date included
+     * @param to   the first date excluded
+     * @return the events occurring within the range
      */
-    @Query("SELECT e FROM Event e WHERE e.birthYearStart <= :birthday AND e.birthYearEnd >= :birthday")
-    List<Event> findAllEventsThatAdmit(@Param("birthday") LocalDate birthday);
+    @Query(PROJECTION + "WHERE e.date >= :from AND e.date < :to ORDER BY e.date ASC, e.id ASC")
+    List<EventDto> findEventDtosBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
     /**
-     * Finds the next Event record that admits users with the specified birthday.
+     * Finds the page of events from the specified date onwards that follows a
+     * (date, id) position, ordered by date and ID in ascending order.
      *
-     * @param birthday the birthday to filter events by
-     * @return the next Event entity that admits users with the specified birthday
+     * @param today    the first event date included
+     * @param date     the date of the last event already returned
+     * @param id       the ID of the last event already returned
+     * @param pageable the maximum number of events to retrieve
+     * @return the events following the position
      */
-    @Query(value = "SELECT * FROM T_Event e WHERE e.birth_year_start <= :birthday AND e.birth_year_end >= :birthday ORDER BY e.date ASC LIMIT 1", nativeQuery = true)
-    Event findNextEventThatAdmit(@Param("birthday") LocalDate birthday);
+    @Query(PROJECTION + "WHERE e.date >= :today AND (e.date > :date OR (e.date = :date AND e.id > :id)) ORDER BY e.date ASC, e.id ASC")
+    List<EventDto> findFutureEventsAfter(@Param("today") LocalDate today, @Param("date") LocalDate date, @Param("id") int id, Pageable pageable);
 
     /**
-     * Finds all Event records for the current month that admit users with the specified birthday.
+     * Finds the page of events before the specified date that follows a
+     * (date, id) position, ordered by date and ID in descending order.
      *
-     * @param monthValue the month to filter events by
-     * @param year      the year to filter events by
-     * @param birthday   the birthday to filter events by
-     * @return a list of Event entities for the current month that admit users with the specified birthday
+     * @param today    the first event date excluded
+     * @param date     the date of the last event already returned
+     * @param id       the ID of the last event already returned
+     * @param pageable the maximum number of events to retrieve
+     * @return the events following the position
      */
-    @Query("SELECT e FROM Event e WHERE e.birthYearStart <= :birthday AND e.birthYearEnd >= :birthday AND MONTH(e.date) = :monthValue AND YEAR(e.date) = :year")
-    List<Event> findAllByCurrentMonthForStudent(@Param("monthValue") int monthValue, @Param("year") int year, @Param("birthday") LocalDate birthday);
+    @Query(PROJECTION + "WHERE e.date < :today AND (e.date < :date OR (e.date = :date AND e.id < :id)) ORDER BY e.date DESC, e.id DESC")
+    List<EventDto> findPastEventsBefore(@Param("today") LocalDate today, @Param("date") LocalDate date, @Param("id") int id, Pageable pageable);
 
     /**
      * Finds all Event records occurring in the next two days from the specified date.
@@ -0,0 +1,33 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.dtos.EventDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Custom repository fragment for Event entities.
+ * Declares the birthday range lookups and the capacity lock, which use a database specific access path.
+ */
+public interface EventRepositoryCustom {
+
+    /**
+     * Finds the events on or after a given date that admit users with the specified birthday.
+     *
+     * @param birthday the birthday to filter events by
+     * @param from the first event date included
+     * @param limit the maximum number of events to retrieve, or 0 to retrieve them all
+     * @return the events found, ordered by date
+     */
+    List<EventDto> findUpcomingEventsThatAdmit(LocalDate birthday, LocalDate from, int limit);
+
+    /**
+     * Retrieves the capacity of an event and locks the event until the current transaction
+     * ends, so its capacity cannot change meanwhile. Lockers only wait for a change of the
+     * event, not for each other, where the database has shared row locks.
+     *
+     * @param eventId the ID of the event
+     * @return the number of slots of the event, or null if it is unlimited
+     */
+    Integer lockCapacity(int eventId);
+}
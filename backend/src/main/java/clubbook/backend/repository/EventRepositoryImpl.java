@@ -0,0 +1,95 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.dtos.EventDto;
+import clubbook.backend.model.enumClasses.EventTypeEnum;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Implementation of {@link EventRepositoryCustom}.
+ * On PostgreSQL the birthday range of an event is matched as a daterange with ordered
+ * bounds, so the lookup is served by the GiST index over that range created by
+ * schema-postgresql.sql, and events with an inverted range are left out as elsewhere.
+ * Other databases use the equivalent pair of comparisons.
+ * The capacity of an event is locked with a shared row lock on PostgreSQL and with an
+ * exclusive one elsewhere, since H2 has no shared row locks.
+ */
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    private static final String SELECT_EVENT_DTO =
+            "SELECT e.id, e.title, e.additional_info, e.address, t.event_type_id, t.name AS type_name, t.created_at AS type_created_at, " +
+            "e.date, e.birth_year_start, e.birth_year_end, e.deadline, e.capacity " +
+            "FROM T_Event e LEFT JOIN T_Event_Type t ON e.type_event_type_id = t.event_type_id ";
+
+    private static final String UPCOMING_THAT_ADMIT_POSTGRESQL = SELECT_EVENT_DTO +
+            "WHERE daterange(LEAST(e.birth_year_start, e.birth_year_end), GREATEST(e.birth_year_start, e.birth_year_end), '[]') @> CAST(? AS date) " +
+            "AND e.birth_year_start <= e.birth_year_end AND e.date >= ? ORDER BY e.date, e.id";
+
+    private static final String UPCOMING_THAT_ADMIT = SELECT_EVENT_DTO +
+            "WHERE e.birth_year_start <= ? AND e.birth_year_end >= ? AND e.date >= ? ORDER BY e.date, e.id";
+
+    private static final String LOCK_CAPACITY_POSTGRESQL = "SELECT capacity FROM T_Event WHERE id = ? FOR SHARE";
+
+    private static final String LOCK_CAPACITY = "SELECT capacity FROM T_Event WHERE id = ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    /**
+     * Constructs an EventRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to run the lookups
+     */
+    public EventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<EventDto> findUpcomingEventsThatAdmit(LocalDate birthday, LocalDate from, int limit) {
+        String sql;
+        Object[] args;
+        if (this.isPostgresql()) {
+            sql = UPCOMING_THAT_ADMIT_POSTGRESQL;
+            args = limit > 0 ? new Object[]{birthday, from, limit} : new Object[]{birthday, from};
+        } else {
+            sql = UPCOMING_THAT_ADMIT;
+            args = limit > 0 ? new Object[]{birthday, birthday, from, limit} : new Object[]{birthday, birthday, from};
+        }
+        if (limit > 0) {
+            sql += " LIMIT ?";
+        }
+        return this.jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Integer typeId = rs.getObject("event_type_id", Integer.class);
+            String typeName = rs.getString("type_name");
+            Timestamp typeCreatedAt = rs.getTimestamp("type_created_at");
+            return new EventDto(rs.getInt("id"), rs.getString("title"), rs.getString("additional_info"), rs.getString("address"),
+                    typeId, typeName == null ? null : EventTypeEnum.valueOf(typeName), typeCreatedAt,
+                    rs.getObject("date", LocalDate.class), rs.getObject("birth_year_start", LocalDate.class),
+                    rs.getObject("birth_year_end", LocalDate.class), rs.getObject("deadline", LocalDate.class),
+                    rs.getObject("capacity", Integer.class));
+        }, args);
+    }
+
+    @Override
+    public Integer lockCapacity(int eventId) {
+        return this.jdbcTemplate.queryForObject(this.isPostgresql() ? LOCK_CAPACITY_POSTGRESQL : LOCK_CAPACITY, Integer.class, eventId);
+    }
+
+    /**
+     * Tells whether the database in use is PostgreSQL, resolving it on first use.
+     *
+     * @return true if the database is PostgreSQL
+     */
+    private boolean isPostgresql() {
+        if (this.postgresql == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.postgresql = "PostgreSQL".equals(product);
+        }
+        return this.postgresql;
+    }
+}
@@ -0,0 +1,111 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.EventSlots;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for managing EventSlots entities.
+ * This interface extends JpaRepository to provide CRUD operations
+ * and the conditional updates that hand out the slots of an event.
+ */
+@Repository
+public interface EventSlotsRepository extends JpaRepository<EventSlots, Integer>, EventSlotsRepositoryCustom {
+
+    /**
+     * Retrieves and locks the slot counter of an event, so the changes to its slots are serialized.
+     *
+     * @param eventId the ID of the event
+     * @return an Optional containing the counter if the event has a capacity, otherwise empty
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EventSlots s WHERE s.eventId = :eventId")
+    Optional<EventSlots> findForUpdate(@Param("eventId") int eventId);
+
+    /**
+     * Takes a slot of an event if there is one left, in a single atomic statement.
+     *
+     * @param eventId the ID of the event
+     * @return 1 if a slot was taken, 0 if the event is full
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Slots SET taken = taken + 1 WHERE event_id = :eventId AND taken < capacity;",
+            nativeQuery = true
+    )
+    int take(@Param("eventId") int eventId);
+
+    /**
+     * Gives back a slot of an event.
+     *
+     * @param eventId the ID of the event
+     * @return 1 if a slot was given back, 0 if none was taken
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Slots SET taken = taken - 1 WHERE event_id = :eventId AND taken > 0;",
+            nativeQuery = true
+    )
+    int giveBack(@Param("eventId") int eventId);
+
+    /**
+     * Hands out the next waitlist place of an event.
+     *
+     * @param eventId the ID of the event
+     * @return the number of counters updated
+     */
+    @Modifying
+    @Query(value = "UPDATE T_Event_Slots SET last_ticket = last_ticket + 1 WHERE event_id = :eventId ;", nativeQuery = true)
+    int incrementTicket(@Param("eventId") int eventId);
+
+    /**
+     * Reads the last waitlist place handed out for an event.
+     *
+     * @param eventId the ID of the event
+     * @return the last place handed out
+     */
+    @Query(value = "SELECT last_ticket FROM T_Event_Slots WHERE event_id = :eventId ;", nativeQuery = true)
+    long findLastTicket(@Param("eventId") int eventId);
+
+    /**
+     * Sets the number of slots of an event and recounts the slots taken from its attendance records.
+     *
+     * @param eventId  the ID of the event
+     * @param capacity the number of slots of the event
+     * @return the number of counters updated
+     */
+    @Modifying
+    @Query(
+            value = "UPDATE T_Event_Slots SET capacity = :capacity, " +
+                    "taken = (SELECT COUNT(*) FROM T_Event_Attendance a WHERE a.event_id = :eventId AND a.status = TRUE) " +
+                    "WHERE event_id = :eventId ;",
+            nativeQuery = true
+    )
+    int resize(@Param("eventId") int eventId, @Param("capacity") int capacity);
+
+    /**
+     * Deletes the slot counter of an event.
+     *
+     * @param eventId the ID of the event
+     * @return the number of counters deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM T_Event_Slots WHERE event_id = :eventId ;", nativeQuery = true)
+    int deleteByEventId(@Param("eventId") int eventId);
+
+    /**
+     * Deletes the slot counters of every event.
+     *
+     * @return the number of counters deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM T_Event_Slots;", nativeQuery = true)
+    int deleteAllSlots();
+}
@@ -0,0 +1,19 @@
+package clubbook.backend.repository;
+
+/**
+ * Custom repository fragment for EventSlots entities.
+ * Declares the creation of slot counters executed directly through JDBC.
+ */
+public interface EventSlotsRepositoryCustom {
+
+    /**
+     * Creates the slot counter of an event with no slot taken, unless it already exists.
+     * A counter created meanwhile by another transaction is skipped instead of breaking
+     * the event_id primary key, so the caller can lock it right after.
+     *
+     * @param eventId  the ID of the event
+     * @param capacity the number of slots of the event
+     * @return 1 if the counter was created, 0 if it already existed
+     */
+    int insertMissing(int eventId, int capacity);
+}
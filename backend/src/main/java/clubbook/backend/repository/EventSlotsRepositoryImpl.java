@@ -0,0 +1,52 @@
+package clubbook.backend.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link EventSlotsRepositoryCustom}.
+ * Missing counters are inserted ignoring the ones that already exist, using the
+ * native statement of the database in use.
+ */
+public class EventSlotsRepositoryImpl implements EventSlotsRepositoryCustom {
+
+    private static final String INSERT_MISSING_POSTGRESQL =
+            "INSERT INTO T_Event_Slots (event_id, capacity, taken, last_ticket) VALUES (?, ?, 0, 0) " +
+            "ON CONFLICT (event_id) DO NOTHING";
+
+    private static final String INSERT_MISSING_H2 =
+            "MERGE INTO T_Event_Slots s USING (SELECT CAST(? AS INTEGER) AS event_id, CAST(? AS INTEGER) AS capacity) v " +
+            "ON s.event_id = v.event_id " +
+            "WHEN NOT MATCHED THEN INSERT (event_id, capacity, taken, last_ticket) VALUES (v.event_id, v.capacity, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /**
+     * Constructs an EventSlotsRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the statements
+     */
+    public EventSlotsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertMissing(int eventId, int capacity) {
+        return this.jdbcTemplate.update(this.isH2() ? INSERT_MISSING_H2 : INSERT_MISSING_POSTGRESQL, eventId, capacity);
+    }
+
+    /**
+     * Tells whether the database in use is H2, resolving it on first use.
+     *
+     * @return true if the database is H2
+     */
+    private boolean isH2() {
+        if (this.h2 == null) {
+            String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            this.h2 = "H2".equals(product);
+        }
+        return this.h2;
+    }
+}
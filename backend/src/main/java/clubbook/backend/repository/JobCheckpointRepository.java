@@ -0,0 +1,25 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for managing JobCheckpoint entities.
+ * This interface extends JpaRepository to provide CRUD operations
+ * for the progress of chunked scheduled jobs.
+ */
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    /**
+     * Finds the runs of a given day that have not finished.
+     *
+     * @param runDate the day of the runs
+     * @return the checkpoints of the unfinished runs
+     */
+    List<JobCheckpoint> findByRunDateAndFinishedFalse(LocalDate runDate);
+}
@@ -0,0 +1,71 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.JobLease;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for managing JobLease entities.
+ * Every statement runs and commits in its own transaction, so a lease is visible to the
+ * other instances as soon as it is taken, whatever transaction the job itself runs in.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Creates an expired lease for a job. Two instances creating the lease of the same
+     * job at once make one of the inserts fail with a duplicate key.
+     *
+     * @param name the name of the job
+     * @param expired an instant already past
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Job_Lease (name, owner, locked_until) VALUES (:name, '', :expired);",
+            nativeQuery = true
+    )
+    void insertExpired(@Param("name") String name, @Param("expired") LocalDateTime expired);
+
+    /**
+     * Takes the lease of a job if it has expired, or extends it if the given instance already holds it.
+     * Instances racing for the same lease serialize on the row, and only the first one matches.
+     *
+     * @param name the name of the job
+     * @param owner the identifier of the instance
+     * @param now the current instant
+     * @param lockedUntil the instant until which the lease is held
+     * @return 1 if the lease was taken, 0 if another instance holds it or it does not exist
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(
+            value = "UPDATE T_Job_Lease SET owner = :owner, locked_until = :lockedUntil " +
+                    "WHERE name = :name AND (locked_until <= :now OR owner = :owner);",
+            nativeQuery = true
+    )
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Ends the lease of a job if the given instance holds it.
+     *
+     * @param name the name of the job
+     * @param owner the identifier of the instance
+     * @param now the current instant
+     * @return 1 if the lease was ended, 0 otherwise
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Modifying
+    @Query(
+            value = "UPDATE T_Job_Lease SET locked_until = :now WHERE name = :name AND owner = :owner ;",
+            nativeQuery = true
+    )
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
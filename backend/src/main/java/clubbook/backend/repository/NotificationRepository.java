@@ -4,9 +4,12 @@ import clubbook.backend.model.notification.Notification;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,7 +18,7 @@ import java.util.List;
  * for Notification entities and additional custom query methods.
  */
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Integer> {
+public interface NotificationRepository extends JpaRepository<Notification, Integer>, NotificationRepositoryCustom {
 
     /**
      * Retrieves a list of notifications for a specific user, ordered by creation date in descending order.
@@ -34,4 +37,113 @@ public interface NotificationRepository extends JpaRepository<Notification, Inte
     @Transactional
     @Modifying
     void deleteByCreatedAtBefore(LocalDate localDate);
+
+    /**
+     * Sends the same notification to every user registered in an event with a single statement.
+     *
+     * @param title the title of the notification
+     * @param createdAt the creation date and time of the notification
+     * @param date the date associated with the notification
+     * @param content the content of the notification
+     * @param eventId the ID of the event whose attendees are notified
+     * @return the number of notifications created
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Notification (title, created_at, date, content, user_id) " +
+                    "SELECT :title, :createdAt, :date, :content, ea.user_id FROM T_Event_Attendance ea WHERE ea.event_id = :eventId ;",
+            nativeQuery = true
+    )
+    int insertForEventAttendees(@Param("title") String title,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("date") LocalDate date,
+                                @Param("content") String content,
+                                @Param("eventId") int eventId);
+
+    /**
+     * Sends the same notification, with a single statement, to the students registered in an event
+     * that still have access and were born within the given birth date range.
+     *
+     * @param title the title of the notification
+     * @param createdAt the creation date and time of the notification
+     * @param date the date associated with the notification
+     * @param content the content of the notification
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the birth date range
+     * @param birthYearEnd the end of the birth date range
+     * @return the number of notifications created
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Notification (title, created_at, date, content, user_id) " +
+                    "SELECT :title, :createdAt, :date, :content, u.id FROM T_Event_Attendance ea " +
+                    "JOIN T_user u ON ea.user_id = u.id JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE ea.event_id = :eventId AND r.name = 'STUDENT' AND u.allowed_access AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd ;",
+            nativeQuery = true
+    )
+    int insertForEventStudentsInsideRange(@Param("title") String title,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("date") LocalDate date,
+                                          @Param("content") String content,
+                                          @Param("eventId") int eventId,
+                                          @Param("birthYearStart") LocalDate birthYearStart,
+                                          @Param("birthYearEnd") LocalDate birthYearEnd);
+
+    /**
+     * Sends the same notification, with a single statement, to the students registered in an event
+     * that no longer have access or were not born within the given birth date range.
+     *
+     * @param title the title of the notification
+     * @param createdAt the creation date and time of the notification
+     * @param date the date associated with the notification
+     * @param content the content of the notification
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the birth date range
+     * @param birthYearEnd the end of the birth date range
+     * @return the number of notifications created
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Notification (title, created_at, date, content, user_id) " +
+                    "SELECT :title, :createdAt, :date, :content, u.id FROM T_Event_Attendance ea " +
+                    "JOIN T_user u ON ea.user_id = u.id JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE ea.event_id = :eventId AND r.name = 'STUDENT' AND NOT (u.allowed_access AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd);",
+            nativeQuery = true
+    )
+    int insertForEventStudentsOutsideRange(@Param("title") String title,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("date") LocalDate date,
+                                           @Param("content") String content,
+                                           @Param("eventId") int eventId,
+                                           @Param("birthYearStart") LocalDate birthYearStart,
+                                           @Param("birthYearEnd") LocalDate birthYearEnd);
+
+    /**
+     * Sends the same notification, with a single statement, to the students with access born within
+     * the given birth date range that are not registered in an event.
+     *
+     * @param title the title of the notification
+     * @param createdAt the creation date and time of the notification
+     * @param date the date associated with the notification
+     * @param content the content of the notification
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the birth date range
+     * @param birthYearEnd the end of the birth date range
+     * @return the number of notifications created
+     */
+    @Modifying
+    @Query(
+            value = "INSERT INTO T_Notification (title, created_at, date, content, user_id) " +
+                    "SELECT :title, :createdAt, :date, :content, u.id FROM T_user u JOIN T_role r ON u.role_fk_id = r.role_id " +
+                    "WHERE r.name = 'STUDENT' AND u.allowed_access AND u.birthday BETWEEN :birthYearStart AND :birthYearEnd " +
+                    "AND NOT EXISTS (SELECT 1 FROM T_Event_Attendance ea WHERE ea.event_id = :eventId AND ea.user_id = u.id);",
+            nativeQuery = true
+    )
+    int insertForStudentsMissingFromEvent(@Param("title") String title,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("date") LocalDate date,
+                                          @Param("content") String content,
+                                          @Param("eventId") int eventId,
+                                          @Param("birthYearStart") LocalDate birthYearStart,
+                                          @Param("birthYearEnd") LocalDate birthYearEnd);
 }
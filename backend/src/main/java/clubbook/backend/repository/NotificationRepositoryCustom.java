@@ -0,0 +1,54 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.notification.Notification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom repository fragment for Notification entities.
+ * Declares bulk write operations executed directly through JDBC.
+ */
+public interface NotificationRepositoryCustom {
+
+    /**
+     * Inserts the given notifications as a single JDBC batch.
+     *
+     * @param notifications the notifications to insert
+     */
+    void insertAllInBatch(List<Notification> notifications);
+
+    /**
+     * Inserts the given notifications into the outbox as a single JDBC batch.
+     *
+     * @param notifications the notifications to insert, by outbox ID
+     */
+    void insertAllIntoOutbox(Map<String, Notification> notifications);
+
+    /**
+     * Deletes the given notifications from the outbox as a single JDBC batch.
+     *
+     * @param ids the outbox IDs of the notifications
+     * @return the outbox IDs that were actually deleted
+     */
+    List<String> deleteFromOutbox(List<String> ids);
+
+    /**
+     * Retrieves the oldest notifications of the outbox created before a given instant.
+     *
+     * @param before the creation instant limit, exclusive
+     * @param limit the maximum number of notifications to retrieve
+     * @return the notifications found, by outbox ID, in creation order
+     */
+    Map<String, Notification> findOutboxCreatedBefore(LocalDateTime before, int limit);
+
+    /**
+     * Records a failed delivery of the given notifications of the outbox as a single JDBC batch,
+     * increasing their attempts and keeping the error.
+     *
+     * @param ids the outbox IDs of the notifications
+     * @param error the error of the failed delivery
+     */
+    void recordOutboxFailure(List<String> ids, String error);
+}
@@ -0,0 +1,125 @@
+package clubbook.backend.repository;
+
+import clubbook.backend.model.User;
+import clubbook.backend.model.notification.Notification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link NotificationRepositoryCustom}.
+ * Notifications are created in bulk by several services, so they are written
+ * with a JdbcTemplate batch instead of one Hibernate insert per notification.
+ */
+public class NotificationRepositoryImpl implements NotificationRepositoryCustom {
+
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO T_NOTIFICATION (title, created_at, date, content, user_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX =
+            "INSERT INTO T_NOTIFICATION_OUTBOX (id, title, created_at, date, content, user_id, attempts) VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String RECORD_OUTBOX_FAILURE =
+            "UPDATE T_NOTIFICATION_OUTBOX SET attempts = attempts + 1, last_error = ? WHERE id = ?";
+
+    private static final String DELETE_OUTBOX =
+            "DELETE FROM T_NOTIFICATION_OUTBOX WHERE id = ?";
+
+    private static final String SELECT_OUTBOX =
+            "SELECT id, title, created_at, date, content, user_id FROM T_NOTIFICATION_OUTBOX " +
+            "WHERE created_at < ? ORDER BY created_at LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a NotificationRepositoryImpl with the specified JdbcTemplate.
+     *
+     * @param jdbcTemplate the template used to execute the batch statements
+     */
+    public NotificationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAllInBatch(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, notifications, notifications.size(), (ps, notification) -> {
+            ps.setString(1, notification.getTitle());
+            ps.setObject(2, notification.getCreatedAt());
+            ps.setObject(3, notification.getDate());
+            ps.setString(4, notification.getContent());
+            ps.setInt(5, notification.getUser().getId());
+        });
+    }
+
+    @Override
+    public void insertAllIntoOutbox(Map<String, Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Notification>> entries = new ArrayList<>(notifications.entrySet());
+        this.jdbcTemplate.batchUpdate(INSERT_OUTBOX, entries, entries.size(), (ps, entry) -> {
+            Notification notification = entry.getValue();
+            ps.setString(1, entry.getKey());
+            ps.setString(2, notification.getTitle());
+            ps.setObject(3, notification.getCreatedAt());
+            ps.setObject(4, notification.getDate());
+            ps.setString(5, notification.getContent());
+            ps.setInt(6, notification.getUser().getId());
+        });
+    }
+
+    @Override
+    public List<String> deleteFromOutbox(List<String> ids) {
+        List<String> deleted = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return deleted;
+        }
+        int[][] counts = this.jdbcTemplate.batchUpdate(DELETE_OUTBOX, ids, ids.size(), (ps, id) -> ps.setString(1, id));
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    deleted.add(ids.get(i));
+                }
+                i++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Notification> findOutboxCreatedBefore(LocalDateTime before, int limit) {
+        Map<String, Notification> notifications = new LinkedHashMap<>();
+        this.jdbcTemplate.query(SELECT_OUTBOX, rs -> {
+            User user = new User();
+            user.setId(rs.getInt("user_id"));
+            Notification notification = new Notification();
+            notification.setTitle(rs.getString("title"));
+            notification.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+            notification.setDate(rs.getObject("date", LocalDate.class));
+            notification.setContent(rs.getString("content"));
+            notification.setUser(user);
+            notifications.put(rs.getString("id"), notification);
+        }, before, limit);
+        return notifications;
+    }
+
+    @Override
+    public void recordOutboxFailure(List<String> ids, String error) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.batchUpdate(RECORD_OUTBOX_FAILURE, ids, ids.size(), (ps, id) -> {
+            ps.setString(1, error);
+            ps.setString(2, id);
+        });
+    }
+}
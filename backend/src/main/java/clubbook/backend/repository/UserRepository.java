@@ -4,6 +4,7 @@ import clubbook.backend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,6 +28,34 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Finds a User by the secret token of their calendar feed.
+     *
+     * @param calendarToken the token of the calendar feed
+     * @return an Optional containing the User if found, or empty if not found
+     */
+    Optional<User> findByCalendarToken(String calendarToken);
+
+    /**
+     * Retrieves the secret token of the calendar feed of a User, without loading the User.
+     *
+     * @param id the ID of the User
+     * @return the token, or null if the User has none yet
+     */
+    @Query("SELECT u.calendarToken FROM User u WHERE u.id = :id")
+    String findCalendarTokenById(@Param("id") int id);
+
+    /**
+     * Sets the secret token of the calendar feed of a User, unless the User already has one.
+     *
+     * @param id the ID of the User
+     * @param calendarToken the new token
+     * @return the number of Users updated
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.calendarToken = :calendarToken WHERE u.id = :id AND u.calendarToken IS NULL")
+    int assignCalendarToken(@Param("id") int id, @Param("calendarToken") String calendarToken);
+
     /**
      * Retrieves a paginated list of Students ordered by their first names in ascending order.
      *
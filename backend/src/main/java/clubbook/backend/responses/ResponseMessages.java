@@ -8,6 +8,8 @@ package clubbook.backend.responses;
 public class ResponseMessages {
 
     public static final String ASSISTANCE_REGISTERED_CORRECT = "Asistencia registrada correctamente";
+    public static final String IDEMPOTENCY_KEY_REUSED = "La clave de idempotencia ya se usó con otra petición";
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS = "La petición con esta clave de idempotencia aún se está procesando";
     public static final String SEASON_NOT_STARTED = "La temporada no ha comenzado";
     public static final String OK = "";
     public static final String CORRECT_REGISTER = "Se ha registrado correctamente";
@@ -18,6 +20,10 @@ public class ResponseMessages {
     public static final String NO_FUTURE_EVENTS = "No hay eventos previstos";
     public static final String EVENT_DELETED_SUCCESS = "Evento eliminado correctamente";
     public static final String ATTENDANCE_UPDATED = "Asistencia actualizada";
+    public static final String ATTENDANCE_CONFLICT = "La asistencia ha cambiado mientras se actualizaba, inténtelo de nuevo";
+    public static final String ATTENDANCE_WAITLISTED = "El evento está completo, has quedado en lista de espera";
     public static final String UNABLE_TO_DELETE = "El usuario está enlazado a alguna clase como <rol>, " +
             "impidiendo su eliminación. Retírelo de la clase para proceder a su eliminación.";
+    public static final String INVALID_DATE_RANGE = "El rango de fechas no es válido";
+    public static final String INVALID_PAGE_TOKEN = "El token de paginación no es válido";
 }
@@ -0,0 +1,95 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.AbsenceStreak;
+import clubbook.backend.model.Attendance;
+import clubbook.backend.model.notification.ConsecutiveAbsenceNotificationFactory;
+import clubbook.backend.model.notification.Notification;
+import clubbook.backend.model.notification.NotificationFactory;
+import clubbook.backend.repository.AbsenceStreakRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Service class that detects students missing several classes in a row.
+ * Each student keeps the length of the current run of absences, which is updated
+ * in constant time on every roll call, and an escalation notification is created
+ * when the run reaches the configured threshold.
+ */
+@Service
+public class AbsenceStreakService {
+
+    private final AbsenceStreakRepository absenceStreakRepository;
+    private final int threshold;
+
+    /**
+     * Constructs an AbsenceStreakService with the specified repository and threshold.
+     *
+     * @param absenceStreakRepository the repository for absence streaks
+     * @param threshold the number of consecutive absences that triggers an escalation notification
+     */
+    @Autowired
+    public AbsenceStreakService(AbsenceStreakRepository absenceStreakRepository,
+                                @Value("${attendance.absence-streak-threshold:3}") int threshold) {
+        this.absenceStreakRepository = absenceStreakRepository;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Applies a roll call to the absence streaks of its students.
+     * Roll calls for a date before the latest registered class of a student do not
+     * change the streak; a roll call for the same date replaces the previous mark.
+     * The missing streaks are created first, so the affected streaks are then loaded and
+     * locked with a single query and concurrent roll calls of the same students wait for
+     * each other instead of inserting the same streak twice.
+     *
+     * @param attendances the attendance records just saved
+     * @param previousMarks the records the roll call overwrote, as attended flag by user ID
+     * @return the escalation notifications for the students whose streak reached the threshold
+     */
+    @Transactional
+    public List<Notification> record(List<Attendance> attendances, Map<Integer, Boolean> previousMarks) {
+        if (attendances.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Integer> userIds = new HashSet<>(attendances.size());
+        for (Attendance attendance : attendances) {
+            userIds.add(attendance.getUser().getId());
+        }
+        this.absenceStreakRepository.insertMissing(userIds);
+        Map<Integer, AbsenceStreak> streaks = new HashMap<>(userIds.size());
+        for (AbsenceStreak streak : this.absenceStreakRepository.findForUpdate(userIds)) {
+            streaks.put(streak.getUser().getId(), streak);
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        for (Attendance attendance : attendances) {
+            int userId = attendance.getUser().getId();
+            LocalDate date = attendance.getAttendanceDate();
+            AbsenceStreak streak = streaks.get(userId);
+            int before;
+            if (date.isAfter(streak.getLastDate())) {
+                streak.setLastDate(date);
+                before = streak.getAbsences();
+            } else if (date.isEqual(streak.getLastDate())) {
+                before = Boolean.FALSE.equals(previousMarks.get(userId)) ? streak.getAbsences() - 1 : streak.getAbsences();
+            } else {
+                continue;
+            }
+
+            int absences = attendance.isAttended() ? 0 : before + 1;
+            if (absences >= this.threshold && streak.getAbsences() < this.threshold) {
+                NotificationFactory notificationFactory = new ConsecutiveAbsenceNotificationFactory(date, attendance.getUser(), absences);
+                notificationFactory.createNotification();
+                notifications.add(notificationFactory.getNotification());
+            }
+            streak.setAbsences(absences);
+        }
+        this.absenceStreakRepository.saveAll(streaks.values());
+        return notifications;
+    }
+}
@@ -0,0 +1,244 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.Attendance;
+import clubbook.backend.model.AttendanceBitmap;
+import clubbook.backend.model.Season;
+import clubbook.backend.repository.AttendanceBitmapRepository;
+import clubbook.backend.repository.AttendanceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Service class for the compact attendance representation.
+ * Keeps one present bitmap and one marked bitmap per student and season,
+ * indexed by the day of the season, in sync with the attendance records.
+ */
+@Service
+public class AttendanceBitmapService {
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    private static final String REBUILD_JOB = "rebuild-attendance-bitmaps";
+    private static final Duration REBUILD_LEASE = Duration.ofHours(1);
+
+    private final AttendanceBitmapRepository attendanceBitmapRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final UserService userService;
+    private final SeasonService seasonService;
+    private final JobLeaseService jobLeaseService;
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs an AttendanceBitmapService with the specified dependencies.
+     *
+     * @param attendanceBitmapRepository the repository for attendance bitmaps
+     * @param attendanceRepository the repository for attendance records
+     * @param userService the service for user-related operations
+     * @param seasonService the service for season-related operations
+     * @param jobLeaseService the service that coordinates the scheduled jobs across instances
+     * @param entityManager the entity manager flushed and cleared between the chunks of a rebuild
+     */
+    @Autowired
+    public AttendanceBitmapService(AttendanceBitmapRepository attendanceBitmapRepository, AttendanceRepository attendanceRepository, UserService userService, SeasonService seasonService, JobLeaseService jobLeaseService, EntityManager entityManager) {
+        this.attendanceBitmapRepository = attendanceBitmapRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.userService = userService;
+        this.seasonService = seasonService;
+        this.jobLeaseService = jobLeaseService;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Returns the first day of the active season, which is the origin of the bitmap ordinals.
+     *
+     * @return the first day of the month the active season started, or null if there is no active season
+     */
+    public LocalDate getSeasonStart() {
+        Season season = this.seasonService.seasonActive();
+        if (season == null) {
+            return null;
+        }
+        return season.getInit().withDayOfMonth(1);
+    }
+
+    /**
+     * Retrieves the attendance bitmaps of every student of a class group in a season with a single query.
+     *
+     * @param classGroupId the ID of the class group
+     * @param seasonStart the first day of the season
+     * @return a list of objects containing user ID, first name, last name, present bitmap and marked bitmap,
+     *         ordered by name; the bitmaps are null for students without records in the season
+     */
+    public List<Object[]> findClassGroupBitmaps(int classGroupId, LocalDate seasonStart) {
+        return this.attendanceBitmapRepository.findClassGroupBitmaps(classGroupId, seasonStart);
+    }
+
+    /**
+     * Applies a batch of attendance records to the bitmaps of the active season.
+     * Records outside the active season are ignored. The missing bitmaps are created
+     * first, so the affected bitmaps are then loaded and locked with a single query and
+     * concurrent roll calls of the same students wait for each other instead of inserting
+     * the same bitmap twice.
+     *
+     * @param attendances the attendance records just saved
+     */
+    @Transactional
+    public void record(List<Attendance> attendances) {
+        LocalDate seasonStart = this.getSeasonStart();
+        if (seasonStart == null) {
+            return;
+        }
+        LocalDate seasonEnd = seasonStart.plusYears(1);
+        List<Attendance> inSeason = new ArrayList<>(attendances.size());
+        Set<Integer> userIds = new HashSet<>(attendances.size());
+        for (Attendance attendance : attendances) {
+            LocalDate date = attendance.getAttendanceDate();
+            if (!date.isBefore(seasonStart) && date.isBefore(seasonEnd)) {
+                inSeason.add(attendance);
+                userIds.add(attendance.getUser().getId());
+            }
+        }
+        if (inSeason.isEmpty()) {
+            return;
+        }
+
+        this.attendanceBitmapRepository.insertMissing(seasonStart, userIds);
+        Map<Integer, AttendanceBitmap> bitmaps = new HashMap<>(userIds.size());
+        for (AttendanceBitmap bitmap : this.attendanceBitmapRepository.findForUpdate(seasonStart, userIds)) {
+            bitmaps.put(bitmap.getUser().getId(), bitmap);
+        }
+        for (Attendance attendance : inSeason) {
+            AttendanceBitmap bitmap = bitmaps.get(attendance.getUser().getId());
+            BitSet present = BitSet.valueOf(bitmap.getPresent());
+            BitSet marked = BitSet.valueOf(bitmap.getMarked());
+            int ordinal = AttendanceBitmap.ordinal(seasonStart, attendance.getAttendanceDate());
+            marked.set(ordinal);
+            present.set(ordinal, attendance.isAttended());
+            bitmap.setPresent(present.toByteArray());
+            bitmap.setMarked(marked.toByteArray());
+        }
+        this.attendanceBitmapRepository.saveAll(bitmaps.values());
+    }
+
+    /**
+     * Rebuilds the bitmaps of the active season from the attendance records.
+     * The records are read with a single scan ordered by user, so only one
+     * user's bitmaps are being built at a time, and every saved chunk is flushed
+     * and detached, so the persistence context does not grow with the season.
+     *
+     * @return the number of bitmaps written
+     */
+    @Transactional
+    public int rebuildActiveSeason() {
+        LocalDate seasonStart = this.getSeasonStart();
+        if (seasonStart == null) {
+            return 0;
+        }
+        this.attendanceBitmapRepository.deleteBySeasonStart(seasonStart);
+
+        int written = 0;
+        List<AttendanceBitmap> chunk = new ArrayList<>(REBUILD_CHUNK_SIZE);
+        try (Stream<Object[]> rows = this.attendanceRepository.streamAttendanceBetween(seasonStart, seasonStart.plusYears(1))) {
+            Iterator<Object[]> iterator = rows.iterator();
+            int currentUserId = -1;
+            BitSet present = new BitSet();
+            BitSet marked = new BitSet();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                int userId = ((Number) row[0]).intValue();
+                if (userId != currentUserId) {
+                    if (currentUserId != -1) {
+                        chunk.add(this.createBitmap(currentUserId, seasonStart, present, marked));
+                        written += this.flushIfFull(chunk);
+                    }
+                    currentUserId = userId;
+                    present = new BitSet();
+                    marked = new BitSet();
+                }
+                int ordinal = AttendanceBitmap.ordinal(seasonStart, this.toLocalDate(row[1]));
+                marked.set(ordinal);
+                present.set(ordinal, (Boolean) row[2]);
+            }
+            if (currentUserId != -1) {
+                chunk.add(this.createBitmap(currentUserId, seasonStart, present, marked));
+            }
+        }
+        int saved = chunk.size();
+        this.saveChunk(chunk);
+        return written + saved;
+    }
+
+    /**
+     * Rebuilds the bitmaps of the active season every night, so that records
+     * written outside the application end up reflected in the bitmaps.
+     * This method is executed at 00:30 every day, by a single instance.
+     */
+    @Transactional
+    @Scheduled(cron = "0 30 0 * * ?")
+    public void scheduleRebuildAttendanceBitmaps() {
+        this.jobLeaseService.runExclusively(REBUILD_JOB, REBUILD_LEASE, this::rebuildActiveSeason);
+    }
+
+    /**
+     * Creates the bitmap entity of a user from the bits read.
+     *
+     * @param userId the ID of the user
+     * @param seasonStart the first day of the season
+     * @param present the days the user attended
+     * @param marked the days the user's attendance was registered
+     * @return the attendance bitmap
+     */
+    private AttendanceBitmap createBitmap(int userId, LocalDate seasonStart, BitSet present, BitSet marked) {
+        AttendanceBitmap bitmap = new AttendanceBitmap(this.userService.getReferenceById(userId), seasonStart);
+        bitmap.setPresent(present.toByteArray());
+        bitmap.setMarked(marked.toByteArray());
+        return bitmap;
+    }
+
+    /**
+     * Saves the pending bitmaps once the chunk is full.
+     *
+     * @param chunk the pending bitmaps
+     * @return the number of bitmaps saved
+     */
+    private int flushIfFull(List<AttendanceBitmap> chunk) {
+        if (chunk.size() < REBUILD_CHUNK_SIZE) {
+            return 0;
+        }
+        int saved = chunk.size();
+        this.saveChunk(chunk);
+        return saved;
+    }
+
+    /**
+     * Saves a chunk of bitmaps, writes it to the database and detaches it, then empties the chunk.
+     *
+     * @param chunk the pending bitmaps
+     */
+    private void saveChunk(List<AttendanceBitmap> chunk) {
+        this.attendanceBitmapRepository.saveAll(chunk);
+        this.entityManager.flush();
+        this.entityManager.clear();
+        chunk.clear();
+    }
+
+    /**
+     * Converts a date column returned by a native query into a LocalDate.
+     *
+     * @param value the raw column value
+     * @return the LocalDate represented by the value
+     */
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+}
@@ -0,0 +1,149 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.AttendanceRateDto;
+import clubbook.backend.model.Attendance;
+import clubbook.backend.model.AttendanceRollup;
+import clubbook.backend.model.ClassGroup;
+import clubbook.backend.model.Season;
+import clubbook.backend.repository.AttendanceRollupRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service class for the monthly attendance totals of every student in every class group.
+ * The totals are updated incrementally on each roll call, so attendance rates over a
+ * range of months are computed from one row per student and month.
+ */
+@Service
+public class AttendanceRollupService {
+
+    private static final String REBUILD_JOB = "rebuild-attendance-rollups";
+    private static final Duration REBUILD_LEASE = Duration.ofHours(1);
+
+    private final AttendanceRollupRepository attendanceRollupRepository;
+    private final SeasonService seasonService;
+    private final JobLeaseService jobLeaseService;
+
+    /**
+     * Constructs an AttendanceRollupService with the specified dependencies.
+     *
+     * @param attendanceRollupRepository the repository for attendance rollups
+     * @param seasonService the service for season-related operations
+     * @param jobLeaseService the service that coordinates the scheduled jobs across instances
+     */
+    @Autowired
+    public AttendanceRollupService(AttendanceRollupRepository attendanceRollupRepository, SeasonService seasonService, JobLeaseService jobLeaseService) {
+        this.attendanceRollupRepository = attendanceRollupRepository;
+        this.seasonService = seasonService;
+        this.jobLeaseService = jobLeaseService;
+    }
+
+    /**
+     * Applies a roll call of a class group to the monthly totals of its students.
+     * Marks that overwrite a previous record already counted only adjust the attended count.
+     * The missing totals are created first, so the affected totals are then loaded and locked
+     * with a single query and concurrent roll calls of the same month wait for each other.
+     * A record overwritten in a month with no totals yet was never counted, so it is counted
+     * as a new mark.
+     *
+     * @param classGroup the class group the roll call belongs to
+     * @param date the date of the roll call
+     * @param attendances the attendance records just saved
+     * @param previousMarks the records the roll call overwrote, as attended flag by user ID
+     */
+    @Transactional
+    public void record(ClassGroup classGroup, LocalDate date, List<Attendance> attendances, Map<Integer, Boolean> previousMarks) {
+        if (attendances.isEmpty()) {
+            return;
+        }
+        LocalDate monthStart = date.withDayOfMonth(1);
+        Set<Integer> userIds = new HashSet<>(attendances.size());
+        for (Attendance attendance : attendances) {
+            userIds.add(attendance.getUser().getId());
+        }
+        this.attendanceRollupRepository.insertMissing(classGroup.getId(), monthStart, userIds);
+        Map<Integer, AttendanceRollup> rollups = new HashMap<>(userIds.size());
+        for (AttendanceRollup rollup : this.attendanceRollupRepository.findForUpdate(classGroup.getId(), monthStart, userIds)) {
+            rollups.put(rollup.getUser().getId(), rollup);
+        }
+
+        for (Attendance attendance : attendances) {
+            int userId = attendance.getUser().getId();
+            AttendanceRollup rollup = rollups.get(userId);
+            Boolean previous = rollup.getMarked() == 0 ? null : previousMarks.get(userId);
+            if (previous == null) {
+                rollup.setMarked(rollup.getMarked() + 1);
+            } else if (previous) {
+                rollup.setAttended(rollup.getAttended() - 1);
+            }
+            if (attendance.isAttended()) {
+                rollup.setAttended(rollup.getAttended() + 1);
+            }
+        }
+        this.attendanceRollupRepository.saveAll(rollups.values());
+    }
+
+    /**
+     * Rebuilds the monthly totals of the active season from the attendance records,
+     * so months counted only in part, such as the ones with records written before
+     * the totals existed, end up fully counted.
+     *
+     * @return the number of monthly totals written
+     */
+    @Transactional
+    public int rebuildActiveSeason() {
+        Season season = this.seasonService.seasonActive();
+        if (season == null) {
+            return 0;
+        }
+        LocalDate seasonStart = season.getInit().withDayOfMonth(1);
+        this.attendanceRollupRepository.deleteBetween(seasonStart, seasonStart.plusYears(1));
+        return this.attendanceRollupRepository.insertCountedBetween(seasonStart, seasonStart.plusYears(1));
+    }
+
+    /**
+     * Rebuilds the monthly totals of the active season every night, so that records
+     * written outside the application end up reflected in the attendance rates.
+     * This method is executed at 00:45 every day, by a single instance.
+     */
+    @Transactional
+    @Scheduled(cron = "0 45 0 * * ?")
+    public void scheduleRebuildAttendanceRollups() {
+        this.jobLeaseService.runExclusively(REBUILD_JOB, REBUILD_LEASE, this::rebuildActiveSeason);
+    }
+
+    /**
+     * Computes the attendance rate of a student over a range of months.
+     *
+     * @param userId the ID of the student
+     * @param from the first month included
+     * @param to the last month included
+     * @return the attendance rate of the student in the range
+     */
+    public AttendanceRateDto getStudentRate(int userId, YearMonth from, YearMonth to) {
+        return this.attendanceRollupRepository.sumByUser(userId, from.atDay(1), to.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Computes the attendance rate of a class group over a range of months.
+     *
+     * @param classGroupId the ID of the class group
+     * @param from the first month included
+     * @param to the last month included
+     * @return the attendance rate of the class group in the range
+     */
+    public AttendanceRateDto getClassGroupRate(int classGroupId, YearMonth from, YearMonth to) {
+        return this.attendanceRollupRepository.sumByClassGroup(classGroupId, from.atDay(1), to.plusMonths(1).atDay(1));
+    }
+}
@@ -1,24 +1,33 @@
 package clubbook.backend.service;
 
 import clubbook.backend.dtos.AttendanceDto;
+import clubbook.backend.dtos.AttendanceRateDto;
 import clubbook.backend.dtos.ClassGroupAttendanceDto;
 import clubbook.backend.dtos.UserAttendanceDto;
 import clubbook.backend.model.*;
 import clubbook.backend.model.notification.AttendanceNotificationFactory;
+import clubbook.backend.model.notification.Notification;
 import clubbook.backend.model.notification.NotificationFactory;
 import clubbook.backend.repository.AttendanceRepository;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for handling attendance-related operations.
@@ -32,7 +41,10 @@ public class AttendanceService {
     private final UserService userService;
     private final ClassGroupService classGroupService;
     private final SeasonService seasonService;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final AttendanceBitmapService attendanceBitmapService;
+    private final AttendanceRollupService attendanceRollupService;
+    private final AbsenceStreakService absenceStreakService;
 
     /**
      * Constructs an AttendanceService with the specified dependencies.
@@ -41,109 +53,205 @@ public class AttendanceService {
      * @param userService the service for user-related operations
      * @param classGroupService the service for class group-related operations
      * @param seasonService the service for season-related operations
-     * @param notificationService the service for managing notifications
+     * @param notificationOutboxService the service that delivers notifications asynchronously
+     * @param attendanceBitmapService the service for the compact attendance representation
+     * @param attendanceRollupService the service for the monthly attendance totals
+     * @param absenceStreakService the service that detects consecutive absences
      */
     @Autowired
-    public AttendanceService(AttendanceRepository attendanceRepository, UserService userService, ClassGroupService classGroupService, SeasonService seasonService, NotificationService notificationService) {
+    public AttendanceService(AttendanceRepository attendanceRepository, UserService userService, ClassGroupService classGroupService, SeasonService seasonService, NotificationOutboxService notificationOutboxService, AttendanceBitmapService attendanceBitmapService, AttendanceRollupService attendanceRollupService, AbsenceStreakService absenceStreakService) {
         this.attendanceRepository = attendanceRepository;
         this.userService = userService;
         this.classGroupService = classGroupService;
         this.seasonService = seasonService;
-        this.notificationService = notificationService;
+        this.notificationOutboxService = notificationOutboxService;
+        this.attendanceBitmapService = attendanceBitmapService;
+        this.attendanceRollupService = attendanceRollupService;
+        this.absenceStreakService = absenceStreakService;
     }
 
     /**
      * Saves attendance records for a given attendance DTO.
+     * Users are resolved with a single query, and attendance records are written
+     * as a JDBC batch, so the number of statements does not depend on the size of
+     * the class group. Absence notifications are written to the outbox in the same
+     * transaction and delivered in the background once it commits. Submitting the same date again
+     * overwrites the previous records, and students already registered as absent
+     * on that date are not notified twice. The attendance bitmaps of the active
+     * season, the monthly attendance totals and the absence streaks are updated in
+     * the same transaction, and students reaching the consecutive absence threshold
+     * get an escalation notification.
      *
      * @param attendanceDto the attendance data transfer object containing attendance information
      * @return the saved attendance DTO
+     * @throws NoSuchElementException if some of the user IDs do not exist
      * @throws RuntimeException if some users in the class group are not accounted for in the attendance records
      */
+    @Transactional
     public AttendanceDto saveAll(AttendanceDto attendanceDto) {
-        User user;
-        Attendance attendance;
-        List<Attendance> attendanceList = new ArrayList<>(30);
         ClassGroup classGroup = classGroupService.findById(attendanceDto.getClassGroup());
-        Set<User> userSet = new HashSet<>(classGroup.getStudents());
+        Set<Integer> pendingStudents = new HashSet<>(classGroup.getStudents().size());
+        for (User student : classGroup.getStudents()) {
+            pendingStudents.add(student.getId());
+        }
+
+        Set<Integer> userIds = new HashSet<>(attendanceDto.getUsersIdsAttended());
+        userIds.addAll(attendanceDto.getUsersIdsNotAttended());
+        Map<Integer, User> users = new HashMap<>(userIds.size());
+        for (User user : userService.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+        if (users.size() != userIds.size()) {
+            throw new NoSuchElementException();
+        }
+
+        Map<Integer, Boolean> previousMarks = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] mark : attendanceRepository.findMarks(attendanceDto.getDate(), userIds)) {
+                previousMarks.put(((Number) mark[0]).intValue(), (Boolean) mark[1]);
+            }
+        }
+
+        List<Attendance> attendanceList = new ArrayList<>(userIds.size());
+        List<Notification> notifications = new ArrayList<>(attendanceDto.getUsersIdsNotAttended().size());
         for (int userId: attendanceDto.getUsersIdsAttended()) {
-            user = userService.findById(userId);
-            userSet.remove(user);
-            attendance = new Attendance();
-            attendance.setUser(user);
-            attendance.setAttendanceDate(attendanceDto.getDate());
-            attendance.setAttended(true);
-            attendanceList.add(attendance);
+            pendingStudents.remove(userId);
+            attendanceList.add(this.createAttendance(users.get(userId), attendanceDto.getDate(), true));
         }
         for (int userId: attendanceDto.getUsersIdsNotAttended()) {
-            user = userService.findById(userId);
-            userSet.remove(user);
-            attendance = new Attendance();
-            attendance.setUser(user);
-            attendance.setAttendanceDate(attendanceDto.getDate());
-            attendance.setAttended(false);
-            attendanceList.add(attendance);
-            NotificationFactory notificationFactory = new AttendanceNotificationFactory(attendanceDto.getDate(), user);
-            notificationFactory.createNotification();
-            this.notificationService.save(notificationFactory.getNotification());
+            User user = users.get(userId);
+            pendingStudents.remove(userId);
+            attendanceList.add(this.createAttendance(user, attendanceDto.getDate(), false));
+            if (!Boolean.FALSE.equals(previousMarks.get(userId))) {
+                NotificationFactory notificationFactory = new AttendanceNotificationFactory(attendanceDto.getDate(), user);
+                notificationFactory.createNotification();
+                notifications.add(notificationFactory.getNotification());
+            }
         }
-        if (!userSet.isEmpty()) {
+        if (!pendingStudents.isEmpty()) {
             throw new RuntimeException();
         }
-        attendanceRepository.saveAll(attendanceList);
+        attendanceRepository.upsertAllInBatch(attendanceList);
+        attendanceBitmapService.record(attendanceList);
+        attendanceRollupService.record(classGroup, attendanceDto.getDate(), attendanceList, previousMarks);
+        notifications.addAll(absenceStreakService.record(attendanceList, previousMarks));
+        notificationOutboxService.enqueue(notifications);
         return attendanceDto;
     }
 
     /**
-     * Retrieves class dates for a specified month and class group.
+     * Creates an attendance record for a user on a given date.
      *
-     * @param month the month for which class dates are requested
-     * @param classGroup the ID of the class group
-     * @return a list of LocalDate objects representing class dates
+     * @param user the user the attendance refers to
+     * @param date the date of the attendance
+     * @param attended whether the user attended or not
+     * @return the attendance record
      */
-    private List<LocalDate> getClassDates(int month, int classGroup) {
-        List<java.sql.Date> sqlDates = attendanceRepository.getClassDates(month, classGroup);
-        return sqlDates.stream()
-                .map(java.sql.Date::toLocalDate)
-                .collect(Collectors.toList());
+    private Attendance createAttendance(User user, LocalDate date, boolean attended) {
+        Attendance attendance = new Attendance();
+        attendance.setUser(user);
+        attendance.setAttendanceDate(date);
+        attendance.setAttended(attended);
+        return attendance;
     }
 
     /**
-     * Retrieves the attendance status of a user for a specific date.
+     * Gets the attendance records for a class group for a specified month of the active season.
+     * The grid is built from the attendance bitmaps of the students, loaded with a single query,
+     * so the number of statements does not depend on the size of the class group.
      *
-     * @param userId the ID of the user
-     * @param date the date for which attendance is being checked
-     * @return Boolean indicating attendance status (true for attended, false for not attended, null if not found)
+     * @param month the month for which attendance records are requested
+     * @param classGroupId the ID of the class group
+     * @return a ClassGroupAttendanceDto containing the attendance records
      */
-    private Boolean getUserAttendance(int userId, LocalDate date) {
-        Attendance attendance = this.attendanceRepository.findAttendance(userId, date);
-        if (attendance == null) {
-            return null;
+    public ClassGroupAttendanceDto getClassGroupAttendanceWithYearAndMonth(int month, int classGroupId) {
+        LocalDate seasonStart = this.attendanceBitmapService.getSeasonStart();
+        if (seasonStart == null) {
+            return new ClassGroupAttendanceDto(new ArrayList<>(), new ArrayList<>());
         }
-        return attendance.isAttended();
+        List<Object[]> rows = this.attendanceBitmapService.findClassGroupBitmaps(classGroupId, seasonStart);
+        return this.buildMonthGrid(this.getSeasonMonth(seasonStart, month), seasonStart, rows);
     }
 
     /**
-     * Gets the attendance records for a class group for a specified year and month.
+     * Returns the month of the season with the given month number.
+     * Months before the month the season started belong to the following year.
      *
-     * @param month the month for which attendance records are requested
-     * @param classGroupId the ID of the class group
-     * @return a ClassGroupAttendanceDto containing the attendance records
+     * @param seasonStart the first day of the season
+     * @param month the month number (1 for January, 2 for February, etc.)
+     * @return the year and month within the season
      */
-    public ClassGroupAttendanceDto getClassGroupAttendanceWithYearAndMonth(int month, int classGroupId) {
-        List<LocalDate> dates = this.getClassDates(month, classGroupId);
-        ClassGroup classGroup = classGroupService.findById(classGroupId);
-        List<User> userList = classGroup.getStudents();
-        List<UserAttendanceDto> userAttendanceDtoList = new ArrayList<>(userList.size());
-        for (User user : userList){
-            userAttendanceDtoList.add(new UserAttendanceDto(user.getId(), user.getFirstName(), user.getLastName(), new ArrayList<>()));
+    private YearMonth getSeasonMonth(LocalDate seasonStart, int month) {
+        int year = month >= seasonStart.getMonthValue() ? seasonStart.getYear() : seasonStart.getYear() + 1;
+        return YearMonth.of(year, month);
+    }
+
+    /**
+     * Builds the attendance grid of one month from the attendance bitmaps of the students.
+     * The class dates are the days of the month in which any student was marked.
+     *
+     * @param month the month of the grid
+     * @param seasonStart the first day of the season the bitmaps belong to
+     * @param rows the students as user ID, first name, last name, present bitmap and marked bitmap
+     * @return a ClassGroupAttendanceDto containing the attendance records of the month
+     */
+    private ClassGroupAttendanceDto buildMonthGrid(YearMonth month, LocalDate seasonStart, List<Object[]> rows) {
+        int from = AttendanceBitmap.ordinal(seasonStart, month.atDay(1));
+        int to = AttendanceBitmap.ordinal(seasonStart, month.plusMonths(1).atDay(1));
+
+        List<BitSet> presentList = new ArrayList<>(rows.size());
+        List<BitSet> markedList = new ArrayList<>(rows.size());
+        BitSet classDays = new BitSet();
+        for (Object[] row : rows) {
+            BitSet present = row[3] == null ? new BitSet() : BitSet.valueOf((byte[]) row[3]).get(from, to);
+            BitSet marked = row[4] == null ? new BitSet() : BitSet.valueOf((byte[]) row[4]).get(from, to);
+            presentList.add(present);
+            markedList.add(marked);
+            classDays.or(marked);
         }
-        for (LocalDate date : dates) {
-            for (UserAttendanceDto userAttendanceDto : userAttendanceDtoList){
-                userAttendanceDto.getAttendanceList().add(this.getUserAttendance(userAttendanceDto.getId(), date));
+
+        List<LocalDate> dates = new ArrayList<>(classDays.cardinality());
+        for (int day = classDays.nextSetBit(0); day >= 0; day = classDays.nextSetBit(day + 1)) {
+            dates.add(month.atDay(day + 1));
+        }
+
+        List<UserAttendanceDto> users = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            BitSet present = presentList.get(i);
+            BitSet marked = markedList.get(i);
+            List<Boolean> attendanceList = new ArrayList<>(dates.size());
+            for (int day = classDays.nextSetBit(0); day >= 0; day = classDays.nextSetBit(day + 1)) {
+                attendanceList.add(marked.get(day) ? present.get(day) : null);
             }
+            users.add(new UserAttendanceDto(((Number) row[0]).intValue(), (String) row[1], (String) row[2], attendanceList));
         }
 
-        return new ClassGroupAttendanceDto(dates, userAttendanceDtoList);
+        return new ClassGroupAttendanceDto(dates, users);
+    }
+
+    /**
+     * Computes the attendance rate of a student over a range of months.
+     *
+     * @param userId the ID of the student
+     * @param from the first month included
+     * @param to the last month included
+     * @return the attendance rate of the student in the range
+     */
+    public AttendanceRateDto getStudentRate(int userId, YearMonth from, YearMonth to) {
+        return this.attendanceRollupService.getStudentRate(userId, from, to);
+    }
+
+    /**
+     * Computes the attendance rate of a class group over a range of months.
+     *
+     * @param classGroupId the ID of the class group
+     * @param from the first month included
+     * @param to the last month included
+     * @return the attendance rate of the class group in the range
+     */
+    public AttendanceRateDto getClassGroupRate(int classGroupId, YearMonth from, YearMonth to) {
+        return this.attendanceRollupService.getClassGroupRate(classGroupId, from, to);
     }
 
     /**
@@ -161,58 +269,142 @@ public class AttendanceService {
     }
 
     /**
-     * Generates a PDF report of attendance for a specific class group.
+     * Generates a PDF report of attendance for a specific class group and writes it to the given stream.
+     * The attendance of the active season is read from the bitmaps of the students with a single query,
+     * and every month page is flushed to the stream as soon as it has been written.
      *
      * @param classGroupId the ID of the class group for which the report is generated
-     * @return a byte array containing the PDF data
+     * @param out the stream the PDF data is written to
+     * @throws IOException if an error occurs while writing to the stream
      */
-    public byte[] generatePdf(int classGroupId) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    public void generatePdf(int classGroupId, OutputStream out) throws IOException {
+        LocalDate seasonStart = this.attendanceBitmapService.getSeasonStart();
+        List<Object[]> rows = this.attendanceBitmapService.findClassGroupBitmaps(classGroupId, seasonStart);
         Document document = new Document(PageSize.A4.rotate());
 
         try {
-            PdfWriter.getInstance(document, out);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
-            LocalDate date = this.seasonService.seasonActive().getInit();
-
-            int monthValue = date.getMonthValue();
-            int year = date.getYear();
 
-            for (int month = monthValue - 1; month < 12; month++) {
-                this.generateDataForMonth(classGroupId, document, month, year);
-            }
-            for (int month = 0; month < monthValue - 1; month++) {
-                this.generateDataForMonth(classGroupId, document, month, year + 1);
+            YearMonth month = YearMonth.from(seasonStart);
+            for (int i = 0; i < 12; i++) {
+                this.generateDataForMonth(document, month.getMonthValue() - 1, month.getYear(), this.buildMonthGrid(month, seasonStart, rows));
+                out.flush();
+                month = month.plusMonths(1);
             }
 
             document.close();
         } catch (DocumentException e) {
             throw new RuntimeException(e);
         }
+        out.flush();
+    }
+
+    /**
+     * Writes the attendance of the active season of every class group taught by a teacher
+     * as CSV to the given stream. The records are read through a forward-only cursor and
+     * written as they arrive, so memory use does not depend on the size of the export.
+     *
+     * @param teacherId the ID of the teacher
+     * @param out the stream the CSV data is written to
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    @Transactional
+    public void generateTeacherCsv(int teacherId, OutputStream out) throws IOException {
+        LocalDate seasonStart = this.attendanceBitmapService.getSeasonStart();
+        Map<Integer, String> classGroupNames = new HashMap<>();
+        for (ClassGroup classGroup : this.classGroupService.findByTeacherId(teacherId)) {
+            classGroupNames.put(classGroup.getId(), classGroup.getName());
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("Clase,Nombre,Apellidos,Fecha,Asistencia\n");
+        if (!classGroupNames.isEmpty()) {
+            try (Stream<Object[]> rows = this.attendanceRepository.streamClassGroupsAttendanceBetween(classGroupNames.keySet(), seasonStart, seasonStart.plusYears(1))) {
+                Iterator<Object[]> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    Object[] row = iterator.next();
+                    writer.write(this.toCsvField(classGroupNames.get(((Number) row[0]).intValue())));
+                    writer.write(',');
+                    writer.write(this.toCsvField((String) row[2]));
+                    writer.write(',');
+                    writer.write(this.toCsvField((String) row[3]));
+                    writer.write(',');
+                    writer.write(this.toLocalDate(row[4]).toString());
+                    writer.write(',');
+                    writer.write((Boolean) row[5] ? "A" : "F");
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Quotes a CSV field when it contains separators, quotes or line breaks.
+     *
+     * @param value the value of the field
+     * @return the value ready to be written as a CSV field
+     */
+    private String toCsvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Converts a date column returned by a native query into a LocalDate.
+     *
+     * @param value the raw column value
+     * @return the LocalDate represented by the value
+     */
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
 
-        return out.toByteArray();
+    /**
+     * Rebuilds the attendance bitmaps of the active season from the attendance records.
+     *
+     * @return the number of bitmaps written
+     */
+    public int rebuildAttendanceBitmaps() {
+        return this.attendanceBitmapService.rebuildActiveSeason();
     }
 
     /**
-     * Generates data for a specific month and adds it to the provided PDF document.
+     * Rebuilds the monthly attendance totals of the active season from the attendance records.
+     *
+     * @return the number of monthly totals written
+     */
+    public int rebuildAttendanceRollups() {
+        return this.attendanceRollupService.rebuildActiveSeason();
+    }
+
+    /**
+     * Adds the attendance data of a specific month to the provided PDF document.
      *
-     * @param classGroupId the ID of the class group for which data is generated
      * @param document the PDF document to which the data will be added
      * @param month the month for which data is generated (0-based index)
      * @param year the year for which data is generated
+     * @param classGroupDto the attendance grid of the month
      * @throws DocumentException if an error occurs while adding data to the document
      */
-    private void generateDataForMonth(int classGroupId, Document document, int month, int year) throws DocumentException {
+    private void generateDataForMonth(Document document, int month, int year, ClassGroupAttendanceDto classGroupDto) throws DocumentException {
         document.newPage();
 
         String monthName = this.getSpanishMonth(month);
 
         document.add(new Paragraph("Mes: " + monthName + " (" + year + ")\n"));
 
-        ClassGroupAttendanceDto classGroupDto = this.getClassGroupAttendanceWithYearAndMonth(
-                month + 1, classGroupId);
-
-        if (classGroupDto == null || classGroupDto.getDatesList().isEmpty()) {
+        if (classGroupDto.getDatesList().isEmpty()) {
             document.add(new Paragraph("No hay datos para el mes de " + monthName));
         } else {
             float[] columnWidths = new float[classGroupDto.getDatesList().size() + 1];
@@ -0,0 +1,220 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventDto;
+import clubbook.backend.model.ClassGroup;
+import clubbook.backend.model.Schedule;
+import clubbook.backend.model.Season;
+import clubbook.backend.model.User;
+import clubbook.backend.model.enumClasses.RoleEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Service class that builds the iCalendar feed of a user: the upcoming events the user
+ * can see and the weekly classes of the user's class groups during the active season.
+ * Calendar clients cannot log in, so a feed is fetched with a secret token of its user.
+ * A feed is identified by a strong entity tag made of the change versions it is built
+ * from and the current day, since past events leave the feed at midnight, so clients
+ * can revalidate it without downloading it again. Feeds are built from the database,
+ * which the versions describe, and the versions are read first, so a feed is never
+ * tagged with versions newer than its content.
+ */
+@Service
+public class CalendarFeedService {
+
+    private static final String CRLF = "\r\n";
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final EventService eventService;
+    private final ClassGroupService classGroupService;
+    private final SeasonService seasonService;
+    private final CalendarVersionService calendarVersionService;
+    private final UserService userService;
+
+    /**
+     * Constructs a CalendarFeedService with the specified dependencies.
+     *
+     * @param eventService the service for events
+     * @param classGroupService the service for class groups
+     * @param seasonService the service for seasons
+     * @param calendarVersionService the service that keeps the change versions of the feeds
+     * @param userService the service for users
+     */
+    @Autowired
+    public CalendarFeedService(EventService eventService, ClassGroupService classGroupService,
+                               SeasonService seasonService, CalendarVersionService calendarVersionService,
+                               UserService userService) {
+        this.eventService = eventService;
+        this.classGroupService = classGroupService;
+        this.seasonService = seasonService;
+        this.calendarVersionService = calendarVersionService;
+        this.userService = userService;
+    }
+
+    /**
+     * Returns the secret token of the feed of a user, creating it the first time.
+     *
+     * @param email the email of the user
+     * @return the token of the feed, or null if the user does not exist
+     */
+    public String getFeedToken(String email) {
+        User user = this.userService.findByEmail(email);
+        return user == null ? null : this.userService.getCalendarToken(user.getId());
+    }
+
+    /**
+     * Finds the user a feed token belongs to.
+     *
+     * @param token the token of the feed
+     * @return the user, or null if no user with access has the token
+     */
+    public User findFeedOwner(String token) {
+        User user = this.userService.findByCalendarToken(token);
+        return user == null || !user.isAllowedAccess() ? null : user;
+    }
+
+    /**
+     * Returns the entity tag of the feed of a user, reading only the change versions.
+     *
+     * @param user the user
+     * @return the quoted entity tag
+     */
+    public String getETag(User user) {
+        return "\"" + user.getId() + "-" + user.getRole().getName().ordinal() + "-" + LocalDate.now().toEpochDay() + "-"
+                + this.calendarVersionService.getVersions(user.getId()) + "\"";
+    }
+
+    /**
+     * Builds the feed of a user based on their role. Administrators see every upcoming event;
+     * teachers and students only once the season has started, teachers every upcoming event and
+     * the classes they teach, students the events they can attend and the classes they take.
+     *
+     * @param user the user
+     * @return the feed in iCalendar format
+     */
+    public String buildFeed(User user) {
+        int userId = user.getId();
+        RoleEnum role = user.getRole().getName();
+        LocalDate today = LocalDate.now();
+        String stamp = DATE.format(today) + "T000000Z";
+        StringBuilder feed = new StringBuilder(4096);
+        appendLine(feed, "BEGIN:VCALENDAR");
+        appendLine(feed, "VERSION:2.0");
+        appendLine(feed, "PRODID:-//ClubBook//Calendar//ES");
+        appendLine(feed, "CALSCALE:GREGORIAN");
+        appendLine(feed, "X-WR-CALNAME:ClubBook");
+
+        Season season = this.seasonService.seasonActive();
+        if (role == RoleEnum.ADMINISTRATOR || season != null) {
+            List<EventDto> events = role == RoleEnum.STUDENT
+                    ? this.eventService.findCommittedFutureEventsThatAdmit(user.getBirthday())
+                    : this.eventService.findAllFutureEvents();
+            for (EventDto event : events) {
+                appendEvent(feed, event, stamp);
+            }
+        }
+        if (role != RoleEnum.ADMINISTRATOR && season != null) {
+            List<ClassGroup> classGroups = role == RoleEnum.STUDENT
+                    ? this.classGroupService.findByStudentId(userId)
+                    : this.classGroupService.findByTeacherId(userId);
+            for (ClassGroup classGroup : classGroups) {
+                for (Schedule schedule : classGroup.getSchedules()) {
+                    appendClass(feed, classGroup, schedule, season.getInit(), stamp);
+                }
+            }
+        }
+
+        appendLine(feed, "END:VCALENDAR");
+        return feed.toString();
+    }
+
+    /**
+     * Appends an event as an all-day entry.
+     *
+     * @param feed the feed being built
+     * @param event the event
+     * @param stamp the creation instant of the feed
+     */
+    private static void appendEvent(StringBuilder feed, EventDto event, String stamp) {
+        appendLine(feed, "BEGIN:VEVENT");
+        appendLine(feed, "UID:event-" + event.getId() + "@clubbook");
+        appendLine(feed, "DTSTAMP:" + stamp);
+        appendLine(feed, "DTSTART;VALUE=DATE:" + DATE.format(event.getDate()));
+        appendLine(feed, "DTEND;VALUE=DATE:" + DATE.format(event.getDate().plusDays(1)));
+        appendLine(feed, "SUMMARY:" + escape(event.getTitle()));
+        appendLine(feed, "LOCATION:" + escape(event.getAddress()));
+        if (event.getAdditionalInfo() != null) {
+            appendLine(feed, "DESCRIPTION:" + escape(event.getAdditionalInfo()));
+        }
+        appendLine(feed, "END:VEVENT");
+    }
+
+    /**
+     * Appends a weekly class as a recurring entry starting on its first occurrence of the season.
+     *
+     * @param feed the feed being built
+     * @param classGroup the class group
+     * @param schedule the schedule of the class
+     * @param seasonInit the first day of the season
+     * @param stamp the creation instant of the feed
+     */
+    private static void appendClass(StringBuilder feed, ClassGroup classGroup, Schedule schedule, LocalDate seasonInit, String stamp) {
+        DayOfWeek day = DayOfWeek.valueOf(schedule.getWeekDay().name());
+        LocalDateTime start = seasonInit.with(TemporalAdjusters.nextOrSame(day)).atTime(schedule.getInit());
+        appendLine(feed, "BEGIN:VEVENT");
+        appendLine(feed, "UID:schedule-" + schedule.getId() + "@clubbook");
+        appendLine(feed, "DTSTAMP:" + stamp);
+        appendLine(feed, "DTSTART:" + DATE_TIME.format(start));
+        appendLine(feed, "DURATION:PT" + schedule.getDuration() + "M");
+        appendLine(feed, "RRULE:FREQ=WEEKLY;BYDAY=" + day.name().substring(0, 2));
+        appendLine(feed, "SUMMARY:" + escape(classGroup.getName()));
+        appendLine(feed, "LOCATION:" + escape(classGroup.getAddress()));
+        appendLine(feed, "END:VEVENT");
+    }
+
+    /**
+     * Escapes the characters with a meaning in iCalendar text values.
+     *
+     * @param text the text
+     * @return the escaped text
+     */
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    /**
+     * Appends a content line, folding it every 75 octets without splitting a character.
+     *
+     * @param feed the feed being built
+     * @param line the content line
+     */
+    private static void appendLine(StringBuilder feed, String line) {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + size > MAX_LINE_OCTETS) {
+                feed.append(CRLF).append(' ');
+                octets = 1;
+            }
+            feed.appendCodePoint(codePoint);
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        feed.append(CRLF);
+    }
+}
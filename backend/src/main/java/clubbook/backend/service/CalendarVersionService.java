@@ -0,0 +1,121 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.CalendarVersion;
+import clubbook.backend.repository.CalendarVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Service class that keeps the change versions the calendar feeds are identified by.
+ * Events and the season are shared by every feed, so they have one version each;
+ * class groups and users have a version per user. Versions are stored in the database,
+ * so every instance of the backend identifies a feed the same way, and are increased
+ * in the transaction making the change, so a version is never seen before the data it
+ * stands for, and the data never commits without its version.
+ * The version of the events, which the in-memory views of the events compare against to
+ * find changes made by other instances, is read from the database at most once per check
+ * interval, so those views can be consulted on every request.
+ */
+@Service
+public class CalendarVersionService {
+
+    private static final String EVENTS = "events";
+    private static final String SEASON = "season";
+    private static final String USER_PREFIX = "user:";
+
+    private final CalendarVersionRepository calendarVersionRepository;
+    private final long checkInterval;
+    private volatile EventsVersion eventsVersion;
+
+    /**
+     * Constructs a CalendarVersionService with the specified repository and check interval.
+     *
+     * @param calendarVersionRepository the repository for calendar versions
+     * @param checkInterval how long the version of the events read from the database is served before being read again
+     */
+    @Autowired
+    public CalendarVersionService(CalendarVersionRepository calendarVersionRepository, @Value("${calendar.events-version.check-interval:PT2S}") Duration checkInterval) {
+        this.calendarVersionRepository = calendarVersionRepository;
+        this.checkInterval = checkInterval.toNanos();
+    }
+
+    /**
+     * Records a change to the events in the current transaction.
+     *
+     * @return the version given to the change, visible to other transactions once it commits
+     */
+    public long touchEvents() {
+        return this.calendarVersionRepository.incrementAndGet(EVENTS);
+    }
+
+    /**
+     * Records a change to the season in the current transaction.
+     */
+    public void touchSeason() {
+        this.calendarVersionRepository.incrementAll(List.of(SEASON));
+    }
+
+    /**
+     * Records a change to the class groups or the profile of some users in the current transaction.
+     *
+     * @param userIds the IDs of the users whose feed changed
+     */
+    public void touchUsers(Collection<Integer> userIds) {
+        Set<String> scopes = new TreeSet<>();
+        for (Integer userId : userIds) {
+            scopes.add(USER_PREFIX + userId);
+        }
+        this.calendarVersionRepository.incrementAll(scopes);
+    }
+
+    /**
+     * Returns the versions the feed of a user is built from, with a single query.
+     *
+     * @param userId the ID of the user
+     * @return the versions of the events, the season and the user, separated by dots
+     */
+    public String getVersions(int userId) {
+        String user = USER_PREFIX + userId;
+        Map<String, Long> versions = new HashMap<>(3);
+        for (CalendarVersion calendarVersion : this.calendarVersionRepository.findAllById(List.of(EVENTS, SEASON, user))) {
+            versions.put(calendarVersion.getScope(), calendarVersion.getVersion());
+        }
+        return versions.getOrDefault(EVENTS, 0L) + "." + versions.getOrDefault(SEASON, 0L) + "." + versions.getOrDefault(user, 0L);
+    }
+
+    /**
+     * Returns the version of the events, increased by every instance saving or deleting events.
+     * The version is read from the database at most once per check interval, so it may lag
+     * behind the committed one by up to that interval.
+     *
+     * @return the version of the events
+     */
+    public long getEventsVersion() {
+        long now = System.nanoTime();
+        EventsVersion current = this.eventsVersion;
+        if (current != null && now - current.readAt < this.checkInterval) {
+            return current.version;
+        }
+        long version = this.calendarVersionRepository.findById(EVENTS).map(CalendarVersion::getVersion).orElse(0L);
+        this.eventsVersion = new EventsVersion(version, now);
+        return version;
+    }
+
+    /**
+     * Version of the events read from the database, with the instant it was read at.
+     */
+    private static final class EventsVersion {
+
+        private final long version;
+        private final long readAt;
+
+        private EventsVersion(long version, long readAt) {
+            this.version = version;
+            this.readAt = readAt;
+        }
+    }
+}
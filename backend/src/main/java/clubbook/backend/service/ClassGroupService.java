@@ -22,6 +22,7 @@ public class ClassGroupService {
     private final ClassGroupRepository classGroupRepository;
     private final UserService userService;
     private final ScheduleService scheduleService;
+    private final CalendarVersionService calendarVersionService;
 
     /**
      * Constructs an instance of ClassGroupService with the specified dependencies.
@@ -29,12 +30,14 @@ public class ClassGroupService {
      * @param classGroupRepository the repository used for class group data access.
      * @param userService the service responsible for user management.
      * @param scheduleService the service responsible for schedule management.
+     * @param calendarVersionService the service that keeps the change versions of the calendar feeds.
      */
     @Autowired
-    public ClassGroupService(ClassGroupRepository classGroupRepository, UserService userService, ScheduleService scheduleService) {
+    public ClassGroupService(ClassGroupRepository classGroupRepository, UserService userService, ScheduleService scheduleService, CalendarVersionService calendarVersionService) {
         this.classGroupRepository = classGroupRepository;
         this.userService = userService;
         this.scheduleService = scheduleService;
+        this.calendarVersionService = calendarVersionService;
     }
 
     /**
@@ -53,6 +56,7 @@ public class ClassGroupService {
      * @return the created class group.
      * @throws IllegalArgumentException if the input data is invalid.
      */
+    @Transactional
     public ClassGroup create(RegisterClassGroupDto registerClassGroupDto) throws IllegalArgumentException {
         ClassGroup classGroup = new ClassGroup();
         classGroup.setName(registerClassGroupDto.getName());
@@ -77,6 +81,7 @@ public class ClassGroupService {
         classGroup.setStudents(new ArrayList<>());
 
         this.classGroupRepository.save(classGroup);
+        this.calendarVersionService.touchUsers(memberIds(classGroup));
 
         return classGroup;
     }
@@ -86,9 +91,12 @@ public class ClassGroupService {
      *
      * @param id the ID of the class group to be deleted.
      */
+    @Transactional
     public void delete(int id) {
-        ClassGroup classGroup = classGroupRepository.getReferenceById(id);
-        classGroupRepository.delete(classGroup);
+        classGroupRepository.findById(id).ifPresent(classGroup -> {
+            this.calendarVersionService.touchUsers(memberIds(classGroup));
+            classGroupRepository.delete(classGroup);
+        });
     }
 
     /**
@@ -101,6 +109,26 @@ public class ClassGroupService {
         return classGroupRepository.findById(id).orElseThrow();
     }
 
+    /**
+     * Finds the class groups taught by a teacher.
+     *
+     * @param teacherId the ID of the teacher.
+     * @return the class groups of the teacher.
+     */
+    public List<ClassGroup> findByTeacherId(int teacherId) {
+        return classGroupRepository.findByTeacherId(teacherId);
+    }
+
+    /**
+     * Finds the class groups a student attends.
+     *
+     * @param studentId the ID of the student.
+     * @return the class groups of the student.
+     */
+    public List<ClassGroup> findByStudentId(int studentId) {
+        return classGroupRepository.findByStudentId(studentId);
+    }
+
     /**
      * Updates an existing class group with new information.
      *
@@ -110,6 +138,7 @@ public class ClassGroupService {
      */
     @Transactional
     public ClassGroup update(ClassGroup classGroup, RegisterClassGroupDto classGroupDto) {
+        Set<Integer> affected = memberIds(classGroup);
         classGroup.setName(classGroupDto.getName());
         classGroup.setAddress(classGroupDto.getAddress());
 
@@ -143,6 +172,8 @@ public class ClassGroupService {
         classGroup.setSchedules(schedules);
 
         classGroupRepository.save(classGroup);
+        affected.addAll(memberIds(classGroup));
+        this.calendarVersionService.touchUsers(affected);
 
         return classGroupRepository.findById(classGroup.getId()).orElseThrow();
     }
@@ -164,6 +195,7 @@ public class ClassGroupService {
      * @param studentsIds the IDs of the students to be added.
      * @return the list of students in the class group after addition.
      */
+    @Transactional
     public List<User> addNewStudentsClassGroup(int id, List<Integer> studentsIds) {
         ClassGroup classGroup = classGroupRepository.findById(id).orElseThrow();
         List<User> students = classGroup.getStudents();
@@ -176,6 +208,7 @@ public class ClassGroupService {
         }
         classGroup.setStudents(students);
         classGroupRepository.save(classGroup);
+        this.calendarVersionService.touchUsers(studentsIds);
         return students;
     }
 
@@ -187,6 +220,7 @@ public class ClassGroupService {
      * @return the list of students in the class group after removal.
      * @throws NoSuchElementException if one or more specified students are not found.
      */
+    @Transactional
     public List<User> removeStudentsClassGroup(int id, List<Integer> studentsIds) {
 
         ClassGroup classGroup = classGroupRepository.findById(id).orElseThrow();
@@ -212,7 +246,24 @@ public class ClassGroupService {
 
         students.removeAll(usersRemove);
         this.classGroupRepository.save(classGroup);
+        this.calendarVersionService.touchUsers(studentsIds);
         return students;
     }
 
+    /**
+     * Collects the IDs of the teachers and students of a class group, whose calendar feeds show its classes.
+     *
+     * @param classGroup the class group.
+     * @return the IDs of the members of the class group.
+     */
+    private static Set<Integer> memberIds(ClassGroup classGroup) {
+        Set<Integer> ids = new HashSet<>();
+        for (User teacher : classGroup.getTeachers()) {
+            ids.add(teacher.getId());
+        }
+        for (User student : classGroup.getStudents()) {
+            ids.add(student.getId());
+        }
+        return ids;
+    }
 }
@@ -1,6 +1,10 @@
 package clubbook.backend.service;
 
+import clubbook.backend.dtos.EventAttendanceStatusDto;
+import clubbook.backend.dtos.EventChangeDto;
 import clubbook.backend.dtos.EventDto;
+import clubbook.backend.dtos.EventHeadcountDto;
+import clubbook.backend.dtos.EventRosterEntryDto;
 import clubbook.backend.dtos.UpdateEventAttendanceDto;
 import clubbook.backend.model.*;
 import clubbook.backend.model.enumClasses.RoleEnum;
@@ -9,79 +13,309 @@ import clubbook.backend.model.notification.ModifyEventNotificationFactory;
 import clubbook.backend.model.notification.NewEventNotificationFactory;
 import clubbook.backend.model.notification.NotificationFactory;
 import clubbook.backend.repository.EventAttendanceRepository;
+import clubbook.backend.repository.EventRepository;
+import clubbook.backend.repository.EventSlotsRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing event attendance functionality.
+ * Events may have a capacity. Their slots are handed out by a conditional update on the
+ * slot counter of the event, taken before the reply itself, so every change to the slots of
+ * an event is serialized on that counter and the attending users never exceed the capacity.
+ * Users confirming once the event is full are put on a waitlist in order of arrival, and a
+ * slot given back is handed to the first user waiting in the same transaction.
  */
 @Service
 public class EventAttendanceService {
 
     private final EventAttendanceRepository eventAttendanceRepository;
-    private final UserService userService;
+    private final EventRepository eventRepository;
+    private final EventSlotsRepository eventSlotsRepository;
     private final RoleService roleService;
     private final NotificationService notificationService;
+    private final EventHeadcountService eventHeadcountService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final int maxAttempts;
 
     /**
      * Constructs an instance of {@link EventAttendanceService}.
      *
      * @param eventAttendanceRepository the repository for event attendance records
-     * @param userService the service for user-related operations
+     * @param eventRepository the repository for events
+     * @param eventSlotsRepository the repository for the slot counters of the events with a capacity
      * @param roleService the service for role-related operations
      * @param notificationService the service for managing notifications
+     * @param eventHeadcountService the service for the RSVP totals of events
+     * @param applicationEventPublisher the publisher of the RSVP changes pushed to the clients
+     * @param maxAttempts the number of times a reply is tried before giving up on a record that keeps changing
      */
     @Autowired
-    public EventAttendanceService(EventAttendanceRepository eventAttendanceRepository, UserService userService, RoleService roleService, NotificationService notificationService){
+    public EventAttendanceService(EventAttendanceRepository eventAttendanceRepository, EventRepository eventRepository, EventSlotsRepository eventSlotsRepository, RoleService roleService, NotificationService notificationService, EventHeadcountService eventHeadcountService,
+                                  ApplicationEventPublisher applicationEventPublisher,
+                                  @Value("${event.attendance.max-attempts:5}") int maxAttempts){
         this.eventAttendanceRepository = eventAttendanceRepository;
-        this.userService = userService;
+        this.eventRepository = eventRepository;
+        this.eventSlotsRepository = eventSlotsRepository;
         this.roleService = roleService;
         this.notificationService = notificationService;
+        this.eventHeadcountService = eventHeadcountService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.maxAttempts = maxAttempts;
     }
 
     /**
-     * Initializes attendance for the specified event by saving event attendance records
-     * for all students and teachers associated with the event.
+     * Initializes attendance for the specified event by registering all eligible students
+     * and teachers and notifying them. Both steps are single set-based statements, so the
+     * cost of creating an event does not grow with the number of club members.
      *
      * @param event the event for which attendance is to be initialized
      */
+    @Transactional
     public void initializeAttendance(Event event) {
-        Role role = roleService.findByName(RoleEnum.STUDENT);
+        this.eventAttendanceRepository.insertEligibleAttendances(event.getId(), event.getBirthYearStart(), event.getBirthYearEnd());
+        this.eventHeadcountService.initialize(event.getId());
 
-        List<User> students = this.userService.findUserBornBetween(event.getBirthYearStart(), event.getBirthYearEnd(), role);
-        EventAttendance eventAttendance;
-        for (User user : students) {
-            eventAttendance = new EventAttendance(event, user, null);
-            this.eventAttendanceRepository.save(eventAttendance);
+        NotificationFactory notificationFactory = new NewEventNotificationFactory(event.getDate(), null);
+        notificationFactory.createNotification();
+        this.notificationService.saveForEventAttendees(notificationFactory.getNotification(), event.getId());
+    }
 
-            NotificationFactory notificationFactory = new NewEventNotificationFactory(event.getDate(), user);
-            notificationFactory.createNotification();
-            this.notificationService.save(notificationFactory.getNotification());
+    /**
+     * Updates the attendance status for a given event attendance record and moves the
+     * reply between the RSVP totals of its event.
+     * The status is set with a compare-and-set on the version of the record, so a change made
+     * concurrently, by another reply or by the end of the inscription, is never overwritten
+     * unseen: the record is read again and the update retried, up to the configured attempts.
+     * If the event has a capacity, a confirmation takes a slot, or puts the user on the waitlist
+     * when there is none left, and leaving a slot hands it to the first user waiting.
+     * Any other reply takes the user off the waitlist. The capacity of the event is locked
+     * before it is read, so it cannot change until the reply commits.
+     *
+     * @param updateEventAttendanceDto DTO containing the ID and new status for the event attendance
+     * @return true if the user was put on the waitlist instead of confirmed, false otherwise
+     * @throws OptimisticLockingFailureException if the record kept changing on every attempt
+     */
+    @Transactional
+    public boolean saveEventAttendance(UpdateEventAttendanceDto updateEventAttendanceDto) {
+        int eventAttendanceId = updateEventAttendanceDto.getEventAttendanceId();
+        Boolean status = updateEventAttendanceDto.getStatus();
+        this.eventRepository.lockCapacity(this.eventAttendanceRepository.findStatusById(eventAttendanceId).orElseThrow().getEventId());
+        for (int attempt = 0; attempt < this.maxAttempts; attempt++) {
+            EventAttendanceStatusDto current = this.eventAttendanceRepository.findStatusById(eventAttendanceId).orElseThrow();
+            boolean attending = Boolean.TRUE.equals(current.getStatus());
+            if (current.getCapacity() == null || attending == Boolean.TRUE.equals(status)) {
+                if (this.eventAttendanceRepository.compareAndSetStatus(eventAttendanceId, current.getVersion(), status, null) == 1) {
+                    this.recordReply(current.getEventId(), current.getStatus(), status);
+                    return false;
+                }
+                continue;
+            }
+
+            this.lockSlots(current.getEventId(), current.getCapacity());
+            if (attending) {
+                if (this.eventAttendanceRepository.compareAndSetStatus(eventAttendanceId, current.getVersion(), status, null) == 1) {
+                    this.eventSlotsRepository.giveBack(current.getEventId());
+                    int promoted = this.promoteWaitlisted(current.getEventId());
+                    this.recordReply(current.getEventId(), current.getStatus(), status);
+                    this.recordAdmitted(current.getEventId(), promoted);
+                    return false;
+                }
+            } else if (this.eventSlotsRepository.take(current.getEventId()) == 1) {
+                if (this.eventAttendanceRepository.compareAndSetStatus(eventAttendanceId, current.getVersion(), Boolean.TRUE, null) == 1) {
+                    this.recordReply(current.getEventId(), current.getStatus(), Boolean.TRUE);
+                    return false;
+                }
+                this.eventSlotsRepository.giveBack(current.getEventId());
+            } else if (current.getWaitlistTicket() != null) {
+                if (this.eventAttendanceRepository.findStatusById(eventAttendanceId).orElseThrow().getVersion() == current.getVersion()) {
+                    return true;
+                }
+            } else {
+                this.eventSlotsRepository.incrementTicket(current.getEventId());
+                long ticket = this.eventSlotsRepository.findLastTicket(current.getEventId());
+                if (this.eventAttendanceRepository.compareAndSetStatus(eventAttendanceId, current.getVersion(), null, ticket) == 1) {
+                    this.recordReply(current.getEventId(), current.getStatus(), null);
+                    return true;
+                }
+            }
         }
+        throw new OptimisticLockingFailureException("Event attendance " + eventAttendanceId + " changed on every attempt");
+    }
 
-        List<User> teachers = this.userService.getAllTeachers();
-        for (User user : teachers) {
-            eventAttendance = new EventAttendance(event, user, null);
-            this.eventAttendanceRepository.save(eventAttendance);
+    /**
+     * Sets the capacity of an event and hands the slots left free to the users waiting.
+     * The new capacity must already be written to the event, which locks it against replies.
+     *
+     * @param eventId the event ID
+     * @param capacity the number of slots of the event, or null if it is unlimited
+     */
+    @Transactional
+    public void updateCapacity(int eventId, Integer capacity) {
+        this.recordAdmitted(eventId, this.applyCapacity(eventId, capacity));
+    }
+
+    /**
+     * Deletes the slot counter of an event.
+     *
+     * @param eventId the event ID
+     */
+    @Transactional
+    public void deleteSlots(int eventId) {
+        this.eventSlotsRepository.deleteByEventId(eventId);
+    }
 
-            NotificationFactory notificationFactory = new NewEventNotificationFactory(event.getDate(), user);
-            notificationFactory.createNotification();
-            this.notificationService.save(notificationFactory.getNotification());
+    /**
+     * Deletes the slot counters of every event.
+     */
+    @Transactional
+    public void deleteAllSlots() {
+        this.eventSlotsRepository.deleteAllSlots();
+    }
+
+    /**
+     * Sets the capacity of an event, creating or dropping its slot counter as needed, and
+     * recounts the slots taken from the attendance records. Slots left free are handed to the
+     * users waiting; users already attending keep their slot if the capacity is lowered below
+     * them. Removing the capacity lets every user waiting in.
+     *
+     * @param eventId the event ID
+     * @param capacity the number of slots of the event, or null if it is unlimited
+     * @return the number of users waiting that were let in
+     */
+    private int applyCapacity(int eventId, Integer capacity) {
+        if (capacity == null) {
+            this.eventSlotsRepository.deleteByEventId(eventId);
+            return this.eventAttendanceRepository.admitWaitlisted(eventId);
+        }
+        if (this.eventSlotsRepository.findForUpdate(eventId).isEmpty()) {
+            this.eventSlotsRepository.insertMissing(eventId, capacity);
         }
+        this.eventSlotsRepository.resize(eventId, capacity);
+        return this.promoteWaitlisted(eventId);
+    }
 
+    /**
+     * Locks the slot counter of an event until the current transaction ends, creating it
+     * first if the event got its capacity without one, and recounts the slots taken from
+     * the attendance records once locked. The counter is created in the transaction of the
+     * caller, which already holds the lock of the event, so it needs no second connection.
+     *
+     * @param eventId the event ID
+     * @param capacity the number of slots of the event
+     */
+    private void lockSlots(int eventId, int capacity) {
+        if (this.eventSlotsRepository.findForUpdate(eventId).isPresent()) {
+            return;
+        }
+        this.eventSlotsRepository.insertMissing(eventId, capacity);
+        this.eventSlotsRepository.findForUpdate(eventId).orElseThrow();
+        this.eventSlotsRepository.resize(eventId, capacity);
     }
 
     /**
-     * Updates the attendance status for a given event attendance record.
+     * Hands the free slots of an event to the users waiting, first come first served.
+     * Must be called holding the lock of the slot counter. A user whose record changes
+     * meanwhile is read again, up to the configured attempts per slot.
+     * The RSVP totals are left to the caller, to be changed once every record is, so the
+     * records are always locked before the totals.
      *
-     * @param updateEventAttendanceDto DTO containing the ID and new status for the event attendance
+     * @param eventId the event ID
+     * @return the number of users let in, all of them previously pending an answer
+     */
+    private int promoteWaitlisted(int eventId) {
+        int promoted = 0;
+        int attempts = 0;
+        while (attempts < this.maxAttempts) {
+            List<EventAttendanceStatusDto> head = this.eventAttendanceRepository.findWaitlistHead(eventId, PageRequest.of(0, 1));
+            if (head.isEmpty() || this.eventSlotsRepository.take(eventId) == 0) {
+                break;
+            }
+            EventAttendanceStatusDto next = head.get(0);
+            if (this.eventAttendanceRepository.compareAndSetStatus(next.getId(), next.getVersion(), Boolean.TRUE, null) == 1) {
+                promoted++;
+                attempts = 0;
+            } else {
+                this.eventSlotsRepository.giveBack(eventId);
+                attempts++;
+            }
+        }
+        return promoted;
+    }
+
+    /**
+     * Moves the users let in from the waitlist to the attending total of their event and publishes the change.
+     *
+     * @param eventId the event ID
+     * @param admitted the number of users let in
+     */
+    private void recordAdmitted(int eventId, int admitted) {
+        if (admitted != 0) {
+            this.eventHeadcountService.add(eventId, admitted, 0, -admitted);
+            this.applicationEventPublisher.publishEvent(EventChangeDto.ofRsvp(eventId, admitted, 0, -admitted));
+        }
+    }
+
+    /**
+     * Moves a reply between the RSVP totals of its event and publishes the change.
+     *
+     * @param eventId the event ID
+     * @param previous the previous status of the reply
+     * @param current the new status of the reply
      */
-    public void saveEventAttendance(UpdateEventAttendanceDto updateEventAttendanceDto) {
-        EventAttendance eventAttendance = this.eventAttendanceRepository.findById(updateEventAttendanceDto.getEventAttendanceId()).orElseThrow();
-        eventAttendance.setStatus(updateEventAttendanceDto.getStatus());
-        this.eventAttendanceRepository.save(eventAttendance);
+    private void recordReply(int eventId, Boolean previous, Boolean current) {
+        this.eventHeadcountService.record(eventId, previous, current);
+        if (!Objects.equals(previous, current)) {
+            this.applicationEventPublisher.publishEvent(EventChangeDto.ofReply(eventId, previous, current));
+        }
+    }
+
+    /**
+     * Marks as not attending every user of an event who has not answered yet.
+     * Users answering at the same time keep their answer.
+     *
+     * @param eventId the event ID
+     * @return the number of users marked as not attending
+     */
+    @Transactional
+    public int declinePendingReplies(int eventId) {
+        int declined = this.eventAttendanceRepository.declinePending(eventId);
+        this.eventHeadcountService.add(eventId, 0, declined, -declined);
+        if (declined != 0) {
+            this.applicationEventPublisher.publishEvent(EventChangeDto.ofRsvp(eventId, 0, declined, -declined));
+        }
+        return declined;
+    }
+
+    /**
+     * Retrieves the RSVP totals of an event.
+     *
+     * @param eventId the event ID
+     * @return the number of users attending, not attending and pending an answer
+     */
+    public EventHeadcountDto getHeadcount(int eventId) {
+        return this.eventHeadcountService.getHeadcount(eventId);
+    }
+
+    /**
+     * Streams the roster of an event, attending users first, then those pending an answer,
+     * then those not attending. Must be consumed within a transaction.
+     *
+     * @param eventId the event ID
+     * @return the roster entries of the users with access
+     */
+    public Stream<EventRosterEntryDto> streamRoster(int eventId) {
+        return this.eventAttendanceRepository.streamRoster(eventId);
     }
 
     /**
@@ -124,44 +358,36 @@ public class EventAttendanceService {
     /**
      * Updates attendance for a specified event based on the provided event data,
      * notifying users of any changes to their attendance status.
+     * The students kept, removed and added by the new birth date range are computed in the
+     * database, so the update runs a fixed number of statements whatever the size of the range.
+     * The capacity of the event is then applied to the users left, as {@link #updateCapacity} does.
      *
      * @param event the event to update attendance for
      * @param eventDto the DTO containing updated event information
      */
+    @Transactional
     public void updateAttendance(Event event, EventDto eventDto) {
-        Role role = roleService.findByName(RoleEnum.STUDENT);
-
-        Set<EventAttendance> setPrevEventAttendance = this.eventAttendanceRepository.findByEventId(event.getId(), role);
-        Map<User, EventAttendance> usersPrevEvent = new HashMap<>(setPrevEventAttendance.size());
-
-        for (EventAttendance eventAttendance : setPrevEventAttendance) {
-            usersPrevEvent.put(eventAttendance.getUser(), eventAttendance);
-        }
-
-        List<User> students = this.userService.findUserBornBetween(eventDto.getBirthYearStart(), eventDto.getBirthYearEnd(), role);
+        int eventId = event.getId();
+        LocalDate birthYearStart = eventDto.getBirthYearStart();
+        LocalDate birthYearEnd = eventDto.getBirthYearEnd();
 
-        for (User user : students) {
-            if (!usersPrevEvent.containsKey(user)) {
-                this.eventAttendanceRepository.save(new EventAttendance(event, user, null));
-
-                NotificationFactory notificationFactory = new NewEventNotificationFactory(event.getDate(), user);
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-            } else {
-                usersPrevEvent.remove(user);
-
-                NotificationFactory notificationFactory = new ModifyEventNotificationFactory(event.getDate(), user);
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-            }
-        }
+        NotificationFactory notificationFactory = new ModifyEventNotificationFactory(event.getDate(), null);
+        notificationFactory.createNotification();
+        this.notificationService.saveForKeptEventStudents(notificationFactory.getNotification(), eventId, birthYearStart, birthYearEnd);
 
-        for (User user : usersPrevEvent.keySet()) {
-            this.eventAttendanceRepository.delete(usersPrevEvent.get(user));
+        notificationFactory = new DeleteEventNotificationFactory(event.getDate(), null);
+        notificationFactory.createNotification();
+        this.notificationService.saveForRemovedEventStudents(notificationFactory.getNotification(), eventId, birthYearStart, birthYearEnd);
+        this.eventAttendanceRepository.deleteStudentsOutsideRange(eventId, birthYearStart, birthYearEnd);
 
-            NotificationFactory notificationFactory = new DeleteEventNotificationFactory(event.getDate(), user);
-            notificationFactory.createNotification();
-            this.notificationService.save(notificationFactory.getNotification());
+        notificationFactory = new NewEventNotificationFactory(event.getDate(), null);
+        notificationFactory.createNotification();
+        this.notificationService.saveForAddedEventStudents(notificationFactory.getNotification(), eventId, birthYearStart, birthYearEnd);
+        this.eventAttendanceRepository.insertMissingStudents(eventId, birthYearStart, birthYearEnd);
+        int admitted = this.applyCapacity(eventId, eventDto.getCapacity());
+        this.eventHeadcountService.recount(eventId);
+        if (admitted != 0) {
+            this.applicationEventPublisher.publishEvent(EventChangeDto.ofRsvp(eventId, admitted, 0, -admitted));
         }
     }
 }
@@ -0,0 +1,276 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventDto;
+import clubbook.backend.repository.EventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Service class that caches the month calendar views already serialized to JSON.
+ * Each month keeps the view shown to staff and one view per birthday bracket for students,
+ * where a bracket groups the birthdays admitted by exactly the same events of the month.
+ * A month is evicted once a transaction that creates, edits or deletes one of its events commits,
+ * and the least recently used month is dropped when the cache is full. The cache also remembers
+ * the version of the events it is up to date with, which the changes made on this instance move
+ * forward; every month is evicted once the version of the events, read from the database at most
+ * once per check interval, moves past it, so changes made by other instances show up too.
+ */
+@Service
+public class EventCalendarCache {
+
+    private static final int MAX_MONTHS = 48;
+
+    private final EventRepository eventRepository;
+    private final CalendarVersionService calendarVersionService;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<YearMonth, Month> months = new LinkedHashMap<>(MAX_MONTHS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, Month> eldest) {
+            return this.size() > MAX_MONTHS;
+        }
+    };
+    private final AtomicLong version = new AtomicLong();
+    private volatile long heldVersion = -1;
+
+    /**
+     * Constructs an EventCalendarCache with the specified dependencies.
+     *
+     * @param eventRepository the repository for events
+     * @param calendarVersionService the service that keeps the version of the events
+     * @param objectMapper the mapper used to serialize the views, as configured for the responses
+     */
+    @Autowired
+    public EventCalendarCache(EventRepository eventRepository, CalendarVersionService calendarVersionService, ObjectMapper objectMapper) {
+        this.eventRepository = eventRepository;
+        this.calendarVersionService = calendarVersionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the calendar of a month as shown to administrators and teachers.
+     *
+     * @param monthValue the month value (1-12)
+     * @param year the year
+     * @return the JSON map of day of the month to the events of that day
+     */
+    public RawValue findMonth(int monthValue, int year) {
+        return this.getMonth(YearMonth.of(year, monthValue)).staff;
+    }
+
+    /**
+     * Returns the calendar of a month as shown to a student with the specified birthday.
+     *
+     * @param monthValue the month value (1-12)
+     * @param year the year
+     * @param birthday the birthday of the student
+     * @return the JSON map of day of the month to the events of that day the student can attend
+     */
+    public RawValue findMonthForBirthday(int monthValue, int year, LocalDate birthday) {
+        Month month = this.getMonth(YearMonth.of(year, monthValue));
+        int bracket = month.bracketOf(birthday);
+        return month.students.computeIfAbsent(bracket, key -> {
+            List<EventDto> admitted = new ArrayList<>();
+            for (EventDto event : month.events) {
+                if (!event.getBirthYearStart().isAfter(birthday) && !event.getBirthYearEnd().isBefore(birthday)) {
+                    admitted.add(event);
+                }
+            }
+            return this.serialize(admitted);
+        });
+    }
+
+    /**
+     * Evicts the months of some dates once the current transaction commits. A change right
+     * after the version the cache is up to date with moves it forward; after a gap, left by
+     * changes from other instances, the version is kept so the next read evicts every month.
+     *
+     * @param version the version of the events given to the change
+     * @param dates the dates of the event created, edited or deleted, before and after the change
+     */
+    public void evict(long version, LocalDate... dates) {
+        Set<YearMonth> changed = new HashSet<>();
+        for (LocalDate date : dates) {
+            changed.add(YearMonth.from(date));
+        }
+        this.afterCommit(() -> {
+            this.version.incrementAndGet();
+            this.lock.lock();
+            try {
+                this.months.keySet().removeAll(changed);
+                if (version == this.heldVersion + 1) {
+                    this.heldVersion = version;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Evicts every month once the current transaction commits.
+     *
+     * @param version the version of the events given to the change
+     */
+    public void evictAll(long version) {
+        this.afterCommit(() -> this.evictAllUpTo(version));
+    }
+
+    /**
+     * Returns the cached month, building it on a miss. A month built while an eviction
+     * commits is returned but not kept, since it may have been read before the change:
+     * the version is checked again once the month is cached, so an eviction committing
+     * between the read and the insertion is not missed.
+     *
+     * @param yearMonth the month
+     * @return the cached month
+     */
+    private Month getMonth(YearMonth yearMonth) {
+        long current = this.calendarVersionService.getEventsVersion();
+        if (current > this.heldVersion) {
+            this.evictAllUpTo(current);
+        }
+        Month month = this.withLock(() -> this.months.get(yearMonth));
+        if (month != null) {
+            return month;
+        }
+        long before = this.version.get();
+        List<EventDto> eventDtos = this.eventRepository.findEventDtosBetween(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+        Month loaded = new Month(eventDtos, this.serialize(eventDtos));
+        if (this.version.get() != before) {
+            return loaded;
+        }
+        Month cached = this.withLock(() -> this.months.putIfAbsent(yearMonth, loaded));
+        if (cached != null) {
+            return cached;
+        }
+        if (this.version.get() != before) {
+            this.withLock(() -> this.months.remove(yearMonth, loaded));
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts every month, unless the cache is already up to date with a later version.
+     *
+     * @param version the version of the events the cache is up to date with afterwards
+     */
+    private void evictAllUpTo(long version) {
+        this.version.incrementAndGet();
+        this.lock.lock();
+        try {
+            if (version > this.heldVersion) {
+                this.months.clear();
+                this.heldVersion = version;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an operation on the cached months holding the lock, which every access needs
+     * since reads also reorder the months by recency.
+     *
+     * @param operation the operation
+     * @return the result of the operation
+     */
+    private <T> T withLock(Supplier<T> operation) {
+        this.lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Serializes events as a map of day of the month to the events of that day.
+     *
+     * @param events the events, ordered by date
+     * @return the serialized map
+     */
+    private RawValue serialize(List<EventDto> events) {
+        Map<Integer, List<EventDto>> map = new HashMap<>(events.size());
+        for (EventDto e : events) {
+            map.computeIfAbsent(e.getDate().getDayOfMonth(), day -> new ArrayList<>()).add(e);
+        }
+        try {
+            return new RawValue(this.objectMapper.writeValueAsString(map));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or right away outside a transaction.
+     *
+     * @param action the action to run
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * The cached views of a month.
+     */
+    private static final class Month {
+
+        private final List<EventDto> events;
+        private final RawValue staff;
+        private final LocalDate[] boundaries;
+        private final ConcurrentMap<Integer, RawValue> students = new ConcurrentHashMap<>();
+
+        /**
+         * Builds the views of a month from its events.
+         *
+         * @param events the events of the month, ordered by date
+         * @param staff the serialized view for administrators and teachers
+         */
+        private Month(List<EventDto> events, RawValue staff) {
+            this.events = events;
+            this.staff = staff;
+            TreeSet<LocalDate> points = new TreeSet<>();
+            for (EventDto event : events) {
+                points.add(event.getBirthYearStart());
+                points.add(event.getBirthYearEnd().plusDays(1));
+            }
+            this.boundaries = points.toArray(new LocalDate[0]);
+        }
+
+        /**
+         * Returns the bracket of a birthday: the number of range boundaries on or before it.
+         * Two birthdays in the same bracket are admitted by the same events.
+         *
+         * @param birthday the birthday
+         * @return the bracket of the birthday
+         */
+        private int bracketOf(LocalDate birthday) {
+            int index = Arrays.binarySearch(this.boundaries, birthday);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+}
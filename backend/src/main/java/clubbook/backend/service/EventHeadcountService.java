@@ -0,0 +1,269 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventHeadcountDto;
+import clubbook.backend.model.EventHeadcount;
+import clubbook.backend.repository.EventHeadcountRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service class that keeps the RSVP totals of every event.
+ * The totals are stored per event and changed with atomic increments, so a reply never
+ * reads or rewrites other attendance records. Totals already read are also held in memory
+ * in striped counters, which committed replies update without locking, so headcounts can be
+ * polled at deadline time without touching the database.
+ * Totals read from the database while a change is in flight are not kept, since they
+ * could miss it; the next read loads them again. Totals held in memory are also read again
+ * once older than their time to live, so changes committed by other instances show up
+ * within that time.
+ */
+@Service
+public class EventHeadcountService {
+
+    private final EventHeadcountRepository eventHeadcountRepository;
+    private final long timeToLive;
+    private final ConcurrentMap<Integer, Counters> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger writers = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Constructs an EventHeadcountService with the specified repository and time to live.
+     *
+     * @param eventHeadcountRepository the repository for event headcounts
+     * @param timeToLive how long the totals held in memory are served before being read again
+     */
+    @Autowired
+    public EventHeadcountService(EventHeadcountRepository eventHeadcountRepository, @Value("${event.headcount.time-to-live:PT5S}") Duration timeToLive) {
+        this.eventHeadcountRepository = eventHeadcountRepository;
+        this.timeToLive = timeToLive.toNanos();
+    }
+
+    /**
+     * Returns the RSVP totals of an event. Events created before the totals were kept
+     * get them counted from their attendance records on first read. Totals held in memory
+     * for longer than the time to live are read again from the database.
+     *
+     * @param eventId the ID of the event
+     * @return the totals of the event
+     * @throws java.util.NoSuchElementException if the event does not exist
+     */
+    @Transactional
+    public EventHeadcountDto getHeadcount(int eventId) {
+        Counters cached = this.counters.get(eventId);
+        if (cached != null && !cached.isExpired(this.timeToLive)) {
+            return cached.toDto();
+        }
+        long before = this.version.get();
+        this.eventHeadcountRepository.insertCounted(eventId);
+        Counters loaded = new Counters(this.eventHeadcountRepository.findById(eventId).orElseThrow());
+        boolean stored = cached == null ? this.counters.putIfAbsent(eventId, loaded) == null : this.counters.replace(eventId, cached, loaded);
+        if (!stored) {
+            return loaded.toDto();
+        }
+        if (this.writers.get() != 0 || this.version.get() != before) {
+            this.counters.remove(eventId, loaded);
+        }
+        return loaded.toDto();
+    }
+
+    /**
+     * Creates the totals of a new event from its attendance records.
+     *
+     * @param eventId the ID of the event
+     */
+    @Transactional
+    public void initialize(int eventId) {
+        this.write(() -> this.eventHeadcountRepository.insertCounted(eventId), () -> this.counters.remove(eventId));
+    }
+
+    /**
+     * Moves one reply between the totals of an event.
+     *
+     * @param eventId the ID of the event
+     * @param previous the previous status of the reply: true attending, false declined, null pending
+     * @param current the new status of the reply
+     */
+    @Transactional
+    public void record(int eventId, Boolean previous, Boolean current) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        this.add(eventId, delta(Boolean.TRUE, previous, current), delta(Boolean.FALSE, previous, current), delta(null, previous, current));
+    }
+
+    /**
+     * Adds the given amounts to the totals of an event.
+     *
+     * @param eventId the ID of the event
+     * @param attending the change in the number of users attending
+     * @param declined the change in the number of users not attending
+     * @param pending the change in the number of users that have not answered
+     */
+    @Transactional
+    public void add(int eventId, int attending, int declined, int pending) {
+        if (attending == 0 && declined == 0 && pending == 0) {
+            return;
+        }
+        this.write(() -> {
+            if (this.eventHeadcountRepository.increment(eventId, attending, declined, pending) == 0
+                    && this.eventHeadcountRepository.insertCounted(eventId) == 0) {
+                // Counted meanwhile by another transaction, without this change.
+                this.eventHeadcountRepository.increment(eventId, attending, declined, pending);
+            }
+        }, () -> {
+            Counters cached = this.counters.get(eventId);
+            if (cached != null) {
+                cached.add(attending, declined, pending);
+            }
+        });
+    }
+
+    /**
+     * Recomputes the totals of an event after its attendance records were added or removed in bulk.
+     * The totals are locked before counting, so replies still to add their change wait for the
+     * count and replies that already added it are committed before it.
+     *
+     * @param eventId the ID of the event
+     */
+    @Transactional
+    public void recount(int eventId) {
+        this.write(() -> {
+            if (this.eventHeadcountRepository.findForUpdate(eventId).isPresent() || this.eventHeadcountRepository.insertCounted(eventId) == 0) {
+                this.eventHeadcountRepository.recount(eventId);
+            }
+        }, () -> this.counters.remove(eventId));
+    }
+
+    /**
+     * Deletes the totals of an event.
+     *
+     * @param eventId the ID of the event
+     */
+    @Transactional
+    public void delete(int eventId) {
+        this.write(() -> this.eventHeadcountRepository.deleteByEventId(eventId), () -> this.counters.remove(eventId));
+    }
+
+    /**
+     * Deletes the totals of every event.
+     */
+    @Transactional
+    public void deleteAll() {
+        this.write(this.eventHeadcountRepository::deleteAllHeadcounts, this.counters::clear);
+    }
+
+    /**
+     * Runs a change to the stored totals and, once the transaction commits, applies it to the
+     * totals held in memory. The change counts as in flight until the transaction completes.
+     *
+     * @param statement the change to the stored totals
+     * @param onCommit the change to the totals held in memory
+     */
+    private void write(Runnable statement, Runnable onCommit) {
+        this.writers.incrementAndGet();
+        try {
+            statement.run();
+        } catch (RuntimeException e) {
+            this.complete(null);
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(status == STATUS_COMMITTED ? onCommit : null);
+            }
+        });
+    }
+
+    /**
+     * Ends an in-flight change.
+     *
+     * @param onCommit the change to the totals held in memory, or null if it was not committed
+     */
+    private void complete(Runnable onCommit) {
+        try {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+        } finally {
+            this.version.incrementAndGet();
+            this.writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Computes how a total changes when a reply moves from one status to another.
+     *
+     * @param status the status counted by the total
+     * @param previous the previous status of the reply
+     * @param current the new status of the reply
+     * @return 1 if the reply enters the total, -1 if it leaves it, 0 otherwise
+     */
+    private static int delta(Boolean status, Boolean previous, Boolean current) {
+        return (Objects.equals(status, current) ? 1 : 0) - (Objects.equals(status, previous) ? 1 : 0);
+    }
+
+    /**
+     * The totals of an event held in memory.
+     */
+    private static final class Counters {
+
+        private final LongAdder attending = new LongAdder();
+        private final LongAdder declined = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private final long loadedAt = System.nanoTime();
+
+        /**
+         * Builds the counters from the stored totals.
+         *
+         * @param headcount the stored totals
+         */
+        private Counters(EventHeadcount headcount) {
+            this.add(headcount.getAttending(), headcount.getDeclined(), headcount.getPending());
+        }
+
+        /**
+         * Adds the given amounts to the counters.
+         *
+         * @param attending the change in the number of users attending
+         * @param declined the change in the number of users not attending
+         * @param pending the change in the number of users that have not answered
+         */
+        private void add(int attending, int declined, int pending) {
+            this.attending.add(attending);
+            this.declined.add(declined);
+            this.pending.add(pending);
+        }
+
+        /**
+         * Checks whether the counters were loaded longer ago than a time to live.
+         *
+         * @param timeToLive the time to live, in nanoseconds
+         * @return true if the counters must be read again
+         */
+        private boolean isExpired(long timeToLive) {
+            return System.nanoTime() - this.loadedAt >= timeToLive;
+        }
+
+        /**
+         * Returns the current value of the counters.
+         *
+         * @return the totals
+         */
+        private EventHeadcountDto toDto() {
+            return new EventHeadcountDto(this.attending.sum(), this.declined.sum(), this.pending.sum());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventDto;
+import clubbook.backend.model.Event;
+import clubbook.backend.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class that answers "which events admit this birthday" lookups from memory.
+ * Events from the current month onwards are kept in an interval tree keyed on their birth
+ * date range, so a lookup costs O(log n + k) and does not touch the database.
+ * The tree is immutable and replaced on every change, so lookups never wait for writers.
+ * It is loaded on first use; lookups arriving while it is being loaded are answered by
+ * the database. Changes made on this instance are applied once they commit and move the
+ * version of the events the tree holds forward; lookups compare it with the version of the
+ * events, read from the database at most once per check interval, and load the tree again
+ * when another instance changed the events.
+ */
+@Service
+public class EventIntervalIndex {
+
+    private final EventRepository eventRepository;
+    private final CalendarVersionService calendarVersionService;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Integer, EventDto> events = new HashMap<>();
+    private volatile Tree tree;
+    private volatile long loadedVersion = -1;
+
+    /**
+     * Constructs an EventIntervalIndex with the specified dependencies.
+     *
+     * @param eventRepository the repository for events
+     * @param calendarVersionService the service that keeps the version of the events
+     */
+    @Autowired
+    public EventIntervalIndex(EventRepository eventRepository, CalendarVersionService calendarVersionService) {
+        this.eventRepository = eventRepository;
+        this.calendarVersionService = calendarVersionService;
+    }
+
+    /**
+     * Finds the events from today onwards that admit users with the specified birthday.
+     *
+     * @param birthday the birthday to filter events by
+     * @return the events found, ordered by date
+     */
+    public List<EventDto> findUpcomingThatAdmit(LocalDate birthday) {
+        LocalDate today = LocalDate.now();
+        Tree current = this.getTree();
+        if (current == null) {
+            return this.eventRepository.findUpcomingEventsThatAdmit(birthday, today, 0);
+        }
+        return current.findThatAdmit(birthday, today, null);
+    }
+
+    /**
+     * Finds the next event from today onwards that admits users with the specified birthday.
+     *
+     * @param birthday the birthday to filter events by
+     * @return the next event, or null if there is none
+     */
+    public EventDto findNextThatAdmit(LocalDate birthday) {
+        LocalDate today = LocalDate.now();
+        Tree current = this.getTree();
+        List<EventDto> found = current == null
+                ? this.eventRepository.findUpcomingEventsThatAdmit(birthday, today, 1)
+                : current.findThatAdmit(birthday, today, null);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Adds or replaces an event once the current transaction commits.
+     *
+     * @param event the event saved
+     * @param version the version of the events given to the change
+     */
+    public void put(Event event, long version) {
+        EventDto eventDto = new EventDto(event);
+        this.afterCommit(() -> this.update(eventDto.getId(), eventDto, version));
+    }
+
+    /**
+     * Removes an event once the current transaction commits.
+     *
+     * @param eventId the ID of the event deleted
+     * @param version the version of the events given to the change
+     */
+    public void remove(int eventId, long version) {
+        this.afterCommit(() -> this.update(eventId, null, version));
+    }
+
+    /**
+     * Removes every event once the current transaction commits. Every change made before
+     * is deleted too, so the tree holds the version of the change afterwards.
+     *
+     * @param version the version of the events given to the change
+     */
+    public void removeAll(long version) {
+        this.afterCommit(() -> {
+            this.lock.lock();
+            try {
+                Tree current = this.tree;
+                if (current == null || version <= this.loadedVersion) {
+                    return;
+                }
+                this.events.clear();
+                this.tree = new Tree(current.from, this.events.values());
+                this.loadedVersion = version;
+            } finally {
+                this.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Reloads the events from the database, dropping the months already gone.
+     * This method is executed at 00:05 every day.
+     */
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void scheduleReload() {
+        this.lock.lock();
+        try {
+            this.load();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current tree, loading it on first use and again once the version of the
+     * events moved past the one held. While another thread holds the lock, null is returned
+     * instead of a missing or outdated tree, so that the caller reads from the database
+     * instead of waiting.
+     *
+     * @return the current tree, or null if it is not available yet
+     */
+    private Tree getTree() {
+        Tree current = this.tree;
+        if (current != null && !this.isBehind()) {
+            return current;
+        }
+        if (!this.lock.tryLock()) {
+            return null;
+        }
+        try {
+            if (this.tree == null || this.isBehind()) {
+                this.load();
+            }
+            return this.tree;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether other instances changed the events since the version held.
+     *
+     * @return true if the version of the events moved past the one held
+     */
+    private boolean isBehind() {
+        return this.calendarVersionService.getEventsVersion() > this.loadedVersion;
+    }
+
+    /**
+     * Loads every event from the first day of the current month onwards. The version is read
+     * before the events, so a change committed meanwhile loads them once more. Must be called holding the lock.
+     */
+    private void load() {
+        long version = this.calendarVersionService.getEventsVersion();
+        LocalDate from = YearMonth.now().atDay(1);
+        this.events.clear();
+        for (EventDto event : this.eventRepository.findEventDtosFrom(from, Pageable.unpaged())) {
+            this.events.put(event.getId(), event);
+        }
+        this.tree = new Tree(from, this.events.values());
+        this.loadedVersion = version;
+    }
+
+    /**
+     * Applies a change to the events held in memory. Changes are ignored until the tree
+     * is loaded, and so are changes the version held already includes, since loading reads
+     * them from the database. A change right after the version held moves it forward; after
+     * a gap, left by changes from other instances, the version is kept so the next lookup loads them.
+     *
+     * @param eventId the ID of the event changed
+     * @param eventDto the new state of the event, or null if it was deleted
+     * @param version the version of the events given to the change
+     */
+    private void update(int eventId, EventDto eventDto, long version) {
+        this.lock.lock();
+        try {
+            Tree current = this.tree;
+            if (current == null || version <= this.loadedVersion) {
+                return;
+            }
+            if (eventDto == null || eventDto.getDate().isBefore(current.from)) {
+                this.events.remove(eventId);
+            } else {
+                this.events.put(eventId, eventDto);
+            }
+            this.tree = new Tree(current.from, this.events.values());
+            if (version == this.loadedVersion + 1) {
+                this.loadedVersion = version;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or right away outside a transaction.
+     *
+     * @param action the action to run
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Immutable interval tree over the birth date ranges of a set of events.
+     * The events are sorted by the start of their range and the tree is implicit in
+     * that array: the root of every slice is its middle element, and each node keeps
+     * the latest range end of its subtree so whole subtrees can be skipped.
+     */
+    private static final class Tree {
+
+        private final LocalDate from;
+        private final EventDto[] events;
+        private final LocalDate[] maxEnd;
+
+        /**
+         * Builds the tree for the given events.
+         *
+         * @param from the first event date held
+         * @param events the events to index
+         */
+        private Tree(LocalDate from, Collection<EventDto> events) {
+            this.from = from;
+            this.events = events.toArray(new EventDto[0]);
+            Arrays.sort(this.events, Comparator.comparing(EventDto::getBirthYearStart));
+            this.maxEnd = new LocalDate[this.events.length];
+            this.computeMaxEnd(0, this.events.length - 1);
+        }
+
+        /**
+         * Computes the latest range end of every subtree of a slice.
+         *
+         * @param lo the first index of the slice
+         * @param hi the last index of the slice
+         * @return the latest range end of the slice, or null if it is empty
+         */
+        private LocalDate computeMaxEnd(int lo, int hi) {
+            if (lo > hi) {
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            LocalDate max = this.events[mid].getBirthYearEnd();
+            LocalDate left = this.computeMaxEnd(lo, mid - 1);
+            LocalDate right = this.computeMaxEnd(mid + 1, hi);
+            if (left != null && left.isAfter(max)) {
+                max = left;
+            }
+            if (right != null && right.isAfter(max)) {
+                max = right;
+            }
+            this.maxEnd[mid] = max;
+            return max;
+        }
+
+        /**
+         * Finds the events that admit a birthday and take place within a date range.
+         *
+         * @param birthday the birthday to filter events by
+         * @param dateFrom the first event date included
+         * @param dateTo the first event date excluded, or null for no limit
+         * @return the events found, ordered by date
+         */
+        private List<EventDto> findThatAdmit(LocalDate birthday, LocalDate dateFrom, LocalDate dateTo) {
+            List<EventDto> output = new ArrayList<>();
+            this.stab(0, this.events.length - 1, birthday, dateFrom, dateTo, output);
+            output.sort(Comparator.comparing(EventDto::getDate).thenComparingInt(EventDto::getId));
+            return output;
+        }
+
+        /**
+         * Collects the events of a slice whose range contains a birthday.
+         *
+         * @param lo the first index of the slice
+         * @param hi the last index of the slice
+         * @param birthday the birthday to filter events by
+         * @param dateFrom the first event date included
+         * @param dateTo the first event date excluded, or null for no limit
+         * @param output the list the events found are added to
+         */
+        private void stab(int lo, int hi, LocalDate birthday, LocalDate dateFrom, LocalDate dateTo, List<EventDto> output) {
+            if (lo > hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (this.maxEnd[mid].isBefore(birthday)) {
+                return;
+            }
+            this.stab(lo, mid - 1, birthday, dateFrom, dateTo, output);
+            EventDto event = this.events[mid];
+            if (event.getBirthYearStart().isAfter(birthday)) {
+                return;
+            }
+            LocalDate date = event.getDate();
+            if (!event.getBirthYearEnd().isBefore(birthday) && !date.isBefore(dateFrom) && (dateTo == null || date.isBefore(dateTo))) {
+                output.add(event);
+            }
+            this.stab(mid + 1, hi, birthday, dateFrom, dateTo, output);
+        }
+    }
+}
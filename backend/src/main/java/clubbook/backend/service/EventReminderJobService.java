@@ -0,0 +1,336 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.Event;
+import clubbook.backend.model.JobCheckpoint;
+import clubbook.backend.model.User;
+import clubbook.backend.model.notification.*;
+import clubbook.backend.repository.EventAttendanceRepository;
+import clubbook.backend.repository.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class that runs the scheduled event reminder jobs as chunked pipelines.
+ * Each job reads the users to notify one page at a time, builds their notifications,
+ * inserts them in a batch and commits them together with a checkpoint, so no run holds
+ * a long transaction. A run interrupted by a failure keeps the chunks already committed
+ * and is resumed from its checkpoint by a periodic sweep, or by the next trigger of the day.
+ * Runs are coordinated across instances through job leases. A job may be split in shards,
+ * each taking the events whose ID falls in it, so that several instances share the run
+ * of a job without notifying a user twice.
+ */
+@Service
+public class EventReminderJobService {
+
+    static final String EVENT_REMINDER = "event-reminder";
+    static final String EVENT_ATTENDANCE_REMINDER = "event-attendance-reminder";
+    static final String EVENT_INSCRIPTION_FINISHED = "event-inscription-finished";
+    private static final String SHARD_SEPARATOR = "#";
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventReminderJobService.class);
+
+    private final EventRepository eventRepository;
+    private final EventAttendanceRepository eventAttendanceRepository;
+    private final EventAttendanceService eventAttendanceService;
+    private final UserService userService;
+    private final JobCheckpointService jobCheckpointService;
+    private final JobLeaseService jobLeaseService;
+    private final int chunkSize;
+    private final int shards;
+    private final Duration leaseDuration;
+    private final ConcurrentMap<String, ReentrantLock> running = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an EventReminderJobService with the specified dependencies.
+     *
+     * @param eventRepository the repository for events
+     * @param eventAttendanceRepository the repository for event attendance records
+     * @param eventAttendanceService the service for event attendance
+     * @param userService the service for users
+     * @param jobCheckpointService the service that keeps the progress of the jobs
+     * @param jobLeaseService the service that coordinates the jobs across instances
+     * @param chunkSize the maximum number of users notified per chunk
+     * @param shards the number of shards each job is split in
+     * @param leaseSeconds how long a shard stays leased without committing a chunk
+     */
+    @Autowired
+    public EventReminderJobService(EventRepository eventRepository, EventAttendanceRepository eventAttendanceRepository,
+                                   EventAttendanceService eventAttendanceService, UserService userService,
+                                   JobCheckpointService jobCheckpointService, JobLeaseService jobLeaseService,
+                                   @Value("${event.reminder.chunk-size:500}") int chunkSize,
+                                   @Value("${event.reminder.shards:1}") int shards,
+                                   @Value("${event.reminder.lease-seconds:600}") long leaseSeconds) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("event.reminder.shards must be at least 1");
+        }
+        this.eventRepository = eventRepository;
+        this.eventAttendanceRepository = eventAttendanceRepository;
+        this.eventAttendanceService = eventAttendanceService;
+        this.userService = userService;
+        this.jobCheckpointService = jobCheckpointService;
+        this.jobLeaseService = jobLeaseService;
+        this.chunkSize = chunkSize;
+        this.shards = shards;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Sends notification Event Reminder to every user registered in the events of the next two days.
+     * This method is executed at 12:00 every day.
+     */
+    @Scheduled(cron = "0 0 12 * * ?")
+    public void scheduleEventReminderNotifications() {
+        this.run(EVENT_REMINDER, this::sendEventReminders);
+    }
+
+    /**
+     * Sends notification Event Reminder Attendance to the users attending the events whose deadline is today.
+     * This method is executed at 11:00 every day.
+     */
+    @Scheduled(cron = "0 0 11 * * ?")
+    public void scheduleEventReminderAttendanceNotifications() {
+        this.run(EVENT_ATTENDANCE_REMINDER, this::sendEventAttendanceReminders);
+    }
+
+    /**
+     * Closes the inscription of the events whose deadline was yesterday, marking the users
+     * that did not answer as not attending, and sends notification Finish Inscription to
+     * administrators and teachers.
+     * This method is executed at 00:01 every day.
+     */
+    @Scheduled(cron = "0 1 0 * * ?")
+    public void scheduleEventFinishInscriptionNotifications() {
+        this.run(EVENT_INSCRIPTION_FINISHED, this::finishInscriptions);
+    }
+
+    /**
+     * Resumes the runs of today interrupted by a failure. A run failing again keeps its
+     * checkpoint and is logged, and the sweep goes on with the other runs; it is retried
+     * by the next sweep.
+     * This method is executed every ten minutes.
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void scheduleResumeInterruptedRuns() {
+        for (String name : this.jobCheckpointService.findUnfinished(LocalDate.now())) {
+            try {
+                switch (name.split(SHARD_SEPARATOR)[0]) {
+                    case EVENT_REMINDER -> this.scheduleEventReminderNotifications();
+                    case EVENT_ATTENDANCE_REMINDER -> this.scheduleEventReminderAttendanceNotifications();
+                    case EVENT_INSCRIPTION_FINISHED -> this.scheduleEventFinishInscriptionNotifications();
+                    default -> { }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to resume the run of job {}, it will be retried by the next sweep", name, e);
+            }
+        }
+    }
+
+    /**
+     * Runs every shard of a job for today whose lease this instance takes.
+     *
+     * @param name the name of the job
+     * @param job the pipeline of the job
+     */
+    private void run(String name, JobRun job) {
+        for (int shard = 0; shard < this.shards; shard++) {
+            this.runShard(this.shards == 1 ? name : name + SHARD_SEPARATOR + shard, shard, job);
+        }
+    }
+
+    /**
+     * Runs a shard of a job for today from its checkpoint, unless it is already running in
+     * this or another instance, or today's run has finished.
+     *
+     * @param name the name of the shard, shared by its lease and its checkpoint
+     * @param shard the index of the shard
+     * @param job the pipeline of the job
+     */
+    private void runShard(String name, int shard, JobRun job) {
+        ReentrantLock lock = this.running.computeIfAbsent(name, key -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (!this.jobLeaseService.tryAcquire(name, this.leaseDuration)) {
+                return;
+            }
+            try {
+                LocalDate today = LocalDate.now();
+                JobCheckpoint checkpoint = this.jobCheckpointService.start(name, today);
+                if (checkpoint.isFinished()) {
+                    return;
+                }
+                job.run(checkpoint, today, shard);
+                this.jobCheckpointService.finish(name);
+            } finally {
+                this.jobLeaseService.release(name);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pipeline of the Event Reminder job.
+     *
+     * @param checkpoint the checkpoint of the run
+     * @param today the day of the run
+     * @param shard the index of the shard
+     */
+    private void sendEventReminders(JobCheckpoint checkpoint, LocalDate today, int shard) {
+        for (Event event : this.eventsOfShard(this.eventRepository.findAllEventsInNextTwoDays(today, today.plusDays(2)), shard)) {
+            this.notifyInChunks(checkpoint, event, (eventId, afterUserId) ->
+                    this.eventAttendanceRepository.findUserIdsAfter(eventId, afterUserId, PageRequest.of(0, this.chunkSize)),
+                    user -> new EventReminderNotificationFactory(event.getDate(), user));
+        }
+    }
+
+    /**
+     * Pipeline of the Event Reminder Attendance job.
+     *
+     * @param checkpoint the checkpoint of the run
+     * @param today the day of the run
+     * @param shard the index of the shard
+     */
+    private void sendEventAttendanceReminders(JobCheckpoint checkpoint, LocalDate today, int shard) {
+        for (Event event : this.eventsOfShard(this.eventRepository.findAllEventsDeadlineToday(today), shard)) {
+            this.notifyInChunks(checkpoint, event, (eventId, afterUserId) ->
+                    this.eventAttendanceRepository.findAttendingUserIdsAfter(eventId, afterUserId, PageRequest.of(0, this.chunkSize)),
+                    user -> new EventInscriptionLimitNotificationFactory(event.getDate(), user));
+        }
+    }
+
+    /**
+     * Pipeline of the Finish Inscription job. Each event is a single chunk: closing its
+     * inscription is idempotent, so an event interrupted before its chunk committed is
+     * simply closed again.
+     *
+     * @param checkpoint the checkpoint of the run
+     * @param today the day of the run
+     * @param shard the index of the shard
+     */
+    private void finishInscriptions(JobCheckpoint checkpoint, LocalDate today, int shard) {
+        List<Event> events = this.eventsOfShard(this.eventRepository.findAllEventsInscriptionFinished(today.minusDays(1)), shard);
+        if (events.isEmpty()) {
+            return;
+        }
+        List<User> staff = new ArrayList<>(this.userService.findAllAdministrators());
+        staff.addAll(this.userService.getAllTeachers());
+
+        for (Event event : events) {
+            if (checkpoint.isEventDone(event.getId())) {
+                continue;
+            }
+            this.eventAttendanceService.declinePendingReplies(event.getId());
+
+            List<Notification> notifications = new ArrayList<>(staff.size());
+            for (User user : staff) {
+                NotificationFactory notificationFactory = new EventInscriptionFinishedNotificationFactory(event.getDate(), user);
+                notificationFactory.createNotification();
+                notifications.add(notificationFactory.getNotification());
+            }
+            this.renewLease(checkpoint.getName());
+            this.jobCheckpointService.commitChunk(checkpoint.getName(), event.getId(), JobCheckpoint.EVENT_DONE, notifications);
+        }
+    }
+
+    /**
+     * Notifies the users of an event one chunk at a time, starting after the checkpoint.
+     *
+     * @param checkpoint the checkpoint of the run
+     * @param event the event
+     * @param reader reads the IDs of the next users to notify, in ascending order
+     * @param factory builds the notification factory for a user
+     */
+    private void notifyInChunks(JobCheckpoint checkpoint, Event event, ChunkReader reader, NotificationFactoryBuilder factory) {
+        if (checkpoint.isEventDone(event.getId())) {
+            return;
+        }
+        int afterUserId = checkpoint.lastUserOf(event.getId());
+        List<Integer> userIds;
+        do {
+            userIds = reader.read(event.getId(), afterUserId);
+            List<Notification> notifications = new ArrayList<>(userIds.size());
+            for (Integer userId : userIds) {
+                User user = new User();
+                user.setId(userId);
+                NotificationFactory notificationFactory = factory.build(user);
+                notificationFactory.createNotification();
+                notifications.add(notificationFactory.getNotification());
+            }
+            boolean last = userIds.size() < this.chunkSize;
+            if (!userIds.isEmpty()) {
+                afterUserId = userIds.get(userIds.size() - 1);
+            }
+            this.renewLease(checkpoint.getName());
+            this.jobCheckpointService.commitChunk(checkpoint.getName(), event.getId(), last ? JobCheckpoint.EVENT_DONE : afterUserId, notifications);
+        } while (userIds.size() == this.chunkSize);
+    }
+
+    /**
+     * Extends the lease of a shard before committing a chunk, so that it does not expire
+     * while the shard is running. If another instance took it meanwhile, the run stops
+     * and that instance carries on from the last chunk committed.
+     *
+     * @param name the name of the shard
+     * @throws IllegalStateException if the lease was lost
+     */
+    private void renewLease(String name) {
+        if (!this.jobLeaseService.tryAcquire(name, this.leaseDuration)) {
+            throw new IllegalStateException("Lease of job " + name + " lost");
+        }
+    }
+
+    /**
+     * Keeps the events of a shard, sorted by ID, the order checkpoints rely on.
+     *
+     * @param events the events
+     * @param shard the index of the shard
+     * @return the events of the shard sorted by ID
+     */
+    private List<Event> eventsOfShard(List<Event> events, int shard) {
+        List<Event> sorted = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (Math.floorMod(event.getId(), this.shards) == shard) {
+                sorted.add(event);
+            }
+        }
+        sorted.sort(Comparator.comparingInt(Event::getId));
+        return sorted;
+    }
+
+    /**
+     * Pipeline of a job.
+     */
+    @FunctionalInterface
+    private interface JobRun {
+        void run(JobCheckpoint checkpoint, LocalDate today, int shard);
+    }
+
+    /**
+     * Reads the IDs of the next users of an event to notify.
+     */
+    @FunctionalInterface
+    private interface ChunkReader {
+        List<Integer> read(int eventId, int afterUserId);
+    }
+
+    /**
+     * Builds the notification factory for a user.
+     */
+    @FunctionalInterface
+    private interface NotificationFactoryBuilder {
+        NotificationFactory build(User user);
+    }
+}
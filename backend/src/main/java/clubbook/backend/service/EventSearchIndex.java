@@ -0,0 +1,308 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventDto;
+import clubbook.backend.model.Event;
+import clubbook.backend.model.enumClasses.EventTypeEnum;
+import clubbook.backend.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Service class that answers free text searches over the title, address and additional
+ * information of the events from memory. Every word of those fields is folded to lower
+ * case without accents, so "camión" and "Camion" are the same word, and kept in an
+ * inverted index sorted by word, so the events containing any word starting with a
+ * prefix are found with a single range lookup.
+ * The index is loaded on first use and then kept up to date with every saved or deleted
+ * event once its transaction commits. Every change to the events increases their version,
+ * kept in the database; the index remembers the version it holds, which the changes made
+ * on this instance move forward as they are applied. Searches compare it with the version
+ * of the events, read from the database at most once per check interval, and load the index
+ * again when it moved past the one held, so changes made by other instances are found too.
+ * Searches share a read lock and only wait for the short updates of a single event.
+ */
+@Service
+public class EventSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final EventRepository eventRepository;
+    private final CalendarVersionService calendarVersionService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, EventDto> events = new HashMap<>();
+    private final Map<Integer, Set<String>> wordsOf = new HashMap<>();
+    private final NavigableMap<String, Set<Integer>> postings = new TreeMap<>();
+    private volatile long loadedVersion = -1;
+
+    /**
+     * Constructs an EventSearchIndex with the specified dependencies.
+     *
+     * @param eventRepository the repository for events
+     * @param calendarVersionService the service that keeps the version of the events
+     */
+    @Autowired
+    public EventSearchIndex(EventRepository eventRepository, CalendarVersionService calendarVersionService) {
+        this.eventRepository = eventRepository;
+        this.calendarVersionService = calendarVersionService;
+    }
+
+    /**
+     * Finds the events containing a word starting with every word of a query, past and
+     * upcoming, optionally narrowed to a type, a date range and the events admitting a birthday.
+     * A blank query matches every event.
+     *
+     * @param query the words to search, whose last letters may be missing
+     * @param type the type of the events, or null for any type
+     * @param from the first event date included, or null for no limit
+     * @param to the last event date included, or null for no limit
+     * @param birthday the birthday the events must admit, or null for any
+     * @param limit the maximum number of events to return
+     * @return the events found, ordered by date
+     */
+    public List<EventDto> search(String query, EventTypeEnum type, LocalDate from, LocalDate to, LocalDate birthday, int limit) {
+        List<String> prefixes = query == null ? List.of() : tokenize(query);
+        this.ensureLoaded();
+        List<EventDto> output = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            Collection<Integer> candidates = prefixes.isEmpty() ? this.events.keySet() : this.match(prefixes);
+            for (Integer id : candidates) {
+                EventDto event = this.events.get(id);
+                if (accepts(event, type, from, to, birthday)) {
+                    output.add(event);
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        output.sort(Comparator.comparing(EventDto::getDate).thenComparingInt(EventDto::getId));
+        return output.size() > limit ? new ArrayList<>(output.subList(0, limit)) : output;
+    }
+
+    /**
+     * Adds or replaces an event once the current transaction commits.
+     *
+     * @param event the event saved
+     * @param version the version of the events given to the change
+     */
+    public void put(Event event, long version) {
+        EventDto eventDto = new EventDto(event);
+        this.afterCommit(() -> this.update(eventDto.getId(), eventDto, version));
+    }
+
+    /**
+     * Removes an event once the current transaction commits.
+     *
+     * @param eventId the ID of the event deleted
+     * @param version the version of the events given to the change
+     */
+    public void remove(int eventId, long version) {
+        this.afterCommit(() -> this.update(eventId, null, version));
+    }
+
+    /**
+     * Removes every event once the current transaction commits. Every change made before
+     * is deleted too, so the index holds the version of the change afterwards.
+     *
+     * @param version the version of the events given to the change
+     */
+    public void removeAll(long version) {
+        this.afterCommit(() -> {
+            this.lock.writeLock().lock();
+            try {
+                if (this.loadedVersion < 0 || version <= this.loadedVersion) {
+                    return;
+                }
+                this.events.clear();
+                this.wordsOf.clear();
+                this.postings.clear();
+                this.loadedVersion = version;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Splits a text into words folded to lower case without accents, so Spanish text is
+     * matched whether or not it was written with its accents, and "ñ" matches "n".
+     *
+     * @param text the text
+     * @return the words of the text, in order
+     */
+    static List<String> tokenize(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Finds the events containing a word starting with every prefix. Must be called holding the read lock.
+     *
+     * @param prefixes the folded prefixes
+     * @return the IDs of the events found
+     */
+    private Set<Integer> match(List<String> prefixes) {
+        Set<Integer> found = null;
+        for (String prefix : new TreeSet<>(prefixes)) {
+            Set<Integer> ids = new HashSet<>();
+            for (Set<Integer> posting : this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                if (found == null) {
+                    ids.addAll(posting);
+                } else {
+                    for (Integer id : posting) {
+                        if (found.contains(id)) {
+                            ids.add(id);
+                        }
+                    }
+                }
+            }
+            found = ids;
+            if (found.isEmpty()) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks an event against the filters of a search.
+     *
+     * @param event the event
+     * @param type the type of the events, or null for any type
+     * @param from the first event date included, or null for no limit
+     * @param to the last event date included, or null for no limit
+     * @param birthday the birthday the events must admit, or null for any
+     * @return true if the event passes every filter
+     */
+    private static boolean accepts(EventDto event, EventTypeEnum type, LocalDate from, LocalDate to, LocalDate birthday) {
+        if (type != null && (event.getType() == null || event.getType().getName() != type)) {
+            return false;
+        }
+        if ((from != null && event.getDate().isBefore(from)) || (to != null && event.getDate().isAfter(to))) {
+            return false;
+        }
+        return birthday == null || (!birthday.isBefore(event.getBirthYearStart()) && !birthday.isAfter(event.getBirthYearEnd()));
+    }
+
+    /**
+     * Loads every event from the database the first time the index is used, and again
+     * whenever the version of the events moved past the one held. The version is read
+     * before the events, so a change committed meanwhile loads them once more.
+     */
+    private void ensureLoaded() {
+        long version = this.calendarVersionService.getEventsVersion();
+        if (this.loadedVersion >= version) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            if (this.loadedVersion < version) {
+                this.events.clear();
+                this.wordsOf.clear();
+                this.postings.clear();
+                for (EventDto event : this.eventRepository.findAllEventDtos()) {
+                    this.index(event);
+                }
+                this.loadedVersion = version;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the index. Changes are ignored until the index is loaded, and
+     * so are changes the loaded version already holds, since loading reads them from the
+     * database. A change right after the version held moves it forward; after a gap, left
+     * by changes from other instances, the version is kept so the next check loads them.
+     *
+     * @param eventId the ID of the event changed
+     * @param eventDto the new state of the event, or null if it was deleted
+     * @param version the version of the events given to the change
+     */
+    private void update(int eventId, EventDto eventDto, long version) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.loadedVersion < 0 || version <= this.loadedVersion) {
+                return;
+            }
+            this.unindex(eventId);
+            if (eventDto != null) {
+                this.index(eventDto);
+            }
+            if (version == this.loadedVersion + 1) {
+                this.loadedVersion = version;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the words of an event to the index. Must be called holding the write lock.
+     *
+     * @param event the event
+     */
+    private void index(EventDto event) {
+        Set<String> words = new HashSet<>(tokenize(event.getTitle() + " " + event.getAddress()
+                + (event.getAdditionalInfo() == null ? "" : " " + event.getAdditionalInfo())));
+        for (String word : words) {
+            this.postings.computeIfAbsent(word, key -> new HashSet<>()).add(event.getId());
+        }
+        this.events.put(event.getId(), event);
+        this.wordsOf.put(event.getId(), words);
+    }
+
+    /**
+     * Removes the words of an event from the index, if it is there. Must be called holding the write lock.
+     *
+     * @param eventId the ID of the event
+     */
+    private void unindex(int eventId) {
+        Set<String> words = this.wordsOf.remove(eventId);
+        this.events.remove(eventId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Set<Integer> posting = this.postings.get(word);
+            posting.remove(eventId);
+            if (posting.isEmpty()) {
+                this.postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or right away outside a transaction.
+     *
+     * @param action the action to run
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,27 +1,40 @@
 package clubbook.backend.service;
 
+import clubbook.backend.dtos.EventChangeDto;
 import clubbook.backend.dtos.EventDto;
+import clubbook.backend.dtos.EventPageDto;
+import clubbook.backend.dtos.EventRosterEntryDto;
 import clubbook.backend.dtos.NewEventDto;
 import clubbook.backend.model.Event;
 import clubbook.backend.model.EventAttendance;
 import clubbook.backend.model.EventType;
 import clubbook.backend.model.User;
+import clubbook.backend.model.enumClasses.EventChangeType;
+import clubbook.backend.model.enumClasses.EventTypeEnum;
 import clubbook.backend.model.notification.*;
 import clubbook.backend.repository.EventRepository;
 import clubbook.backend.repository.EventTypeRepository;
 import com.itextpdf.text.*;
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.itextpdf.text.pdf.PdfWriter;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing events.
@@ -29,11 +42,21 @@ import java.util.Map;
 @Service
 public class EventService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Boolean[] ROSTER_SECTION_STATUSES = {Boolean.TRUE, null, Boolean.FALSE};
+    private static final String[] ROSTER_SECTION_TITLES = {"Asistentes:", "Sin confirmar:", "No Asistentes:"};
+
     private final EventRepository eventRepository;
     private final EventTypeRepository eventTypeRepository;
     private final EventAttendanceService eventAttendanceService;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final EventIntervalIndex eventIntervalIndex;
+    private final EventCalendarCache eventCalendarCache;
+    private final EventHeadcountService eventHeadcountService;
+    private final CalendarVersionService calendarVersionService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final EventSearchIndex eventSearchIndex;
 
     /**
      * Constructor of EventService.
@@ -42,14 +65,26 @@ public class EventService {
      * @param eventAttendanceService
      * @param userService
      * @param notificationService
+     * @param eventIntervalIndex
+     * @param eventCalendarCache
+     * @param eventHeadcountService
+     * @param calendarVersionService
+     * @param applicationEventPublisher
+     * @param eventSearchIndex
      */
     @Autowired
-    public EventService(EventRepository eventRepository, EventTypeRepository eventTypeRepository, EventAttendanceService eventAttendanceService, UserService userService, NotificationService notificationService) {
+    public EventService(EventRepository eventRepository, EventTypeRepository eventTypeRepository, EventAttendanceService eventAttendanceService, UserService userService, NotificationService notificationService, EventIntervalIndex eventIntervalIndex, EventCalendarCache eventCalendarCache, EventHeadcountService eventHeadcountService, CalendarVersionService calendarVersionService, ApplicationEventPublisher applicationEventPublisher, EventSearchIndex eventSearchIndex) {
         this.eventRepository = eventRepository;
         this.eventTypeRepository = eventTypeRepository;
         this.eventAttendanceService = eventAttendanceService;
         this.userService = userService;
         this.notificationService = notificationService;
+        this.eventIntervalIndex = eventIntervalIndex;
+        this.eventCalendarCache = eventCalendarCache;
+        this.eventHeadcountService = eventHeadcountService;
+        this.calendarVersionService = calendarVersionService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.eventSearchIndex = eventSearchIndex;
     }
 
     /**
@@ -76,6 +111,7 @@ public class EventService {
      * @param newEventDto the data transfer object containing event details.
      * @return true if the event was saved successfully, false otherwise.
      */
+    @Transactional
     public Boolean save(NewEventDto newEventDto) {
         if (newEventDto.getDate().isBefore(LocalDate.now())) {
             return false;
@@ -83,6 +119,12 @@ public class EventService {
         if (newEventDto.getDeadline().isBefore(LocalDate.now()) || newEventDto.getDeadline().isAfter(newEventDto.getDate())) {
             return false;
         }
+        if (newEventDto.getCapacity() != null && newEventDto.getCapacity() < 1) {
+            return false;
+        }
+        if (newEventDto.getBirthYearStart().isAfter(newEventDto.getBirthYearEnd())) {
+            return false;
+        }
 
         Event event = new Event();
         event.setTitle(newEventDto.getTitle());
@@ -93,8 +135,17 @@ public class EventService {
         event.setBirthYearStart(newEventDto.getBirthYearStart());
         event.setBirthYearEnd(newEventDto.getBirthYearEnd());
         event.setDeadline(newEventDto.getDeadline());
+        event.setCapacity(newEventDto.getCapacity());
         this.eventRepository.save(event);
         this.eventAttendanceService.initializeAttendance(event);
+        if (event.getCapacity() != null) {
+            this.eventAttendanceService.updateCapacity(event.getId(), event.getCapacity());
+        }
+        long version = this.calendarVersionService.touchEvents();
+        this.eventIntervalIndex.put(event, version);
+        this.eventSearchIndex.put(event, version);
+        this.eventCalendarCache.evict(version, event.getDate());
+        this.applicationEventPublisher.publishEvent(EventChangeDto.ofEvent(EventChangeType.CREATED, event.getId(), event.getDate()));
 
         return true;
     }
@@ -105,6 +156,7 @@ public class EventService {
      * @param editEventDto the data transfer object containing updated event details.
      * @return true if the event was updated successfully, false otherwise.
      */
+    @Transactional
     public Boolean saveEdited(EventDto editEventDto) {
         if (editEventDto.getDate().isBefore(LocalDate.now())) {
             return false;
@@ -112,20 +164,38 @@ public class EventService {
         if (editEventDto.getDeadline().isBefore(LocalDate.now()) || editEventDto.getDeadline().isAfter(editEventDto.getDate())) {
             return false;
         }
+        if (editEventDto.getCapacity() != null && editEventDto.getCapacity() < 1) {
+            return false;
+        }
+        if (editEventDto.getBirthYearStart().isAfter(editEventDto.getBirthYearEnd())) {
+            return false;
+        }
 
         Event event = this.eventRepository.findById(editEventDto.getId()).orElseThrow();
+        LocalDate previousDate = event.getDate();
         event.setTitle(editEventDto.getTitle());
         event.setAddress(editEventDto.getAddress());
         event.setDate(editEventDto.getDate());
         event.setAdditionalInfo(editEventDto.getAdditionalInfo());
         event.setType(this.eventTypeRepository.findById(editEventDto.getType().getEventTypeId()).orElseThrow());
         event.setDeadline(editEventDto.getDeadline());
-        if (!event.getBirthYearStart().isEqual(editEventDto.getBirthYearStart()) || !event.getBirthYearEnd().isEqual(editEventDto.getBirthYearEnd())) {
-            this.eventAttendanceService.updateAttendance(event, editEventDto);
-        }
+        boolean rangeChanged = !event.getBirthYearStart().isEqual(editEventDto.getBirthYearStart()) || !event.getBirthYearEnd().isEqual(editEventDto.getBirthYearEnd());
+        boolean capacityChanged = !Objects.equals(event.getCapacity(), editEventDto.getCapacity());
         event.setBirthYearStart(editEventDto.getBirthYearStart());
         event.setBirthYearEnd(editEventDto.getBirthYearEnd());
-        this.eventRepository.save(event);
+        event.setCapacity(editEventDto.getCapacity());
+        // Written before the attendance, so replies locking the event wait for the new capacity.
+        this.eventRepository.saveAndFlush(event);
+        if (rangeChanged) {
+            this.eventAttendanceService.updateAttendance(event, editEventDto);
+        } else if (capacityChanged) {
+            this.eventAttendanceService.updateCapacity(event.getId(), editEventDto.getCapacity());
+        }
+        long version = this.calendarVersionService.touchEvents();
+        this.eventIntervalIndex.put(event, version);
+        this.eventSearchIndex.put(event, version);
+        this.eventCalendarCache.evict(version, previousDate, event.getDate());
+        this.applicationEventPublisher.publishEvent(EventChangeDto.ofEvent(EventChangeType.EDITED, event.getId(), event.getDate()));
 
         return true;
     }
@@ -136,8 +206,51 @@ public class EventService {
      * @return a list of data transfer objects for future events.
      */
     public List<EventDto> findAllFutureEvents() {
-        List<Event> futureEvents = this.eventRepository.findAllByDateGreaterThanEqualOrderByDate(LocalDate.now());
-        return generateListEventDtos(futureEvents);
+        return this.eventRepository.findEventDtosFrom(LocalDate.now(), Pageable.unpaged());
+    }
+
+    /**
+     * Finds a page of future events, ordered by date.
+     *
+     * @param token the continuation token returned with the previous page, or null for the first page.
+     * @param size the maximum number of events of the page.
+     * @return the page of future events.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    public EventPageDto findFutureEventsPage(String token, int size) {
+        LocalDate today = LocalDate.now();
+        LocalDate date = today;
+        int id = 0;
+        if (token != null) {
+            Map.Entry<LocalDate, Integer> position = decodePageToken(token);
+            date = position.getKey();
+            id = position.getValue();
+        }
+        int pageSize = clampPageSize(size);
+        List<EventDto> events = this.eventRepository.findFutureEventsAfter(today, date, id, PageRequest.of(0, pageSize + 1));
+        return createPage(events, pageSize);
+    }
+
+    /**
+     * Finds a page of past events, from the most recent one backwards.
+     *
+     * @param token the continuation token returned with the previous page, or null for the first page.
+     * @param size the maximum number of events of the page.
+     * @return the page of past events.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    public EventPageDto findPastEventsPage(String token, int size) {
+        LocalDate today = LocalDate.now();
+        LocalDate date = today;
+        int id = Integer.MAX_VALUE;
+        if (token != null) {
+            Map.Entry<LocalDate, Integer> position = decodePageToken(token);
+            date = position.getKey();
+            id = position.getValue();
+        }
+        int pageSize = clampPageSize(size);
+        List<EventDto> events = this.eventRepository.findPastEventsBefore(today, date, id, PageRequest.of(0, pageSize + 1));
+        return createPage(events, pageSize);
     }
 
     /**
@@ -146,9 +259,9 @@ public class EventService {
      * @return a data transfer object for the next event, or null if no upcoming events exist.
      */
     public EventDto findNextEvent() {
-        Event event = this.eventRepository.findFirstByDateGreaterThanEqualOrderByDateAsc(LocalDate.now());
-        if (event != null)
-            return new EventDto(event);
+        List<EventDto> events = this.eventRepository.findEventDtosFrom(LocalDate.now(), PageRequest.of(0, 1));
+        if (!events.isEmpty())
+            return events.get(0);
         return null;
     }
 
@@ -157,6 +270,7 @@ public class EventService {
      *
      * @param eventId the ID of the event to delete.
      */
+    @Transactional
     public void deleteEvent(Integer eventId) {
         Event event = this.eventRepository.findById(eventId).orElseThrow();
         for(EventAttendance eventAttendance : event.getAttendances()) {
@@ -164,7 +278,14 @@ public class EventService {
             notificationFactory.createNotification();
             this.notificationService.save(notificationFactory.getNotification());
         }
+        this.eventHeadcountService.delete(eventId);
+        this.eventAttendanceService.deleteSlots(eventId);
         this.eventRepository.deleteById(eventId);
+        long version = this.calendarVersionService.touchEvents();
+        this.eventIntervalIndex.remove(eventId, version);
+        this.eventSearchIndex.remove(eventId, version);
+        this.eventCalendarCache.evict(version, event.getDate());
+        this.applicationEventPublisher.publishEvent(EventChangeDto.ofEvent(EventChangeType.DELETED, eventId, event.getDate()));
     }
 
     /**
@@ -173,30 +294,79 @@ public class EventService {
      * @return a list of data transfer objects for past events.
      */
     public List<EventDto> findAllPastEvents() {
-        List<Event> futureEvents = this.eventRepository.findAllByDateBeforeOrderByDateAsc(LocalDate.now());
-        return generateListEventDtos(futureEvents);
+        return this.eventRepository.findEventDtosBefore(LocalDate.now());
     }
 
     /**
-     * Converts Event list to EventDto list.
-     * @param futureEvents
-     * @return
+     * Builds a page from the events read, which include one more event than the page
+     * size when there is a next page.
+     *
+     * @param events the events read.
+     * @param pageSize the maximum number of events of the page.
+     * @return the page, with the token of the next one if there is any.
      */
-    private List<EventDto> generateListEventDtos(List<Event> futureEvents) {
-        List<EventDto> eventDtos = new ArrayList<>(futureEvents.size());
-        EventDto eventDto;
-        for (Event e: futureEvents) {
-            eventDto = new EventDto(e);
-            eventDtos.add(eventDto);
+    private static EventPageDto createPage(List<EventDto> events, int pageSize) {
+        if (events.size() <= pageSize) {
+            return new EventPageDto(events, null);
+        }
+        List<EventDto> page = new ArrayList<>(events.subList(0, pageSize));
+        EventDto last = page.get(pageSize - 1);
+        return new EventPageDto(page, encodePageToken(last.getDate(), last.getId()));
+    }
+
+    /**
+     * Limits a requested page size to the allowed range.
+     *
+     * @param size the requested page size.
+     * @return the page size to use.
+     */
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Encodes the (date, id) position of the last event of a page as an opaque token.
+     *
+     * @param date the date of the event.
+     * @param id the ID of the event.
+     * @return the continuation token.
+     */
+    private static String encodePageToken(LocalDate date, int id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the (date, id) position carried by a continuation token.
+     *
+     * @param token the continuation token.
+     * @return the date and ID of the last event of the previous page.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    private static Map.Entry<LocalDate, Integer> decodePageToken(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            return Map.entry(LocalDate.parse(parts[0]), Integer.parseInt(parts[1]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
         }
-        return eventDtos;
     }
 
     /**
      * Deletes all events.
      */
+    @Transactional
     public void deleteAll() {
+        this.eventHeadcountService.deleteAll();
+        this.eventAttendanceService.deleteAllSlots();
         this.eventRepository.deleteAll();
+        long version = this.calendarVersionService.touchEvents();
+        this.eventIntervalIndex.removeAll(version);
+        this.eventSearchIndex.removeAll(version);
+        this.eventCalendarCache.evictAll(version);
+        this.applicationEventPublisher.publishEvent(EventChangeDto.cleared());
     }
 
     /**
@@ -204,27 +374,20 @@ public class EventService {
      *
      * @param monthValue the month value (1-12).
      * @param year the year.
-     * @return a map of day of the month to a list of event data transfer objects.
+     * @return the JSON map of day of the month to a list of event data transfer objects.
      */
-    public Map<Integer, List<EventDto>> findActualMonthEvents(int monthValue, int year) {
-        List<Event> futureEvents = this.eventRepository.findAllByCurrentMonth(monthValue, year);
-        Map<Integer, List<EventDto>> map = new HashMap<>(futureEvents.size());
-        for (Event e: futureEvents) {
-            if (!map.containsKey(e.getDate().getDayOfMonth()))
-                map.put(e.getDate().getDayOfMonth(), new ArrayList<>());
-            map.get(e.getDate().getDayOfMonth()).add(new EventDto(e));
-        }
-        return map;
+    public RawValue findActualMonthEvents(int monthValue, int year) {
+        return this.eventCalendarCache.findMonth(monthValue, year);
     }
 
     /**
      * Finds a specific event by its ID.
      *
      * @param eventId the ID of the event to find.
-     * @return the found event.
+     * @return a data transfer object for the found event.
      */
-    public Event findEvent(int eventId) {
-        return this.eventRepository.findById(eventId).orElseThrow();
+    public EventDto findEventDto(int eventId) {
+        return this.eventRepository.findEventDtoById(eventId).orElseThrow();
     }
 
     /**
@@ -235,148 +398,120 @@ public class EventService {
      */
     public List<EventDto> findStudentFutureEvents(int userId) {
         User user = this.userService.findById(userId);
-        List<Event> allEventsThatAdmit = this.eventRepository.findAllEventsThatAdmit(user.getBirthday());
-        List<EventDto> output = new ArrayList<>(allEventsThatAdmit.size());
+        return this.eventIntervalIndex.findUpcomingThatAdmit(user.getBirthday());
+    }
 
-        for (Event e: allEventsThatAdmit) {
-            output.add(new EventDto(e));
-        }
-        return output;
+    /**
+     * Finds the future events that admit users with the specified birthday, reading the database
+     * instead of the interval index, so the result holds every change committed by any instance.
+     *
+     * @param birthday the birthday of the user.
+     * @return the future events admitting the birthday, ordered by date.
+     */
+    public List<EventDto> findCommittedFutureEventsThatAdmit(LocalDate birthday) {
+        return this.eventRepository.findUpcomingEventsThatAdmit(birthday, LocalDate.now(), 0);
     }
 
     /**
-     * Finds the next event that a specific student can attend.
+     * Finds a page of the future events that a specific student can attend, ordered by date.
      *
      * @param userId the ID of the student.
-     * @return a data transfer object for the next event that the student can attend.
+     * @param token the continuation token returned with the previous page, or null for the first page.
+     * @param size the maximum number of events of the page.
+     * @return the page of future events that the student can attend.
+     * @throws IllegalArgumentException if the token is not valid.
      */
-    public EventDto findNextEventStudent(int userId) {
+    public EventPageDto findStudentFutureEventsPage(int userId, String token, int size) {
+        Map.Entry<LocalDate, Integer> position = token == null ? null : decodePageToken(token);
+        int pageSize = clampPageSize(size);
         User user = this.userService.findById(userId);
-        Event nextEvent = this.eventRepository.findNextEventThatAdmit(user.getBirthday());
-        return new EventDto(nextEvent);
+        List<EventDto> events = new ArrayList<>(pageSize + 1);
+        for (EventDto e : this.eventIntervalIndex.findUpcomingThatAdmit(user.getBirthday())) {
+            if (position != null && (e.getDate().isBefore(position.getKey()) || (e.getDate().isEqual(position.getKey()) && e.getId() <= position.getValue()))) {
+                continue;
+            }
+            events.add(e);
+            if (events.size() > pageSize) {
+                break;
+            }
+        }
+        return createPage(events, pageSize);
     }
 
     /**
-     * Finds events for a specific student in the current month.
+     * Finds the next event that a specific student can attend.
      *
-     * @param monthValue the month value (1-12).
-     * @param year the year.
      * @param userId the ID of the student.
-     * @return a map of day of the month to a list of event data transfer objects.
+     * @return a data transfer object for the next event that the student can attend, or null if no upcoming events exist.
      */
-    public Map<Integer, List<EventDto>> findActualMonthEventsStudent(int monthValue, int year, int userId) {
+    public EventDto findNextEventStudent(int userId) {
         User user = this.userService.findById(userId);
-        List<Event> futureEvents = this.eventRepository.findAllByCurrentMonthForStudent(monthValue, year, user.getBirthday());
-        Map<Integer, List<EventDto>> map = new HashMap<>(futureEvents.size());
-        for (Event e: futureEvents) {
-            if (!map.containsKey(e.getDate().getDayOfMonth()))
-                map.put(e.getDate().getDayOfMonth(), new ArrayList<>());
-            map.get(e.getDate().getDayOfMonth()).add(new EventDto(e));
-        }
-        return map;
+        return this.eventIntervalIndex.findNextThatAdmit(user.getBirthday());
     }
 
     /**
-     * Sends notification Event Reminder.
+     * Searches the events by the words of their title, address and additional information,
+     * ignoring case and accents and matching words by their beginning.
+     *
+     * @param query the words to search.
+     * @param type the type of the events, or null for any type.
+     * @param from the first event date included, or null for no limit.
+     * @param to the last event date included, or null for no limit.
+     * @param size the maximum number of events to return.
+     * @return the events found, ordered by date.
      */
-    @Transactional
-    @Scheduled(cron = "0 0 12 * * ?")
-    public void scheduleEventReminderNotifications() {
-        List<Event> events = this.eventRepository.findAllEventsInNextTwoDays(LocalDate.now(), LocalDate.now().plusDays(2));
-        for (Event e: events) {
-            for (EventAttendance eventAttendance: e.getAttendances()) {
-                NotificationFactory notificationFactory = new EventReminderNotificationFactory(e.getDate(), eventAttendance.getUser());
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-            }
-        }
+    public List<EventDto> searchEvents(String query, EventTypeEnum type, LocalDate from, LocalDate to, int size) {
+        return this.eventSearchIndex.search(query, type, from, to, null, clampPageSize(size));
     }
 
     /**
-     * Sends notification Event Reminder Attendance.
+     * Searches the events that a specific student can attend by the words of their title,
+     * address and additional information, ignoring case and accents and matching words by their beginning.
+     *
+     * @param userId the ID of the student.
+     * @param query the words to search.
+     * @param type the type of the events, or null for any type.
+     * @param from the first event date included, or null for no limit.
+     * @param to the last event date included, or null for no limit.
+     * @param size the maximum number of events to return.
+     * @return the events found that the student can attend, ordered by date.
      */
-    @Transactional
-    @Scheduled(cron = "0 0 11 * * ?")
-    public void scheduleEventReminderAttendanceNotifications() {
-        List<Event> events = this.eventRepository.findAllEventsDeadlineToday(LocalDate.now());
-        for (Event e: events) {
-            for (EventAttendance eventAttendance: e.getAttendances()) {
-                if (eventAttendance.getStatus()) {
-                NotificationFactory notificationFactory = new EventInscriptionLimitNotificationFactory(e.getDate(), eventAttendance.getUser());
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-                }
-            }
-        }
+    public List<EventDto> searchStudentEvents(int userId, String query, EventTypeEnum type, LocalDate from, LocalDate to, int size) {
+        User user = this.userService.findById(userId);
+        return this.eventSearchIndex.search(query, type, from, to, user.getBirthday(), clampPageSize(size));
     }
 
     /**
-     * Sends notification Finish Inscription.
+     * Finds events for a specific student in the current month.
+     *
+     * @param monthValue the month value (1-12).
+     * @param year the year.
+     * @param userId the ID of the student.
+     * @return the JSON map of day of the month to a list of event data transfer objects.
      */
-    @Transactional
-    @Scheduled(cron = "0 1 0 * * ?")
-    public void scheduleEventFinishInscriptionNotifications() {
-        List<Event> events = this.eventRepository.findAllEventsInscriptionFinished(LocalDate.now().minusDays(1));
-        List<User> administrators = this.userService.findAllAdministrators();
-        List<User> teachers = this.userService.getAllTeachers();
-
-        for (Event e: events) {
-            for (EventAttendance eventAttendance: e.getAttendances()) {
-                if (eventAttendance.getStatus() == null)
-                    eventAttendance.setStatus(false);
-            }
-            eventRepository.save(e);
-
-            for (User u: administrators) {
-                NotificationFactory notificationFactory = new EventInscriptionFinishedNotificationFactory(e.getDate(), u);
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-            }
-
-            for (User u: teachers) {
-                NotificationFactory notificationFactory = new EventInscriptionFinishedNotificationFactory(e.getDate(), u);
-                notificationFactory.createNotification();
-                this.notificationService.save(notificationFactory.getNotification());
-            }
-        }
-
-
-
+    public RawValue findActualMonthEventsStudent(int monthValue, int year, int userId) {
+        User user = this.userService.findById(userId);
+        return this.eventCalendarCache.findMonthForBirthday(monthValue, year, user.getBirthday());
     }
 
     /**
-     * Generates a PDF containing the details of events.
+     * Writes the roster of an event as a PDF: the users attending, those pending an answer
+     * and those not attending, each list on its own page.
+     * The roster is read with a single query ordered by status and written to the output
+     * as it is read, so only the lines of the current page are held in memory.
      *
-     * @return a byte array representing the PDF document.
-     * @throws DocumentException if an error occurs while creating the PDF document.
+     * @param event the event whose roster is written.
+     * @param out the stream the PDF document is written to. It is left open.
      */
-    public byte[] generatePdf(int eventId) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    @Transactional
+    public void writeRosterPdf(EventDto event, OutputStream out) {
         Document document = new Document(PageSize.A4);
 
-        try {
-            Event event = this.eventRepository.findById(eventId).orElseThrow();
-
-            PdfWriter.getInstance(document, out);
+        try (Stream<EventRosterEntryDto> roster = this.eventAttendanceService.streamRoster(event.getId())) {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
-            List<EventAttendance> eventAttendances = event.getAttendances();
-
-            List<EventAttendance> attendances = eventAttendances.stream()
-                    .filter(att -> att.getStatus() != null && att.getStatus())
-                    .filter(item -> item.getUser().isAllowedAccess())
-                    .toList();
-
-            List<EventAttendance> pendingAttendances = eventAttendances.stream()
-                    .filter(att -> att.getStatus() == null)
-                    .filter(item -> item.getUser().isAllowedAccess())
-                    .toList();
-
-            List<EventAttendance> notAttendances = eventAttendances.stream()
-                    .filter(att -> att.getStatus() != null && !att.getStatus())
-                    .filter(item -> item.getUser().isAllowedAccess())
-                    .toList();
-
             Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
             Font subtitleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, BaseColor.BLACK);
             Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 12, BaseColor.BLACK);
@@ -390,39 +525,41 @@ public class EventService {
 
             document.add(new Paragraph(" "));
 
-            Paragraph attendeesTitle = new Paragraph("Asistentes:", subtitleFont);
-            document.add(attendeesTitle);
-            for (EventAttendance att : attendances) {
-                Paragraph attendeeName = new Paragraph("-" + att.getUser().getRole().getName().name() + ": " + att.getUser().getFirstName() + " " + att.getUser().getLastName(), indentFont);
-                attendeeName.setIndentationLeft(20);
-                document.add(attendeeName);
-            }
-
-            document.newPage();
-
-            Paragraph pendingAttendeesTitle = new Paragraph("Sin confirmar:", subtitleFont);
-            document.add(pendingAttendeesTitle);
-            for (EventAttendance att : pendingAttendances) {
-                Paragraph attendeeName = new Paragraph("-" + att.getUser().getRole().getName().name() + ": " + att.getUser().getFirstName() + " " + att.getUser().getLastName(), indentFont);
+            int section = -1;
+            Iterator<EventRosterEntryDto> entries = roster.iterator();
+            while (entries.hasNext()) {
+                EventRosterEntryDto entry = entries.next();
+                while (section < 0 || !Objects.equals(ROSTER_SECTION_STATUSES[section], entry.getStatus())) {
+                    section++;
+                    startRosterSection(document, section, subtitleFont);
+                }
+                Paragraph attendeeName = new Paragraph("-" + entry.getRole().name() + ": " + entry.getFirstName() + " " + entry.getLastName(), indentFont);
                 attendeeName.setIndentationLeft(20);
                 document.add(attendeeName);
             }
-
-            document.newPage();
-
-            Paragraph nonAttendeesTitle = new Paragraph("No Asistentes:", subtitleFont);
-            document.add(nonAttendeesTitle);
-            for (EventAttendance att : notAttendances) {
-                Paragraph nonAttendeeName = new Paragraph("-" + att.getUser().getRole().getName().name() + ": " + att.getUser().getFirstName() + " " + att.getUser().getLastName(), indentFont);
-                nonAttendeeName.setIndentationLeft(20);
-                document.add(nonAttendeeName);
+            while (section < ROSTER_SECTION_STATUSES.length - 1) {
+                section++;
+                startRosterSection(document, section, subtitleFont);
             }
 
             document.close();
         } catch (DocumentException e) {
             throw new RuntimeException(e);
         }
+    }
 
-        return out.toByteArray();
+    /**
+     * Starts a section of the roster, on a new page for every section but the first.
+     *
+     * @param document the document being written.
+     * @param section the index of the section.
+     * @param subtitleFont the font of the section title.
+     * @throws DocumentException if an error occurs while writing the document.
+     */
+    private static void startRosterSection(Document document, int section, Font subtitleFont) throws DocumentException {
+        if (section > 0) {
+            document.newPage();
+        }
+        document.add(new Paragraph(ROSTER_SECTION_TITLES[section], subtitleFont));
     }
 }
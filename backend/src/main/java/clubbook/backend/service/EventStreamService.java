@@ -0,0 +1,220 @@
+package clubbook.backend.service;
+
+import clubbook.backend.dtos.EventChangeDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class that pushes the changes to the events and their RSVPs to the connected
+ * clients as Server-Sent Events. Changes are published on the application event bus by
+ * the services making them and received here once their transaction commits.
+ * Connections are asynchronous requests, so an idle client holds no thread. Each one has
+ * a bounded buffer drained by a small pool of senders, so a slow client never delays the
+ * others nor the publisher: when its buffer overflows, its pending changes are dropped
+ * and it is told to reload instead. Idle connections get a heartbeat, which also detects
+ * the clients that went away.
+ */
+@Service
+public class EventStreamService {
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final long timeout;
+
+    /**
+     * Constructs an EventStreamService with the specified settings.
+     *
+     * @param bufferSize the maximum number of changes waiting to be sent to a client
+     * @param timeout the time in milliseconds after which a connection is closed, so clients reconnect
+     * @param senders the number of threads sending the changes
+     */
+    @Autowired
+    public EventStreamService(@Value("${event.stream.buffer-size:256}") int bufferSize,
+                              @Value("${event.stream.timeout-ms:1800000}") long timeout,
+                              @Value("${event.stream.senders:4}") int senders) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "event-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a connection that receives every change committed from now on.
+     *
+     * @return the emitter of the connection
+     */
+    public SseEmitter connect() {
+        SseEmitter emitter = new SseEmitter(this.timeout);
+        Connection connection = new Connection(emitter);
+        emitter.onCompletion(() -> this.connections.remove(connection));
+        emitter.onTimeout(() -> {
+            this.connections.remove(connection);
+            emitter.complete();
+        });
+        emitter.onError(error -> this.connections.remove(connection));
+        this.connections.add(connection);
+        return emitter;
+    }
+
+    /**
+     * Queues a change for every connection once the transaction publishing it commits,
+     * or right away if it was published outside a transaction.
+     *
+     * @param change the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChangeDto change) {
+        long id = this.sequence.incrementAndGet();
+        for (Connection connection : this.connections) {
+            connection.offer(id, change);
+        }
+    }
+
+    /**
+     * Sends a heartbeat to the connections with nothing to send.
+     * This method is executed every fifteen seconds.
+     */
+    @Scheduled(fixedRate = 15000)
+    public void scheduleHeartbeat() {
+        for (Connection connection : this.connections) {
+            connection.heartbeat();
+        }
+    }
+
+    /**
+     * Closes every connection and stops the senders.
+     */
+    @PreDestroy
+    public void stop() {
+        for (Connection connection : this.connections) {
+            connection.emitter.complete();
+        }
+        this.senders.shutdownNow();
+    }
+
+    /**
+     * Returns the number of open connections.
+     *
+     * @return the number of connections
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * A connected client, with the changes waiting to be sent to it. At most one sender
+     * drains a connection at a time, so its changes are sent in order.
+     */
+    private final class Connection {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean heartbeat;
+
+        /**
+         * Builds a connection with an empty buffer.
+         *
+         * @param emitter the emitter of the connection
+         */
+        private Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Queues a change, marking the connection as overflowed if its buffer is full.
+         *
+         * @param id the sequence number of the change
+         * @param change the change
+         */
+        private void offer(long id, EventChangeDto change) {
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name("change")
+                    .data(change, MediaType.APPLICATION_JSON);
+            if (!this.buffer.offer(event)) {
+                this.overflowed = true;
+            }
+            this.schedule();
+        }
+
+        /**
+         * Asks for a heartbeat, sent only if nothing else is pending.
+         */
+        private void heartbeat() {
+            this.heartbeat = true;
+            this.schedule();
+        }
+
+        /**
+         * Hands the connection to a sender unless one already has it.
+         */
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    this.scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Sends what is pending: a reload notice if the buffer overflowed, then the changes
+         * queued, or a heartbeat if there were none. A client that cannot be written to is dropped.
+         */
+        private void drain() {
+            try {
+                boolean sent = false;
+                if (this.overflowed) {
+                    this.overflowed = false;
+                    this.buffer.clear();
+                    this.emitter.send(SseEmitter.event().name("reset").data("{}", MediaType.APPLICATION_JSON));
+                    sent = true;
+                }
+                SseEmitter.SseEventBuilder event;
+                while ((event = this.buffer.poll()) != null) {
+                    this.emitter.send(event);
+                    sent = true;
+                }
+                if (this.heartbeat) {
+                    this.heartbeat = false;
+                    if (!sent) {
+                        this.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                connections.remove(this);
+                this.buffer.clear();
+                this.emitter.completeWithError(e);
+                return;
+            } finally {
+                this.scheduled.set(false);
+            }
+            if (!this.buffer.isEmpty() || this.overflowed) {
+                this.schedule();
+            }
+        }
+    }
+}
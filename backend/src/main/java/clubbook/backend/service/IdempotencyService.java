@@ -0,0 +1,191 @@
+package clubbook.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service class that keeps the results of requests sent with an idempotency key.
+ * Keys belong to the user sending them and are reserved before the request runs, so
+ * duplicate submissions with the same key and payload are answered from this short-lived
+ * cache without touching the database, while a key reused with a different payload is refused.
+ */
+@Service
+public class IdempotencyService {
+
+    private final ObjectMapper objectMapper;
+    private final Duration timeToLive;
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an IdempotencyService with the specified mapper and time to live.
+     *
+     * @param objectMapper the mapper used to serialize the payloads before hashing them
+     * @param timeToLive how long a result is kept after being stored
+     */
+    @Autowired
+    public IdempotencyService(ObjectMapper objectMapper, @Value("${idempotency.time-to-live:PT10M}") Duration timeToLive) {
+        this.objectMapper = objectMapper;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Reserves an idempotency key for a request. The key is reserved atomically, so of several
+     * requests sent at the same time with the same key only one is allowed to run.
+     *
+     * @param scope the operation the key belongs to
+     * @param principal the name of the user sending the request
+     * @param key the idempotency key sent by the client
+     * @param payload the body of the request
+     * @return the claim on the key, telling whether the request must run
+     */
+    public Claim claim(String scope, String principal, String key, Object payload) {
+        String id = scope + ":" + principal + ":" + key;
+        byte[] fingerprint = this.fingerprint(payload);
+        Instant now = Instant.now();
+        CachedResult pending = new CachedResult(fingerprint, null, now.plus(this.timeToLive));
+        CachedResult current = this.results.compute(id, (k, cachedResult) ->
+                cachedResult == null || cachedResult.expiresAt().isBefore(now) ? pending : cachedResult);
+        if (current == pending) {
+            return new Claim(Status.RESERVED, id, pending);
+        }
+        if (!MessageDigest.isEqual(current.fingerprint(), fingerprint)) {
+            return new Claim(Status.MISMATCH, id, current);
+        }
+        return new Claim(current.value() == null ? Status.IN_PROGRESS : Status.COMPLETED, id, current);
+    }
+
+    /**
+     * Stores the result of a request that reserved its key.
+     *
+     * @param claim the claim returned when the key was reserved
+     * @param value the result to store
+     */
+    public void complete(Claim claim, Object value) {
+        CachedResult reserved = claim.cachedResult;
+        this.results.replace(claim.id, reserved, new CachedResult(reserved.fingerprint(), value, Instant.now().plus(this.timeToLive)));
+    }
+
+    /**
+     * Frees a key reserved by a request that failed, so it can be sent again.
+     *
+     * @param claim the claim returned when the key was reserved
+     */
+    public void release(Claim claim) {
+        this.results.remove(claim.id, claim.cachedResult);
+    }
+
+    /**
+     * Removes the expired results.
+     * This method is executed every minute.
+     */
+    @Scheduled(fixedRate = 60000)
+    public void scheduleEvictExpiredResults() {
+        Instant now = Instant.now();
+        this.results.values().removeIf(cachedResult -> cachedResult.expiresAt().isBefore(now));
+    }
+
+    /**
+     * Computes the SHA-256 hash of the JSON form of a payload.
+     *
+     * @param payload the body of the request
+     * @return the hash of the payload
+     */
+    private byte[] fingerprint(Object payload) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(this.objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to hash the request payload", e);
+        }
+    }
+
+    /**
+     * State of an idempotency key when a request claims it.
+     */
+    public enum Status {
+        /** The key was free and is now reserved for the request, which must run. */
+        RESERVED,
+        /** A previous request with the same payload already finished; its result must be returned. */
+        COMPLETED,
+        /** A previous request with the same payload is still running. */
+        IN_PROGRESS,
+        /** The key was already used with a different payload. */
+        MISMATCH
+    }
+
+    /**
+     * Claim of a request on an idempotency key.
+     */
+    public static final class Claim {
+
+        private final Status status;
+        private final String id;
+        private final CachedResult cachedResult;
+
+        private Claim(Status status, String id, CachedResult cachedResult) {
+            this.status = status;
+            this.id = id;
+            this.cachedResult = cachedResult;
+        }
+
+        /**
+         * Returns the state of the key when it was claimed.
+         *
+         * @return the state of the key
+         */
+        public Status getStatus() {
+            return this.status;
+        }
+
+        /**
+         * Returns the result stored for the key.
+         *
+         * @param type the expected type of the result
+         * @return the stored result, or null if the key has no result yet
+         */
+        public <T> T getValue(Class<T> type) {
+            return type.cast(this.cachedResult.value());
+        }
+    }
+
+    /**
+     * Entry kept for an idempotency key: the hash of the payload that reserved it, its result
+     * once the request finishes, and its expiration instant. Entries are compared by identity,
+     * so a request only completes or releases the reservation it made.
+     */
+    private static final class CachedResult {
+
+        private final byte[] fingerprint;
+        private final Object value;
+        private final Instant expiresAt;
+
+        private CachedResult(byte[] fingerprint, Object value, Instant expiresAt) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private byte[] fingerprint() {
+            return this.fingerprint;
+        }
+
+        private Object value() {
+            return this.value;
+        }
+
+        private Instant expiresAt() {
+            return this.expiresAt;
+        }
+    }
+}
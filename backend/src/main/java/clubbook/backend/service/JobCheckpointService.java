@@ -0,0 +1,91 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.JobCheckpoint;
+import clubbook.backend.model.notification.Notification;
+import clubbook.backend.repository.JobCheckpointRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service class that keeps the progress of chunked scheduled jobs.
+ * Every chunk commits its notifications together with the new position of the run,
+ * so a run resumed after a failure neither repeats nor skips a notification.
+ */
+@Service
+public class JobCheckpointService {
+
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final NotificationService notificationService;
+
+    /**
+     * Constructs a JobCheckpointService with the specified dependencies.
+     *
+     * @param jobCheckpointRepository the repository for job checkpoints
+     * @param notificationService the service for managing notifications
+     */
+    @Autowired
+    public JobCheckpointService(JobCheckpointRepository jobCheckpointRepository, NotificationService notificationService) {
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.notificationService = notificationService;
+    }
+
+    /**
+     * Returns the checkpoint of the run of a job for a given day, starting a new run
+     * if the last one recorded belongs to another day.
+     *
+     * @param name the name of the job
+     * @param runDate the day of the run
+     * @return the checkpoint of the run
+     */
+    @Transactional
+    public JobCheckpoint start(String name, LocalDate runDate) {
+        JobCheckpoint checkpoint = this.jobCheckpointRepository.findById(name).orElse(null);
+        if (checkpoint != null && runDate.equals(checkpoint.getRunDate())) {
+            return checkpoint;
+        }
+        return this.jobCheckpointRepository.save(new JobCheckpoint(name, runDate));
+    }
+
+    /**
+     * Saves the notifications of a chunk and moves the run past it, in a single transaction.
+     *
+     * @param name the name of the job
+     * @param eventId the ID of the event of the chunk
+     * @param userId the ID of the last user of the chunk, or {@link JobCheckpoint#EVENT_DONE}
+     * @param notifications the notifications built for the chunk
+     */
+    @Transactional
+    public void commitChunk(String name, int eventId, int userId, List<Notification> notifications) {
+        this.notificationService.saveAll(notifications);
+        JobCheckpoint checkpoint = this.jobCheckpointRepository.findById(name).orElseThrow();
+        checkpoint.setEventId(eventId);
+        checkpoint.setUserId(userId);
+        this.jobCheckpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Marks the run of a job as finished.
+     *
+     * @param name the name of the job
+     */
+    @Transactional
+    public void finish(String name) {
+        JobCheckpoint checkpoint = this.jobCheckpointRepository.findById(name).orElseThrow();
+        checkpoint.setFinished(true);
+        this.jobCheckpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Finds the runs of a given day that have not finished.
+     *
+     * @param runDate the day of the runs
+     * @return the names of the jobs whose run was interrupted
+     */
+    public List<String> findUnfinished(LocalDate runDate) {
+        return this.jobCheckpointRepository.findByRunDateAndFinishedFalse(runDate).stream().map(JobCheckpoint::getName).toList();
+    }
+}
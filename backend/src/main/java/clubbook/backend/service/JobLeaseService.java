@@ -0,0 +1,101 @@
+package clubbook.backend.service;
+
+import clubbook.backend.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Service class that coordinates the scheduled jobs of every instance of the backend.
+ * Each job has a lease row in the database; an instance runs a firing only after taking
+ * the lease, so a firing is run by a single instance. Leases expire on their own, so an
+ * instance that dies while running a job does not block it for good.
+ * Instance clocks are assumed to be kept in sync.
+ */
+@Service
+public class JobLeaseService {
+
+    private static final LocalDateTime EXPIRED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String owner;
+
+    /**
+     * Constructs a JobLeaseService with the specified dependencies.
+     *
+     * @param jobLeaseRepository the repository for job leases
+     * @param instanceId the identifier of this instance, or blank to generate a random one
+     */
+    @Autowired
+    public JobLeaseService(JobLeaseRepository jobLeaseRepository, @Value("${scheduling.instance-id:}") String instanceId) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.owner = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+    }
+
+    /**
+     * Takes the lease of a job, or extends it if this instance already holds it.
+     *
+     * @param name the name of the job
+     * @param duration how long the lease is held unless released or extended
+     * @return true if this instance holds the lease, false if another instance does
+     */
+    public boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        if (this.jobLeaseRepository.acquire(name, this.owner, now, now.plus(duration)) == 1) {
+            return true;
+        }
+        try {
+            this.jobLeaseRepository.insertExpired(name, EXPIRED);
+        } catch (DataIntegrityViolationException e) {
+            // The lease already exists, either from before or created by another instance meanwhile.
+        }
+        return this.jobLeaseRepository.acquire(name, this.owner, now, now.plus(duration)) == 1;
+    }
+
+    /**
+     * Ends the lease of a job held by this instance, so any instance can take it right away.
+     *
+     * @param name the name of the job
+     */
+    public void release(String name) {
+        this.jobLeaseRepository.release(name, this.owner, LocalDateTime.now());
+    }
+
+    /**
+     * Runs a firing of a job if this instance takes its lease. On success the lease is kept
+     * until it expires, so instances whose trigger fires a little later skip the same firing.
+     * On failure it is released, so the next firing on any instance can retry.
+     * The duration must be shorter than the interval between firings.
+     *
+     * @param name the name of the job
+     * @param duration how long the lease is held
+     * @param job the job
+     * @return true if this instance ran the job, false if another instance holds the lease
+     */
+    public boolean runExclusively(String name, Duration duration, Runnable job) {
+        if (!this.tryAcquire(name, duration)) {
+            return false;
+        }
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            this.release(name);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the identifier this instance holds leases with.
+     *
+     * @return the identifier of this instance
+     */
+    public String getOwner() {
+        return this.owner;
+    }
+}
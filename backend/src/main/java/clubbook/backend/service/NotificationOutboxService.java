@@ -0,0 +1,205 @@
+package clubbook.backend.service;
+
+import clubbook.backend.model.notification.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class that delivers notifications asynchronously through a transactional outbox.
+ * Notifications are written to the outbox inside the caller's transaction and, once it
+ * commits, handed to a background worker through a bounded in-process queue. The worker
+ * moves them to the notifications table in batches. Notifications that do not fit in the
+ * queue, or that were pending when the application stopped, are recovered from the outbox
+ * by a scheduled sweep.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Duration SWEEP_DELAY = Duration.ofMinutes(1);
+    private static final String SWEEP_JOB = "relay-notification-outbox";
+    private static final Duration SWEEP_LEASE = Duration.ofSeconds(30);
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    private final NotificationService notificationService;
+    private final JobLeaseService jobLeaseService;
+    private final BlockingQueue<Map.Entry<String, Notification>> queue;
+    private final int batchSize;
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Constructs a NotificationOutboxService with the specified dependencies.
+     *
+     * @param notificationService the service for managing notifications
+     * @param jobLeaseService the service that coordinates the scheduled jobs across instances
+     * @param capacity the maximum number of notifications waiting in memory
+     * @param batchSize the maximum number of notifications delivered per batch
+     */
+    @Autowired
+    public NotificationOutboxService(NotificationService notificationService, JobLeaseService jobLeaseService,
+                                     @Value("${notification.outbox.capacity:10000}") int capacity,
+                                     @Value("${notification.outbox.batch-size:200}") int batchSize) {
+        this.notificationService = notificationService;
+        this.jobLeaseService = jobLeaseService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts the background worker.
+     */
+    @PostConstruct
+    public void start() {
+        this.running = true;
+        this.worker = new Thread(this::drain, "notification-outbox");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Stops the background worker. Notifications still in the queue remain in the outbox.
+     *
+     * @throws InterruptedException if interrupted while waiting for the worker to finish
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        this.worker.interrupt();
+        this.worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Writes notifications to the outbox and queues them for delivery once the current transaction commits.
+     * Outside a transaction they are queued right away.
+     *
+     * @param notifications the notifications to deliver
+     */
+    public void enqueue(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Map<String, Notification> pending = new LinkedHashMap<>(notifications.size());
+        for (Notification notification : notifications) {
+            pending.put(UUID.randomUUID().toString(), notification);
+        }
+        this.notificationService.saveAllToOutbox(pending);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offerAll(pending);
+                }
+            });
+        } else {
+            this.offerAll(pending);
+        }
+    }
+
+    /**
+     * Moves every notification of the outbox created before a given instant to the notifications table.
+     *
+     * @param before the creation instant limit, exclusive
+     * @return the number of notifications read from the outbox
+     */
+    public int relayCreatedBefore(LocalDateTime before) {
+        int total = 0;
+        int relayed;
+        do {
+            relayed = this.notificationService.relayOutboxCreatedBefore(before, this.batchSize);
+            total += relayed;
+        } while (relayed == this.batchSize);
+        return total;
+    }
+
+    /**
+     * Recovers the notifications left in the outbox, either because the queue was full
+     * or because the application stopped before delivering them.
+     * This method is executed every minute, by a single instance.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void scheduleRelayOutbox() {
+        this.jobLeaseService.runExclusively(SWEEP_JOB, SWEEP_LEASE,
+                () -> this.relayCreatedBefore(LocalDateTime.now().minus(SWEEP_DELAY)));
+    }
+
+    /**
+     * Queues notifications for the worker. Notifications that do not fit stay in the
+     * outbox until the next sweep.
+     *
+     * @param pending the notifications to deliver, by outbox ID
+     */
+    private void offerAll(Map<String, Notification> pending) {
+        for (Map.Entry<String, Notification> entry : pending.entrySet()) {
+            if (!this.queue.offer(entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Worker loop: waits for queued notifications and delivers them in batches.
+     */
+    private void drain() {
+        List<Map.Entry<String, Notification>> batch = new ArrayList<>(this.batchSize);
+        while (this.running) {
+            try {
+                Map.Entry<String, Notification> first = this.queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                this.queue.drainTo(batch, this.batchSize - 1);
+                Map<String, Notification> notifications = new LinkedHashMap<>(batch.size());
+                for (Map.Entry<String, Notification> entry : batch) {
+                    notifications.put(entry.getKey(), entry.getValue());
+                }
+                this.notificationService.relayFromOutbox(notifications);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                this.recordFailure(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Records a batch the worker failed to deliver on its outbox rows, where the next sweep
+     * picks it up again.
+     *
+     * @param batch the notifications that were not delivered, by outbox ID
+     * @param error the error raised while delivering them
+     */
+    private void recordFailure(List<Map.Entry<String, Notification>> batch, RuntimeException error) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Map.Entry<String, Notification> entry : batch) {
+            ids.add(entry.getKey());
+        }
+        LOGGER.warn("Unable to deliver {} notifications from the outbox, they will be retried by the next sweep", ids.size(), error);
+        String message = error.toString();
+        try {
+            this.notificationService.recordOutboxFailure(ids, message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to record the failed delivery of {} notifications on the outbox", ids.size(), e);
+        }
+    }
+}
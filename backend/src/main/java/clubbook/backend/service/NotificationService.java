@@ -7,8 +7,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for managing notifications within the application.
@@ -17,16 +21,22 @@ import java.util.List;
 @Service
 public class NotificationService {
 
+    private static final String DELETE_OLD_NOTIFICATIONS_JOB = "delete-old-notifications";
+    private static final Duration DELETE_OLD_NOTIFICATIONS_LEASE = Duration.ofHours(1);
+
     private final NotificationRepository notificationRepository;
+    private final JobLeaseService jobLeaseService;
 
     /**
-     * Constructs a new NotificationService with the specified NotificationRepository.
+     * Constructs a new NotificationService with the specified dependencies.
      *
      * @param notificationRepository the repository used for notification operations
+     * @param jobLeaseService the service that coordinates the scheduled jobs across instances
      */
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository) {
+    public NotificationService(NotificationRepository notificationRepository, JobLeaseService jobLeaseService) {
         this.notificationRepository = notificationRepository;
+        this.jobLeaseService = jobLeaseService;
     }
 
     /**
@@ -39,6 +49,128 @@ public class NotificationService {
         return notificationRepository.save(notification);
     }
 
+    /**
+     * Saves a list of notifications to the database in a single batch.
+     *
+     * @param notifications the notifications to be saved
+     */
+    public void saveAll(List<Notification> notifications) {
+        notificationRepository.insertAllInBatch(notifications);
+    }
+
+    /**
+     * Saves a copy of a notification for every user registered in an event with a single statement.
+     * The user of the given notification is ignored.
+     *
+     * @param notification the notification to be sent
+     * @param eventId the ID of the event whose attendees are notified
+     * @return the number of notifications saved
+     */
+    public int saveForEventAttendees(Notification notification, int eventId) {
+        return notificationRepository.insertForEventAttendees(notification.getTitle(), notification.getCreatedAt(),
+                notification.getDate(), notification.getContent(), eventId);
+    }
+
+    /**
+     * Saves a copy of a notification, with a single statement, for the students of an event
+     * that remain registered under a new birth date range. The user of the given notification is ignored.
+     *
+     * @param notification the notification to be sent
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the new birth date range
+     * @param birthYearEnd the end of the new birth date range
+     * @return the number of notifications saved
+     */
+    public int saveForKeptEventStudents(Notification notification, int eventId, LocalDate birthYearStart, LocalDate birthYearEnd) {
+        return notificationRepository.insertForEventStudentsInsideRange(notification.getTitle(), notification.getCreatedAt(),
+                notification.getDate(), notification.getContent(), eventId, birthYearStart, birthYearEnd);
+    }
+
+    /**
+     * Saves a copy of a notification, with a single statement, for the students of an event
+     * left out by a new birth date range. The user of the given notification is ignored.
+     *
+     * @param notification the notification to be sent
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the new birth date range
+     * @param birthYearEnd the end of the new birth date range
+     * @return the number of notifications saved
+     */
+    public int saveForRemovedEventStudents(Notification notification, int eventId, LocalDate birthYearStart, LocalDate birthYearEnd) {
+        return notificationRepository.insertForEventStudentsOutsideRange(notification.getTitle(), notification.getCreatedAt(),
+                notification.getDate(), notification.getContent(), eventId, birthYearStart, birthYearEnd);
+    }
+
+    /**
+     * Saves a copy of a notification, with a single statement, for the students brought into an
+     * event by a new birth date range. The user of the given notification is ignored.
+     *
+     * @param notification the notification to be sent
+     * @param eventId the ID of the event
+     * @param birthYearStart the start of the new birth date range
+     * @param birthYearEnd the end of the new birth date range
+     * @return the number of notifications saved
+     */
+    public int saveForAddedEventStudents(Notification notification, int eventId, LocalDate birthYearStart, LocalDate birthYearEnd) {
+        return notificationRepository.insertForStudentsMissingFromEvent(notification.getTitle(), notification.getCreatedAt(),
+                notification.getDate(), notification.getContent(), eventId, birthYearStart, birthYearEnd);
+    }
+
+    /**
+     * Writes notifications to the outbox in a single batch, to be delivered once the
+     * current transaction commits.
+     *
+     * @param notifications the notifications to be delivered, by outbox ID
+     */
+    public void saveAllToOutbox(Map<String, Notification> notifications) {
+        notificationRepository.insertAllIntoOutbox(notifications);
+    }
+
+    /**
+     * Moves notifications from the outbox to the notifications table.
+     * Only the notifications still present in the outbox are inserted, so a
+     * notification relayed twice is delivered once.
+     *
+     * @param notifications the notifications to be delivered, by outbox ID
+     * @return the number of notifications delivered
+     */
+    @Transactional
+    public int relayFromOutbox(Map<String, Notification> notifications) {
+        List<String> deleted = notificationRepository.deleteFromOutbox(new ArrayList<>(notifications.keySet()));
+        List<Notification> delivered = new ArrayList<>(deleted.size());
+        for (String id : deleted) {
+            delivered.add(notifications.get(id));
+        }
+        notificationRepository.insertAllInBatch(delivered);
+        return delivered.size();
+    }
+
+    /**
+     * Records a failed delivery of notifications of the outbox, so they are retried by the next
+     * sweep with the number of attempts and the last error available for inspection.
+     *
+     * @param ids the outbox IDs of the notifications
+     * @param error the error of the failed delivery
+     */
+    @Transactional
+    public void recordOutboxFailure(List<String> ids, String error) {
+        notificationRepository.recordOutboxFailure(ids, error);
+    }
+
+    /**
+     * Moves the oldest notifications of the outbox created before a given instant to the notifications table.
+     *
+     * @param before the creation instant limit, exclusive
+     * @param limit the maximum number of notifications to move
+     * @return the number of notifications read from the outbox
+     */
+    @Transactional
+    public int relayOutboxCreatedBefore(LocalDateTime before, int limit) {
+        Map<String, Notification> notifications = notificationRepository.findOutboxCreatedBefore(before, limit);
+        this.relayFromOutbox(notifications);
+        return notifications.size();
+    }
+
     /**
      * Retrieves a list of notifications for a specific user, ordered by creation date in descending order.
      *
@@ -51,12 +183,13 @@ public class NotificationService {
 
     /**
      * Schedules the deletion of notifications that are older than 7 days.
-     * This method is executed at midnight every day.
+     * This method is executed at midnight every day, by a single instance.
      */
     @Transactional
     @Scheduled(cron = "0 0 0 * * ?")
     public void scheduleDeleteOldNotifications() {
-        notificationRepository.deleteByCreatedAtBefore(LocalDate.now().minusDays(7));
+        this.jobLeaseService.runExclusively(DELETE_OLD_NOTIFICATIONS_JOB, DELETE_OLD_NOTIFICATIONS_LEASE,
+                () -> notificationRepository.deleteByCreatedAtBefore(LocalDate.now().minusDays(7)));
     }
 
     /**
@@ -21,6 +21,7 @@ public class SeasonService {
     private final UserService userService;
     private final ClassGroupService classGroupService;
     private final NotebookService notebookService;
+    private final CalendarVersionService calendarVersionService;
 
     /**
      * Constructs a new SeasonService with the specified dependencies.
@@ -29,13 +30,15 @@ public class SeasonService {
      * @param userService the service for managing user-related operations
      * @param classGroupService the service for managing class groups
      * @param notebookService the service for managing notebooks
+     * @param calendarVersionService the service that keeps the change versions of the calendar feeds
      */
     @Autowired
-    public SeasonService(SeasonRepository seasonRepository, UserService userService, ClassGroupService classGroupService, NotebookService notebookService) {
+    public SeasonService(SeasonRepository seasonRepository, UserService userService, ClassGroupService classGroupService, NotebookService notebookService, CalendarVersionService calendarVersionService) {
         this.seasonRepository = seasonRepository;
         this.userService = userService;
         this.classGroupService = classGroupService;
         this.notebookService = notebookService;
+        this.calendarVersionService = calendarVersionService;
     }
 
     /**
@@ -62,12 +65,14 @@ public class SeasonService {
      * @param adminId the ID of the admin who is starting the season
      * @return true if the season was successfully started
      */
+    @Transactional
     public boolean startSeason(int adminId) {
         Season season = new Season();
         season.setInit(LocalDate.now());
         season.setActive(true);
         season.setAdminCreator(this.userService.findById(adminId));
         this.seasonRepository.save(season);
+        this.calendarVersionService.touchSeason();
 
         List<ClassGroup> allClassGroups = this.classGroupService.getAllClassGroups();
         for (ClassGroup c : allClassGroups) {
@@ -90,6 +95,7 @@ public class SeasonService {
         season.setFinish(LocalDate.now());
         this.userService.removeUsers();
         this.seasonRepository.save(season);
+        this.calendarVersionService.touchSeason();
 
         this.notebookService.deleteAllNotebooks();
         return true;
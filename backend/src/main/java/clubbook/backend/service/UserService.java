@@ -12,7 +12,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.security.SecureRandom;
 import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,20 +26,26 @@ import java.util.Optional;
 @Service
 public class UserService {
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final UserRepository userRepository;
 
     private final ClassGroupRepository classGroupRepository;
 
+    private final CalendarVersionService calendarVersionService;
+
     /**
      * Constructs a new UserService with the specified user and class group repositories.
      *
      * @param userRepository the repository for managing user data
      * @param classGroupRepository the repository for managing class group data
+     * @param calendarVersionService the service that keeps the change versions of the calendar feeds
      */
     @Autowired
-    public UserService(UserRepository userRepository, ClassGroupRepository classGroupRepository) {
+    public UserService(UserRepository userRepository, ClassGroupRepository classGroupRepository, CalendarVersionService calendarVersionService) {
         this.userRepository = userRepository;
         this.classGroupRepository = classGroupRepository;
+        this.calendarVersionService = calendarVersionService;
     }
 
     /**
@@ -54,8 +63,11 @@ public class UserService {
      * @param user the user to be saved
      * @return the saved user
      */
+    @Transactional
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        this.calendarVersionService.touchUsers(List.of(saved.getId()));
+        return saved;
     }
 
     /**
@@ -80,6 +92,57 @@ public class UserService {
         return optionalUser.orElse(null);
     }
 
+    /**
+     * Finds a user by the secret token of their calendar feed.
+     *
+     * @param calendarToken the token of the calendar feed
+     * @return the user if found, null otherwise
+     */
+    public User findByCalendarToken(String calendarToken) {
+        Optional<User> optionalUser = userRepository.findByCalendarToken(calendarToken);
+        return optionalUser.orElse(null);
+    }
+
+    /**
+     * Returns the secret token of the calendar feed of a user, creating it the first time.
+     * Tokens are 256 random bits, so the feed URL cannot be guessed from the user ID.
+     * Of several requests creating the token at once, only the first one sets it.
+     *
+     * @param id the ID of the user
+     * @return the token of the calendar feed
+     */
+    @Transactional
+    public String getCalendarToken(int id) {
+        String calendarToken = userRepository.findCalendarTokenById(id);
+        if (calendarToken != null) {
+            return calendarToken;
+        }
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        userRepository.assignCalendarToken(id, Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+        return userRepository.findCalendarTokenById(id);
+    }
+
+    /**
+     * Finds all users whose ID is in the given collection with a single query.
+     *
+     * @param ids the IDs of the users to find
+     * @return the users found, in no particular order
+     */
+    public List<User> findAllById(Collection<Integer> ids) {
+        return userRepository.findAllById(ids);
+    }
+
+    /**
+     * Returns a reference to the user with the given ID without loading it.
+     *
+     * @param id the ID of the user
+     * @return a lazy reference to the user
+     */
+    public User getReferenceById(int id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Retrieves a paginated list of students sorted by their name.
      *
@@ -0,0 +1,7 @@
+-- Indexes Hibernate cannot declare, created once the tables exist.
+
+-- Birthday lookups of upcoming events match daterange(LEAST(birth_year_start, birth_year_end),
+-- GREATEST(birth_year_start, birth_year_end), '[]') @> birthday. The bounds are ordered, so a row
+-- with an inverted range does not stop the index from being built.
+DROP INDEX IF EXISTS idx_event_birth_range;
+CREATE INDEX IF NOT EXISTS idx_event_birth_ordered_range ON T_Event USING gist (daterange(LEAST(birth_year_start, birth_year_end), GREATEST(birth_year_start, birth_year_end), '[]'));
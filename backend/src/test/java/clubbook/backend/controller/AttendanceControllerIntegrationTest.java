@@ -1,18 +1,41 @@
 package clubbook.backend.controller;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import clubbook.backend.service.AttendanceBitmapService;
+import clubbook.backend.service.NotificationOutboxService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -24,6 +47,29 @@ public class AttendanceControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceBitmapService attendanceBitmapService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    private long countStatementsGettingAttendances(Statistics statistics) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/attendance/10/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
     @Transactional
     @Test
     @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
@@ -160,4 +206,364 @@ public class AttendanceControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isForbidden());
     }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void getAttendancesStatementCountIndependentOfRosterSize() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        long smallRosterStatements = this.countStatementsGettingAttendances(statistics);
+
+        jdbcTemplate.update("UPDATE t_class_group_students SET class_group_id = 1 WHERE class_group_id = 2");
+        for (int userId = 11; userId <= 20; userId++) {
+            jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (?, '2024-10-01', ?, true)", 1000 + userId, userId);
+            jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (?, '2024-10-08', ?, false)", 2000 + userId, userId);
+        }
+        attendanceBitmapService.rebuildActiveSeason();
+
+        long bigRosterStatements = this.countStatementsGettingAttendances(statistics);
+
+        statistics.setStatisticsEnabled(false);
+        assertEquals(smallRosterStatements, bigRosterStatements);
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void saveAttendancesIdempotencyKeyReusedTestTeacher() throws Exception {
+        String jsonRequest = "{"
+                + "\"date\": \"2024-01-01\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9],"
+                + "\"usersIdsNotAttended\": [10]"
+                + "}";
+        String otherRequest = jsonRequest.replace("[10]", "[]").replace("9]", "9, 10]");
+
+        mockMvc.perform(post("/attendance/new")
+                        .header("Idempotency-Key", "roll-call-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/attendance/new")
+                        .header("Idempotency-Key", "roll-call-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.usersIdsNotAttended[0]").value(10));
+        mockMvc.perform(post("/attendance/new")
+                        .header("Idempotency-Key", "roll-call-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherRequest))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject("SELECT attended FROM t_attendance WHERE attendance_date = '2024-01-01' AND user_id = 10", Boolean.class));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void saveAttendancesTwiceOverwritesTestTeacher() throws Exception {
+        String jsonRequest = "{"
+                + "\"date\": \"2024-01-01\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9],"
+                + "\"usersIdsNotAttended\": [10]"
+                + "}";
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/attendance/new")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonRequest))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_attendance WHERE attendance_date = '2024-01-01'", Integer.class));
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT attended FROM t_attendance WHERE attendance_date = '2024-01-01' AND user_id = 7", Boolean.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification_outbox WHERE user_id = 10", Integer.class));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void saveAttendancesUpdatesBitmapsTestTeacher() throws Exception {
+        String jsonRequest = "{"
+                + "\"date\": \"2024-10-01\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 8, 9, 10],"
+                + "\"usersIdsNotAttended\": [7]"
+                + "}";
+
+        mockMvc.perform(post("/attendance/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk());
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_attendance_bitmap WHERE season_start = '2024-09-01'", Integer.class));
+        mockMvc.perform(get("/attendance/10/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.datesList.length()").value(1))
+                .andExpect(jsonPath("$.data.datesList[0]").value("2024-10-01"))
+                .andExpect(jsonPath("$.data.usersList.length()").value(10));
+        mockMvc.perform(get("/attendance/11/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.datesList.length()").value(0));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    public void rebuildBitmapsTestAdministrator() throws Exception {
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1001, '2024-10-01', 1, true)");
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1002, '2024-10-03', 1, false)");
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1003, '2024-10-01', 2, false)");
+
+        mockMvc.perform(post("/attendance/bitmaps/rebuild")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(2));
+        mockMvc.perform(get("/attendance/10/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.datesList.length()").value(2));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void rebuildBitmapsTestTeacher() throws Exception {
+        mockMvc.perform(post("/attendance/bitmaps/rebuild")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void getRatesAfterOverwriteTestTeacher() throws Exception {
+        String absentRequest = "{"
+                + "\"date\": \"2024-10-01\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 8, 9, 10],"
+                + "\"usersIdsNotAttended\": [7]"
+                + "}";
+        String presentRequest = "{"
+                + "\"date\": \"2024-10-03\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9],"
+                + "\"usersIdsNotAttended\": [10]"
+                + "}";
+        String fixedRequest = absentRequest.replace("6, 8", "6, 7, 8").replace("[7]", "[]");
+
+        for (String jsonRequest : new String[]{absentRequest, presentRequest, fixedRequest}) {
+            mockMvc.perform(post("/attendance/new")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonRequest))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/attendance/rate/classgroup/1")
+                        .param("from", "2024-09")
+                        .param("to", "2024-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.marked").value(20))
+                .andExpect(jsonPath("$.data.attended").value(19));
+        mockMvc.perform(get("/attendance/rate/student/7")
+                        .param("from", "2024-10")
+                        .param("to", "2024-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.marked").value(2))
+                .andExpect(jsonPath("$.data.rate").value(1.0));
+        mockMvc.perform(get("/attendance/rate/student/7")
+                        .param("from", "2024-11")
+                        .param("to", "2024-10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    public void rebuildRollupsTestAdministrator() throws Exception {
+        for (int userId = 1; userId <= 10; userId++) {
+            jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (?, '2024-10-01', ?, false)", 1000 + userId, userId);
+        }
+        String jsonRequest = "{"
+                + "\"date\": \"2024-10-03\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9, 10],"
+                + "\"usersIdsNotAttended\": []"
+                + "}";
+        mockMvc.perform(post("/attendance/new")
+                        .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/attendance/rollups/rebuild")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(10));
+        mockMvc.perform(post("/attendance/new")
+                        .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest.replace("2024-10-03", "2024-10-01")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/attendance/rate/classgroup/1")
+                        .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                        .param("from", "2024-10")
+                        .param("to", "2024-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.marked").value(20))
+                .andExpect(jsonPath("$.data.attended").value(20));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void rebuildRollupsTestTeacher() throws Exception {
+        mockMvc.perform(post("/attendance/rollups/rebuild")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    public void getRatesTestStudent() throws Exception {
+        mockMvc.perform(get("/attendance/rate/classgroup/1")
+                        .param("from", "2024-09")
+                        .param("to", "2024-10"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void consecutiveAbsencesEscalateOnceTestTeacher() throws Exception {
+        for (String date : new String[]{"2024-10-01", "2024-10-03", "2024-10-08", "2024-10-10"}) {
+            String jsonRequest = "{"
+                    + "\"date\": \"" + date + "\","
+                    + "\"classGroup\": 1,"
+                    + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9],"
+                    + "\"usersIdsNotAttended\": [10]"
+                    + "}";
+            mockMvc.perform(post("/attendance/new")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonRequest))
+                    .andExpect(status().isOk());
+        }
+        entityManager.flush();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification_outbox WHERE user_id = 10 AND title = 'Faltas de asistencia consecutivas'", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT absences FROM t_absence_streak WHERE user_id = 10", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT absences FROM t_absence_streak WHERE user_id = 1", Integer.class));
+    }
+
+    @Test
+    public void saveAttendancesConcurrentlyTestTeacher() throws Exception {
+        this.saveConcurrently("2024-10-01", "2024-10-03", "2024-10-08", "2024-10-10");
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_attendance_bitmap WHERE season_start = '2024-09-01'", Integer.class));
+        mockMvc.perform(get("/attendance/10/1")
+                        .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.datesList.length()").value(4))
+                .andExpect(jsonPath("$.data.usersList.length()").value(10));
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_absence_streak WHERE absences = 0", Integer.class));
+        mockMvc.perform(get("/attendance/rate/classgroup/1")
+                        .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                        .param("from", "2024-10")
+                        .param("to", "2024-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.marked").value(40))
+                .andExpect(jsonPath("$.data.attended").value(40));
+    }
+
+    private void saveConcurrently(String... dates) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(dates.length);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> rollCalls = new ArrayList<>(dates.length);
+            for (String date : dates) {
+                String jsonRequest = "{"
+                        + "\"date\": \"" + date + "\","
+                        + "\"classGroup\": 1,"
+                        + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8, 9, 10],"
+                        + "\"usersIdsNotAttended\": []"
+                        + "}";
+                rollCalls.add(executor.submit(() -> {
+                    start.await();
+                    mockMvc.perform(post("/attendance/new")
+                                    .with(user("testteacher1@gmail.com").roles("TEACHER"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(jsonRequest))
+                            .andExpect(status().isOk());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> rollCall : rollCalls) {
+                rollCall.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void absenceNotificationsRelayedFromOutboxTestTeacher() throws Exception {
+        String jsonRequest = "{"
+                + "\"date\": \"2024-10-01\","
+                + "\"classGroup\": 1,"
+                + "\"usersIdsAttended\": [1, 2, 3, 4, 5, 6, 7, 8],"
+                + "\"usersIdsNotAttended\": [9, 10]"
+                + "}";
+        mockMvc.perform(post("/attendance/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk());
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification_outbox", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification WHERE user_id IN (9, 10)", Integer.class));
+
+        assertEquals(2, notificationOutboxService.relayCreatedBefore(LocalDateTime.now().plusSeconds(1)));
+        assertEquals(0, notificationOutboxService.relayCreatedBefore(LocalDateTime.now().plusSeconds(1)));
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification_outbox", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification WHERE user_id IN (9, 10)", Integer.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    public void exportTeacherCsvTestTeacher() throws Exception {
+        jdbcTemplate.update("UPDATE t_class_group SET name = 'Judo, \"Beginners\"' WHERE id = 1");
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1001, '2024-10-01', 1, true)");
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1002, '2024-10-03', 1, true)");
+        jdbcTemplate.update("INSERT INTO t_attendance(id, attendance_date, user_id, attended) VALUES (1003, '2024-10-01', 2, false)");
+
+        MvcResult result = mockMvc.perform(get("/attendance/export/61"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string("Clase,Nombre,Apellidos,Fecha,Asistencia\n"
+                        + "\"Judo, \"\"Beginners\"\"\",Jane,Jordan,2024-10-01,F\n"
+                        + "\"Judo, \"\"Beginners\"\"\",John,Gordon,2024-10-01,A\n"
+                        + "\"Judo, \"\"Beginners\"\"\",John,Gordon,2024-10-03,A\n"));
+    }
+
+    @Transactional
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    public void exportTeacherCsvTestStudent() throws Exception {
+        mockMvc.perform(get("/attendance/export/61"))
+                .andExpect(status().isForbidden());
+    }
 }
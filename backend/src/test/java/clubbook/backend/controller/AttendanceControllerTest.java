@@ -1,31 +1,56 @@
 package clubbook.backend.controller;
 
 import clubbook.backend.dtos.AttendanceDto;
+import clubbook.backend.dtos.AttendanceRateDto;
 import clubbook.backend.dtos.ClassGroupAttendanceDto;
 import clubbook.backend.model.*;
 import clubbook.backend.model.enumClasses.RoleEnum;
 import clubbook.backend.model.notification.Notification;
+import clubbook.backend.repository.AbsenceStreakRepository;
+import clubbook.backend.repository.AttendanceBitmapRepository;
 import clubbook.backend.repository.AttendanceRepository;
+import clubbook.backend.repository.AttendanceRollupRepository;
 import clubbook.backend.repository.NotificationRepository;
 import clubbook.backend.responses.ResponseMessages;
 import clubbook.backend.responses.ResponseWrapper;
 import clubbook.backend.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -49,6 +74,27 @@ class AttendanceControllerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private AttendanceBitmapService attendanceBitmapService;
+
+    @Mock
+    private AttendanceBitmapRepository attendanceBitmapRepository;
+
+    @Mock
+    private AttendanceRollupService attendanceRollupService;
+
+    @Mock
+    private AttendanceRollupRepository attendanceRollupRepository;
+
+    @Mock
+    private AbsenceStreakService absenceStreakService;
+
+    @Mock
+    private AbsenceStreakRepository absenceStreakRepository;
+
     @InjectMocks
     private AttendanceService attendanceService;
 
@@ -124,7 +170,7 @@ class AttendanceControllerTest {
             attendanceDtoList.add(new AttendanceDto(LocalDate.of(2024, 1, ++i), 1, attended, notAttended));
         }
 
-        this.attendanceController = new AttendanceController(attendanceService, classGroupService, seasonService);
+        this.attendanceController = new AttendanceController(attendanceService, classGroupService, seasonService, new IdempotencyService(new ObjectMapper().findAndRegisterModules(), Duration.ofMinutes(10)));
 
 
         int i = 0;
@@ -134,35 +180,294 @@ class AttendanceControllerTest {
                 new Attendance(++i, LocalDate.of(2024, 1, 1), studentList.get(i- 1), false)));
     }
 
+    private List<Object[]> createBitmapRows(LocalDate seasonStart) {
+        List<Object[]> rows = new ArrayList<>(this.studentList.size());
+        for (User user : this.studentList) {
+            BitSet present = new BitSet();
+            BitSet marked = new BitSet();
+            for (Attendance attendance : this.attendanceList) {
+                if (attendance.getUser().getId() == user.getId()) {
+                    int ordinal = AttendanceBitmap.ordinal(seasonStart, attendance.getAttendanceDate());
+                    marked.set(ordinal);
+                    present.set(ordinal, attendance.isAttended());
+                }
+            }
+            rows.add(new Object[]{user.getId(), user.getFirstName(), user.getLastName(), present.toByteArray(), marked.toByteArray()});
+        }
+        return rows;
+    }
+
     @Test
     void saveAttendances() {
         when(classGroupService.findById(any(Integer.class))).thenReturn(this.classGroup);
+        when(userService.findAllById(any(Collection.class))).thenReturn(studentList);
+        when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
+        ResponseEntity<ResponseWrapper<AttendanceDto>> attendanceDtoResponseEntity = this.attendanceController.saveAttendances(attendanceDtoList.get(0), null);
+        assertEquals(HttpStatus.OK, attendanceDtoResponseEntity.getStatusCode());
+        verify(attendanceRepository).upsertAllInBatch(argThat(list -> list.size() == 4));
+        verify(attendanceBitmapService).record(argThat(list -> list.size() == 4));
+        verify(attendanceRollupService).record(eq(this.classGroup), eq(LocalDate.of(2024, 1, 1)), argThat(list -> list.size() == 4), eq(Map.of()));
+        verify(notificationOutboxService).enqueue(argThat(list -> list.size() == 2));
+    }
+
+    @Test
+    void recordOverwritesRollups() {
+        LocalDate monthStart = LocalDate.of(2024, 1, 1);
+        AttendanceRollup existing = new AttendanceRollup(this.studentList.get(0), this.classGroup, monthStart);
+        existing.setAttended(3);
+        existing.setMarked(4);
+        List<AttendanceRollup> found = new ArrayList<>(List.of(existing));
+        for (User student : this.studentList.subList(1, 4)) {
+            found.add(new AttendanceRollup(student, this.classGroup, monthStart));
+        }
+        when(attendanceRollupRepository.findForUpdate(eq(1), eq(monthStart), any(Collection.class))).thenReturn(found);
+
+        AttendanceRollupService rollupService = new AttendanceRollupService(attendanceRollupRepository, seasonService, mock(JobLeaseService.class));
+        rollupService.record(this.classGroup, LocalDate.of(2024, 1, 1), this.attendanceList, Map.of(1, false, 3, true));
+
+        verify(attendanceRollupRepository).insertMissing(1, monthStart, Set.of(1, 2, 3, 4));
+
+        verify(attendanceRollupRepository).saveAll(argThat((Collection<AttendanceRollup> rollups) -> {
+            if (rollups.size() != 4) {
+                return false;
+            }
+            for (AttendanceRollup rollup : rollups) {
+                int userId = rollup.getUser().getId();
+                int expectedAttended = userId == 1 ? 4 : (userId == 2 ? 1 : 0);
+                int expectedMarked = userId == 1 ? 4 : 1;
+                if (rollup.getAttended() != expectedAttended || rollup.getMarked() != expectedMarked) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+    }
+
+    @Test
+    void recordEscalatesConsecutiveAbsences() {
+        LocalDate lastDate = LocalDate.of(2023, 12, 28);
+        AbsenceStreak streak1 = new AbsenceStreak(this.studentList.get(0), lastDate);
+        streak1.setAbsences(2);
+        AbsenceStreak streak2 = new AbsenceStreak(this.studentList.get(1), AbsenceStreak.NO_CLASS);
+        AbsenceStreak streak3 = new AbsenceStreak(this.studentList.get(2), lastDate);
+        streak3.setAbsences(2);
+        AbsenceStreak streak4 = new AbsenceStreak(this.studentList.get(3), lastDate);
+        streak4.setAbsences(5);
+        when(absenceStreakRepository.findForUpdate(any(Collection.class))).thenReturn(List.of(streak1, streak2, streak3, streak4));
+
+        AbsenceStreakService streakService = new AbsenceStreakService(absenceStreakRepository, 3);
+        List<Notification> notifications = streakService.record(this.attendanceList, Map.of());
+
+        assertEquals(1, notifications.size());
+        assertEquals(3, notifications.get(0).getUser().getId());
+        assertEquals("Faltas de asistencia consecutivas", notifications.get(0).getTitle());
+        assertEquals(0, streak1.getAbsences());
+        assertEquals(3, streak3.getAbsences());
+        assertEquals(6, streak4.getAbsences());
+        assertEquals(LocalDate.of(2024, 1, 1), streak3.getLastDate());
+        assertEquals(LocalDate.of(2024, 1, 1), streak2.getLastDate());
+        verify(absenceStreakRepository).insertMissing(Set.of(1, 2, 3, 4));
+        verify(absenceStreakRepository).saveAll(argThat((Collection<AbsenceStreak> streaks) -> streaks.size() == 4));
+
+        List<Notification> resubmitted = streakService.record(this.attendanceList, Map.of(1, true, 2, true, 3, false, 4, false));
+        assertTrue(resubmitted.isEmpty());
+        assertEquals(3, streak3.getAbsences());
+        assertEquals(6, streak4.getAbsences());
+    }
+
+    @Test
+    void getRates() {
+        when(attendanceRollupService.getStudentRate(1, YearMonth.of(2024, 1), YearMonth.of(2024, 3))).thenReturn(new AttendanceRateDto(3, 4));
+        when(attendanceRollupService.getClassGroupRate(1, YearMonth.of(2024, 1), YearMonth.of(2024, 1))).thenReturn(new AttendanceRateDto(0, 0));
+
+        ResponseEntity<ResponseWrapper<AttendanceRateDto>> studentRate = this.attendanceController.getStudentRate("1", "2024-01", "2024-03");
+        assertEquals(HttpStatus.OK, studentRate.getStatusCode());
+        assertEquals(0.75, studentRate.getBody().getData().getRate());
+
+        ResponseEntity<ResponseWrapper<AttendanceRateDto>> classGroupRate = this.attendanceController.getClassGroupRate("1", "2024-01", "2024-01");
+        assertEquals(HttpStatus.OK, classGroupRate.getStatusCode());
+        assertEquals(0.0, classGroupRate.getBody().getData().getRate());
+
+        ResponseEntity<ResponseWrapper<AttendanceRateDto>> invalidRange = this.attendanceController.getClassGroupRate("1", "2024-03", "2024-01");
+        assertEquals(HttpStatus.BAD_REQUEST, invalidRange.getStatusCode());
+        assertEquals(ResponseMessages.INVALID_DATE_RANGE, invalidRange.getBody().getMessage());
+    }
+
+    @Test
+    void recordUpdatesBitmaps() {
+        Season season = new Season();
+        season.setInit(LocalDate.of(2023, 9, 15));
+        when(seasonService.seasonActive()).thenReturn(season);
+        LocalDate seasonStart = LocalDate.of(2023, 9, 1);
+        AttendanceBitmap existing = new AttendanceBitmap(this.studentList.get(0), seasonStart);
+        BitSet previous = new BitSet();
+        previous.set(3);
+        existing.setPresent(previous.toByteArray());
+        existing.setMarked(previous.toByteArray());
+        List<AttendanceBitmap> bitmapList = new ArrayList<>(List.of(existing));
+        for (int i = 1; i < 4; i++) {
+            bitmapList.add(new AttendanceBitmap(this.studentList.get(i), seasonStart));
+        }
+        when(attendanceBitmapRepository.findForUpdate(eq(seasonStart), any(Collection.class))).thenReturn(bitmapList);
+
+        AttendanceBitmapService bitmapService = new AttendanceBitmapService(attendanceBitmapRepository, attendanceRepository, userService, seasonService, mock(JobLeaseService.class), mock(EntityManager.class));
+        bitmapService.record(this.attendanceList);
+
+        int ordinal = AttendanceBitmap.ordinal(seasonStart, LocalDate.of(2024, 1, 1));
+        verify(attendanceBitmapRepository).saveAll(argThat((Collection<AttendanceBitmap> bitmaps) -> {
+            if (bitmaps.size() != 4 || !bitmaps.contains(existing)) {
+                return false;
+            }
+            for (AttendanceBitmap bitmap : bitmaps) {
+                BitSet present = BitSet.valueOf(bitmap.getPresent());
+                BitSet marked = BitSet.valueOf(bitmap.getMarked());
+                boolean attended = Set.of(1, 2).contains(bitmap.getUser().getId());
+                if (!marked.get(ordinal) || present.get(ordinal) != attended) {
+                    return false;
+                }
+            }
+            return BitSet.valueOf(existing.getMarked()).get(3);
+        }));
+    }
+
+    @Test
+    void recordCreatesMissingBitmapsBeforeLocking() {
+        Season season = new Season();
+        season.setInit(LocalDate.of(2023, 9, 15));
+        when(seasonService.seasonActive()).thenReturn(season);
+        LocalDate seasonStart = LocalDate.of(2023, 9, 1);
+        List<AttendanceBitmap> bitmapList = new ArrayList<>();
         for (int i = 0; i < 4; i++) {
-            when(userService.findById(i + 1)).thenReturn(studentList.get(i));
+            bitmapList.add(new AttendanceBitmap(this.studentList.get(i), seasonStart));
         }
+        when(attendanceBitmapRepository.findForUpdate(eq(seasonStart), any(Collection.class))).thenReturn(bitmapList);
+
+        AttendanceBitmapService bitmapService = new AttendanceBitmapService(attendanceBitmapRepository, attendanceRepository, userService, seasonService, mock(JobLeaseService.class), mock(EntityManager.class));
+        bitmapService.record(this.attendanceList);
+
+        InOrder inOrder = inOrder(attendanceBitmapRepository);
+        inOrder.verify(attendanceBitmapRepository).insertMissing(eq(seasonStart), argThat((Collection<Integer> ids) -> ids.size() == 4));
+        inOrder.verify(attendanceBitmapRepository).findForUpdate(eq(seasonStart), any(Collection.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(String username) {
+        SecurityContext securityContext = mock(SecurityContext.class);
+        Authentication authentication = mock(Authentication.class);
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getName()).thenReturn(username);
+    }
+
+    @Test
+    void saveAttendancesIdempotencyKey() {
+        this.authenticate("teacher@gmail.com");
+        when(classGroupService.findById(any(Integer.class))).thenReturn(this.classGroup);
+        when(userService.findAllById(any(Collection.class))).thenReturn(studentList);
         when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
-        when(attendanceRepository.saveAll(any(List.class))).thenReturn(attendanceList);
-        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        ResponseEntity<ResponseWrapper<AttendanceDto>> attendanceDtoResponseEntity = this.attendanceController.saveAttendances(attendanceDtoList.get(0));
-        assertEquals(HttpStatus.OK, attendanceDtoResponseEntity.getStatusCode());
+        ResponseEntity<ResponseWrapper<AttendanceDto>> first = this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        ResponseEntity<ResponseWrapper<AttendanceDto>> retry = this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertSame(first.getBody().getData(), retry.getBody().getData());
+        verify(attendanceRepository, times(1)).upsertAllInBatch(any(List.class));
     }
 
     @Test
-    void getAttendances() {
+    void saveAttendancesIdempotencyKeyReusedWithOtherPayload() {
+        this.authenticate("teacher@gmail.com");
         when(classGroupService.findById(any(Integer.class))).thenReturn(this.classGroup);
-        for (int i = 0; i < 4; i++){
-            when(attendanceRepository.findAttendance(eq(i + 1), any(LocalDate.class))).thenReturn(this.attendanceList.get(i));
-        }
+        when(userService.findAllById(any(Collection.class))).thenReturn(studentList);
+        when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
+        this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        ResponseEntity<ResponseWrapper<AttendanceDto>> reused = this.attendanceController.saveAttendances(attendanceDtoList.get(1), "key-1");
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(ResponseMessages.IDEMPOTENCY_KEY_REUSED, reused.getBody().getMessage());
+        verify(attendanceRepository, times(1)).upsertAllInBatch(any(List.class));
+    }
+
+    @Test
+    void saveAttendancesIdempotencyKeyIsPerUser() {
+        when(classGroupService.findById(any(Integer.class))).thenReturn(this.classGroup);
+        when(userService.findAllById(any(Collection.class))).thenReturn(studentList);
+        when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
+        this.authenticate("teacher@gmail.com");
+        this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        this.authenticate("otherteacher@gmail.com");
+        ResponseEntity<ResponseWrapper<AttendanceDto>> other = this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        assertEquals(HttpStatus.OK, other.getStatusCode());
+        verify(attendanceRepository, times(2)).upsertAllInBatch(any(List.class));
+    }
+
+    @Test
+    void saveAttendancesIdempotencyKeyReleasedOnFailure() {
+        this.authenticate("teacher@gmail.com");
+        when(classGroupService.findById(any(Integer.class))).thenThrow(new IllegalStateException()).thenReturn(this.classGroup);
+        when(userService.findAllById(any(Collection.class))).thenReturn(studentList);
+        when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
+        assertThrows(IllegalStateException.class, () -> this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1"));
+        ResponseEntity<ResponseWrapper<AttendanceDto>> retry = this.attendanceController.saveAttendances(attendanceDtoList.get(0), "key-1");
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        verify(attendanceRepository, times(1)).upsertAllInBatch(any(List.class));
+    }
+
+    @Test
+    void getAttendances() {
+        LocalDate seasonStart = LocalDate.of(2023, 9, 1);
+        when(attendanceBitmapService.getSeasonStart()).thenReturn(seasonStart);
+        when(attendanceBitmapService.findClassGroupBitmaps(1, seasonStart)).thenReturn(this.createBitmapRows(seasonStart));
         when(seasonService.seasonStarted()).thenReturn(Boolean.TRUE);
         ResponseEntity<ResponseWrapper<ClassGroupAttendanceDto>> attendances = this.attendanceController.getAttendances("1", "1");
         assertEquals(HttpStatus.OK, attendances.getStatusCode());
+        ClassGroupAttendanceDto data = attendances.getBody().getData();
+        assertEquals(List.of(LocalDate.of(2024, 1, 1)), data.getDatesList());
+        assertEquals(4, data.getUsersList().size());
+        assertEquals(Boolean.TRUE, data.getUsersList().get(0).getAttendanceList().get(0));
+        assertEquals(Boolean.FALSE, data.getUsersList().get(3).getAttendanceList().get(0));
+    }
+
+    @Test
+    void generatePdfStreamsSeason() throws Exception {
+        LocalDate seasonStart = LocalDate.of(2023, 9, 1);
+        when(attendanceBitmapService.getSeasonStart()).thenReturn(seasonStart);
+        when(attendanceBitmapService.findClassGroupBitmaps(1, seasonStart)).thenReturn(this.createBitmapRows(seasonStart));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.attendanceService.generatePdf(1, out);
+
+        assertTrue(new String(out.toByteArray(), 0, 5, StandardCharsets.US_ASCII).startsWith("%PDF"));
+    }
+
+    @Test
+    void generateTeacherCsv() throws Exception {
+        LocalDate seasonStart = LocalDate.of(2023, 9, 1);
+        ClassGroup otherClassGroup = new ClassGroup();
+        otherClassGroup.setId(2);
+        otherClassGroup.setName("Judo, advanced");
+        when(attendanceBitmapService.getSeasonStart()).thenReturn(seasonStart);
+        when(classGroupService.findByTeacherId(5)).thenReturn(List.of(this.classGroup, otherClassGroup));
+        when(attendanceRepository.streamClassGroupsAttendanceBetween(Set.of(1, 2), seasonStart, LocalDate.of(2024, 9, 1)))
+                .thenReturn(java.util.stream.Stream.of(
+                        new Object[]{1, 1, "Student1 Name", "Student1 LastName", java.sql.Date.valueOf("2024-01-01"), true},
+                        new Object[]{2, 3, "Student3 Name", "Student3 LastName", java.sql.Date.valueOf("2024-01-02"), false}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.attendanceService.generateTeacherCsv(5, out);
+
+        assertEquals("Clase,Nombre,Apellidos,Fecha,Asistencia\n" +
+                "Test class,Student1 Name,Student1 LastName,2024-01-01,A\n" +
+                "\"Judo, advanced\",Student3 Name,Student3 LastName,2024-01-02,F\n", out.toString(StandardCharsets.UTF_8));
     }
 
     @Test
     void seasonNOtStarted() {
         when(seasonService.seasonStarted()).thenReturn(Boolean.FALSE);
 
-        ResponseEntity<ResponseWrapper<AttendanceDto>> responseWrapperResponseEntity = this.attendanceController.saveAttendances(new AttendanceDto());
+        ResponseEntity<ResponseWrapper<AttendanceDto>> responseWrapperResponseEntity = this.attendanceController.saveAttendances(new AttendanceDto(), null);
         assertEquals(HttpStatus.BAD_REQUEST, responseWrapperResponseEntity.getStatusCode());
         assertNull(responseWrapperResponseEntity.getBody().getData());
         assertEquals(ResponseMessages.SEASON_NOT_STARTED, responseWrapperResponseEntity.getBody().getMessage());
@@ -172,9 +477,12 @@ class AttendanceControllerTest {
         assertNull(attendances.getBody().getData());
         assertEquals(ResponseMessages.SEASON_NOT_STARTED, attendances.getBody().getMessage());
 
-        ResponseEntity<byte[]> responseEntity = this.attendanceController.generatePdf("1");
+        ResponseEntity<StreamingResponseBody> responseEntity = this.attendanceController.generatePdf("1");
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
 
+        ResponseEntity<StreamingResponseBody> exportResponseEntity = this.attendanceController.exportTeacherCsv("5");
+        assertEquals(HttpStatus.BAD_REQUEST, exportResponseEntity.getStatusCode());
+
 
     }
 }
\ No newline at end of file
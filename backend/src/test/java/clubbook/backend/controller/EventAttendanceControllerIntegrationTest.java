@@ -1,6 +1,10 @@
 package clubbook.backend.controller;
 
+import clubbook.backend.dtos.EventDto;
 import clubbook.backend.dtos.UpdateEventAttendanceDto;
+import clubbook.backend.service.EventReminderJobService;
+import clubbook.backend.service.EventService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
@@ -8,16 +12,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 
-@SpringBootTest
+@SpringBootTest(properties = "event.headcount.time-to-live=PT1S")
 @AutoConfigureMockMvc
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Sql({"/scripts/roles_dataset.sql", "/scripts/dataset.sql", "/scripts/events.sql"})
@@ -26,6 +47,15 @@ class EventAttendanceControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventReminderJobService eventReminderJobService;
+
+    @Autowired
+    private EventService eventService;
+
     // getStudentAttendance Tests
     @Test
     void getStudentAttendance_NotLogged() throws Exception {
@@ -175,4 +205,431 @@ class EventAttendanceControllerIntegrationTest {
                         .content(jsonRequest))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    private JsonNode getHeadcount(int eventId) throws Exception {
+        String body = mockMvc.perform(get("/event_attendance/" + eventId + "/headcount"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(body).get("data");
+    }
+
+    private void assertHeadcount(int eventId, int attending, int declined, int pending) throws Exception {
+        JsonNode headcount = this.getHeadcount(eventId);
+        assertEquals(attending, headcount.get("attending").asInt());
+        assertEquals(declined, headcount.get("declined").asInt());
+        assertEquals(pending, headcount.get("pending").asInt());
+    }
+
+    private void reply(int eventAttendanceId, int userId, Boolean status) throws Exception {
+        String jsonRequest = new ObjectMapper().writeValueAsString(new UpdateEventAttendanceDto(eventAttendanceId, 102, userId, status));
+        mockMvc.perform(put("/event_attendance/update")
+                        .with(user("teststudent" + userId + "@gmail.com").roles("STUDENT"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getHeadcount_NotLogged() throws Exception {
+        mockMvc.perform(get("/event_attendance/102/headcount"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void getHeadcount_StudentForbidden() throws Exception {
+        mockMvc.perform(get("/event_attendance/102/headcount"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
+    void getHeadcount_FollowsReplies() throws Exception {
+        this.assertHeadcount(102, 0, 0, 9);
+
+        this.reply(101, 1, true);
+        this.reply(102, 4, true);
+        this.reply(103, 5, false);
+        this.assertHeadcount(102, 2, 1, 6);
+
+        this.reply(101, 1, false);
+        this.reply(102, 4, true);
+        this.reply(103, 5, null);
+        this.assertHeadcount(102, 1, 1, 7);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getHeadcount_ChangedByAnotherInstance_ReadAgainAfterTimeToLive() throws Exception {
+        this.assertHeadcount(102, 0, 0, 9);
+
+        jdbcTemplate.update("UPDATE t_event_attendance SET status = TRUE WHERE id = 101");
+        jdbcTemplate.update("UPDATE t_event_headcount SET attending = attending + 1, pending = pending - 1 WHERE event_id = 102");
+        this.assertHeadcount(102, 0, 0, 9);
+
+        Thread.sleep(1100);
+        this.assertHeadcount(102, 1, 0, 8);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getHeadcount_ConcurrentRepliesCountedOnce() throws Exception {
+        this.assertHeadcount(102, 0, 0, 9);
+
+        Boolean[] statuses = {true, false, null};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> replies = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                int eventAttendanceId = 101 + i % 4;
+                int userId = eventAttendanceId == 101 ? 1 : eventAttendanceId - 98;
+                Boolean status = statuses[(i / 4) % 3];
+                replies.add(executor.submit(() -> {
+                    this.reply(eventAttendanceId, userId, status);
+                    return null;
+                }));
+            }
+            for (Future<?> future : replies) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int attending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_event_attendance WHERE event_id = 102 AND status = TRUE", Integer.class);
+        int declined = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_event_attendance WHERE event_id = 102 AND status = FALSE", Integer.class);
+        int pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_event_attendance WHERE event_id = 102 AND status IS NULL", Integer.class);
+        this.assertHeadcount(102, attending, declined, pending);
+        assertEquals(List.of(attending, declined, pending), jdbcTemplate.queryForObject(
+                "SELECT attending, declined, pending FROM t_event_headcount WHERE event_id = 102",
+                (rs, rowNum) -> List.of(rs.getInt(1), rs.getInt(2), rs.getInt(3))));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getHeadcount_ConcurrentFirstRepliesWithoutTotals_CountedOnce() throws Exception {
+        jdbcTemplate.update("DELETE FROM t_event_headcount WHERE event_id = 102");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> replies = new ArrayList<>();
+            for (int eventAttendanceId = 101; eventAttendanceId <= 104; eventAttendanceId++) {
+                int id = eventAttendanceId;
+                int userId = id == 101 ? 1 : id - 98;
+                replies.add(executor.submit(() -> {
+                    start.await();
+                    this.reply(id, userId, true);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : replies) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(List.of(4, 0, 5), jdbcTemplate.queryForObject(
+                "SELECT attending, declined, pending FROM t_event_headcount WHERE event_id = 102",
+                (rs, rowNum) -> List.of(rs.getInt(1), rs.getInt(2), rs.getInt(3))));
+        this.assertHeadcount(102, 4, 0, 5);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void updateAttendance_ConcurrentWithInscriptionFinished_NoLostUpdates() throws Exception {
+        int rows = 400;
+        int replies = 3000;
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (300, 'Deadline', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 5, CURRENT_DATE), 'Deadline', 3, DATEADD('DAY', -1, CURRENT_DATE))");
+        jdbcTemplate.update("INSERT INTO t_user (id, address, birthday, email, first_name, id_card, last_name, partner, password, phone_number, role_fk_id, allowed_access) " +
+                "SELECT 1000 + X, 'C/ Synthetic', DATE '2005-01-01', CONCAT('synthetic', X, '@gmail.com'), 'Synthetic', CONCAT('IDS', X), CONCAT('Student', X), false, 'password', '000000000', 1, true " +
+                "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 10000 + X, NULL, 300, 1000 + X FROM SYSTEM_RANGE(1, " + rows + ")");
+        this.assertHeadcount(300, 0, 0, rows);
+
+        List<Integer> targets = new ArrayList<>();
+        for (int row = 1; row <= rows; row++) {
+            if (row % 4 != 0) {
+                targets.add(10000 + row);
+            }
+        }
+        int threads = 16;
+        int rounds = replies / targets.size();
+        Map<Integer, Integer> successes = new ConcurrentHashMap<>();
+        Map<Integer, Boolean> acknowledged = new ConcurrentHashMap<>();
+        CountDownLatch answered = new CountDownLatch(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                List<Integer> owned = new ArrayList<>();
+                for (int i = thread; i < targets.size(); i += threads) {
+                    owned.add(targets.get(i));
+                }
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        Boolean status = (round + offset) % 2 == 0;
+                        for (int eventAttendanceId : owned) {
+                            String jsonRequest = new ObjectMapper().writeValueAsString(new UpdateEventAttendanceDto(eventAttendanceId, 300, eventAttendanceId - 9000, status));
+                            mockMvc.perform(put("/event_attendance/update")
+                                            .with(user("teststudent1@gmail.com").roles("STUDENT"))
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .content(jsonRequest))
+                                    .andExpect(status().isOk());
+                            successes.merge(eventAttendanceId, 1, Integer::sum);
+                            acknowledged.put(eventAttendanceId, status);
+                        }
+                        if (round == 0) {
+                            answered.countDown();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            answered.await();
+            eventReminderJobService.scheduleEventFinishInscriptionNotifications();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<Integer, Boolean> finalStatuses = new HashMap<>();
+        Map<Integer, Integer> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT id, status, version FROM t_event_attendance WHERE event_id = 300", rs -> {
+            finalStatuses.put(rs.getInt("id"), (Boolean) rs.getObject("status"));
+            versions.put(rs.getInt("id"), rs.getInt("version"));
+        });
+        for (int row = 1; row <= rows; row++) {
+            int id = 10000 + row;
+            if (row % 4 == 0) {
+                assertEquals(Boolean.FALSE, finalStatuses.get(id), "row " + id);
+                assertEquals(1, versions.get(id), "row " + id);
+            } else {
+                assertEquals(acknowledged.get(id), finalStatuses.get(id), "row " + id);
+                assertEquals(successes.get(id), versions.get(id), "row " + id);
+            }
+        }
+        assertEquals(targets.size() * rounds, successes.values().stream().mapToInt(Integer::intValue).sum());
+
+        int attending = (int) finalStatuses.values().stream().filter(Boolean.TRUE::equals).count();
+        this.assertHeadcount(300, attending, rows - attending, 0);
+    }
+
+    @Test
+    void scheduleEventReminderNotifications_ResumesFromCheckpoint() {
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (400, 'Reminder', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 1, CURRENT_DATE), 'Reminder', 3, CURRENT_DATE)");
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (401, 'Reminder', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 2, CURRENT_DATE), 'Reminder', 3, CURRENT_DATE)");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 20000 + X, NULL, 400, X FROM SYSTEM_RANGE(1, 10)");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 20010 + X, NULL, 401, X FROM SYSTEM_RANGE(11, 15)");
+        jdbcTemplate.update("INSERT INTO t_job_checkpoint (name, run_date, event_id, user_id, finished) VALUES ('event-reminder', CURRENT_DATE, 400, 5, false)");
+
+        eventReminderJobService.scheduleEventReminderNotifications();
+
+        List<Integer> notified = jdbcTemplate.queryForList("SELECT user_id FROM t_notification WHERE title = '¡Recuerda!' ORDER BY user_id", Integer.class);
+        assertEquals(List.of(6, 7, 8, 9, 10, 11, 12, 13, 14, 15), notified);
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT finished FROM t_job_checkpoint WHERE name = 'event-reminder'", Boolean.class));
+
+        eventReminderJobService.scheduleEventReminderNotifications();
+        eventReminderJobService.scheduleResumeInterruptedRuns();
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification WHERE title = '¡Recuerda!'", Integer.class));
+    }
+
+    @Test
+    void scheduleEventReminderNotifications_LeasedByAnotherInstance_Skipped() {
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (400, 'Reminder', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 1, CURRENT_DATE), 'Reminder', 3, CURRENT_DATE)");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 20000 + X, NULL, 400, X FROM SYSTEM_RANGE(1, 10)");
+        jdbcTemplate.update("INSERT INTO t_job_lease (name, owner, locked_until) VALUES ('event-reminder', 'other-instance', DATEADD('HOUR', 1, CURRENT_TIMESTAMP))");
+
+        eventReminderJobService.scheduleEventReminderNotifications();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification WHERE title = '¡Recuerda!'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_job_checkpoint", Integer.class));
+
+        jdbcTemplate.update("UPDATE t_job_lease SET locked_until = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) WHERE name = 'event-reminder'");
+
+        eventReminderJobService.scheduleEventReminderNotifications();
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_notification WHERE title = '¡Recuerda!'", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT locked_until <= CURRENT_TIMESTAMP FROM t_job_lease WHERE name = 'event-reminder'", Boolean.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void updateAttendance_FullEvent_WaitlistsAndPromotesOnDecline() throws Exception {
+        jdbcTemplate.update("UPDATE t_event SET capacity = 2 WHERE id = 102");
+
+        assertEquals("Asistencia actualizada", this.replyMessage(101, 1, true));
+        assertEquals("Asistencia actualizada", this.replyMessage(102, 4, true));
+        assertEquals("El evento está completo, has quedado en lista de espera", this.replyMessage(103, 5, true));
+        assertEquals("El evento está completo, has quedado en lista de espera", this.replyMessage(104, 6, true));
+        assertEquals("El evento está completo, has quedado en lista de espera", this.replyMessage(103, 5, true));
+        this.assertHeadcount(102, 2, 0, 7);
+
+        assertEquals("Asistencia actualizada", this.replyMessage(101, 1, false));
+
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT status FROM t_event_attendance WHERE id = 103", Boolean.class));
+        assertEquals(null, jdbcTemplate.queryForObject("SELECT waitlist_ticket FROM t_event_attendance WHERE id = 103", Long.class));
+        assertEquals(null, jdbcTemplate.queryForObject("SELECT status FROM t_event_attendance WHERE id = 104", Boolean.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT waitlist_ticket FROM t_event_attendance WHERE id = 104", Long.class) != null);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT taken FROM t_event_slots WHERE event_id = 102", Integer.class));
+        this.assertHeadcount(102, 2, 1, 6);
+
+        assertEquals("Asistencia actualizada", this.replyMessage(104, 6, false));
+        assertEquals(null, jdbcTemplate.queryForObject("SELECT waitlist_ticket FROM t_event_attendance WHERE id = 104", Long.class));
+        this.assertHeadcount(102, 2, 2, 5);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void updateAttendance_ConcurrentConfirmationsOnFullEvent_NeverOverbooked() throws Exception {
+        int rows = 300;
+        int capacity = 40;
+        int declines = 20;
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline, capacity) " +
+                "VALUES (300, 'Tournament', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 10, CURRENT_DATE), 'Tournament', 1, DATEADD('DAY', 5, CURRENT_DATE), " + capacity + ")");
+        jdbcTemplate.update("INSERT INTO t_user (id, address, birthday, email, first_name, id_card, last_name, partner, password, phone_number, role_fk_id, allowed_access) " +
+                "SELECT 1000 + X, 'C/ Synthetic', DATE '2005-01-01', CONCAT('synthetic', X, '@gmail.com'), 'Synthetic', CONCAT('IDS', X), CONCAT('Student', X), false, 'password', '000000000', 1, true " +
+                "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 10000 + X, NULL, 300, 1000 + X FROM SYSTEM_RANGE(1, " + rows + ")");
+
+        List<Integer> ids = new ArrayList<>(rows);
+        for (int row = 1; row <= rows; row++) {
+            ids.add(10000 + row);
+        }
+        this.replyConcurrently(ids, true);
+
+        Map<Integer, Boolean> statuses = new HashMap<>();
+        Map<Integer, Long> tickets = new HashMap<>();
+        this.readReplies(statuses, tickets);
+        List<Integer> attending = statuses.keySet().stream().filter(id -> Boolean.TRUE.equals(statuses.get(id))).sorted().toList();
+        assertEquals(capacity, attending.size());
+        assertEquals(rows - capacity, tickets.size());
+        assertEquals(rows - capacity, new HashSet<>(tickets.values()).size());
+        assertEquals(capacity, jdbcTemplate.queryForObject("SELECT taken FROM t_event_slots WHERE event_id = 300", Integer.class));
+
+        List<Integer> waitlist = tickets.keySet().stream().sorted((a, b) -> Long.compare(tickets.get(a), tickets.get(b))).toList();
+        this.replyConcurrently(attending.subList(0, declines), false);
+
+        statuses.clear();
+        tickets.clear();
+        this.readReplies(statuses, tickets);
+        Set<Integer> nowAttending = new HashSet<>();
+        statuses.forEach((id, status) -> {
+            if (Boolean.TRUE.equals(status)) {
+                nowAttending.add(id);
+            }
+        });
+        Set<Integer> expected = new HashSet<>(attending.subList(declines, capacity));
+        expected.addAll(waitlist.subList(0, declines));
+        assertEquals(expected, nowAttending);
+        assertEquals(new HashSet<>(waitlist.subList(declines, waitlist.size())), tickets.keySet());
+        assertEquals(capacity, jdbcTemplate.queryForObject("SELECT taken FROM t_event_slots WHERE event_id = 300", Integer.class));
+        this.assertHeadcount(300, capacity, declines, rows - capacity - declines);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void updateAttendance_ConfirmationsWhileCapacityIsSet_EverySlotCounted() throws Exception {
+        int rows = 300;
+        int capacity = 100;
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (300, 'Tournament', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', 10, CURRENT_DATE), 'Tournament', 1, DATEADD('DAY', 5, CURRENT_DATE))");
+        jdbcTemplate.update("INSERT INTO t_user (id, address, birthday, email, first_name, id_card, last_name, partner, password, phone_number, role_fk_id, allowed_access) " +
+                "SELECT 1000 + X, 'C/ Synthetic', DATE '2005-01-01', CONCAT('synthetic', X, '@gmail.com'), 'Synthetic', CONCAT('IDS', X), CONCAT('Student', X), false, 'password', '000000000', 1, true " +
+                "FROM SYSTEM_RANGE(1, " + rows + ")");
+        jdbcTemplate.update("INSERT INTO t_event_attendance (id, status, event_id, user_id) SELECT 10000 + X, NULL, 300, 1000 + X FROM SYSTEM_RANGE(1, " + rows + ")");
+
+        CountDownLatch confirmed = new CountDownLatch(capacity / 2);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>(rows);
+            for (int row = 1; row <= rows; row++) {
+                int eventAttendanceId = 10000 + row;
+                String jsonRequest = new ObjectMapper().writeValueAsString(new UpdateEventAttendanceDto(eventAttendanceId, 300, eventAttendanceId - 9000, true));
+                futures.add(executor.submit(() -> {
+                    mockMvc.perform(put("/event_attendance/update")
+                                    .with(user("teststudent1@gmail.com").roles("STUDENT"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(jsonRequest))
+                            .andExpect(status().isOk());
+                    confirmed.countDown();
+                    return null;
+                }));
+            }
+            confirmed.await();
+            EventDto event = eventService.findEventDto(300);
+            event.setCapacity(capacity);
+            assertTrue(eventService.saveEdited(event));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<Integer, Boolean> statuses = new HashMap<>();
+        Map<Integer, Long> tickets = new HashMap<>();
+        this.readReplies(statuses, tickets);
+        int attending = (int) statuses.values().stream().filter(Boolean.TRUE::equals).count();
+        assertTrue(attending >= capacity, "attending " + attending);
+        assertEquals(attending, jdbcTemplate.queryForObject("SELECT taken FROM t_event_slots WHERE event_id = 300", Integer.class));
+        assertEquals(rows - attending, tickets.size());
+        assertEquals(rows - attending, new HashSet<>(tickets.values()).size());
+        this.assertHeadcount(300, attending, 0, rows - attending);
+    }
+
+    private String replyMessage(int eventAttendanceId, int userId, Boolean status) throws Exception {
+        String jsonRequest = new ObjectMapper().writeValueAsString(new UpdateEventAttendanceDto(eventAttendanceId, 102, userId, status));
+        String body = mockMvc.perform(put("/event_attendance/update")
+                        .with(user("teststudent" + userId + "@gmail.com").roles("STUDENT"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return new ObjectMapper().readTree(body).get("message").asText();
+    }
+
+    private void replyConcurrently(List<Integer> eventAttendanceIds, Boolean status) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>(eventAttendanceIds.size());
+            for (int eventAttendanceId : eventAttendanceIds) {
+                String jsonRequest = new ObjectMapper().writeValueAsString(new UpdateEventAttendanceDto(eventAttendanceId, 300, eventAttendanceId - 9000, status));
+                futures.add(executor.submit(() -> {
+                    mockMvc.perform(put("/event_attendance/update")
+                                    .with(user("teststudent1@gmail.com").roles("STUDENT"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(jsonRequest))
+                            .andExpect(status().isOk());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void readReplies(Map<Integer, Boolean> statuses, Map<Integer, Long> tickets) {
+        jdbcTemplate.query("SELECT id, status, waitlist_ticket FROM t_event_attendance WHERE event_id = 300", rs -> {
+            statuses.put(rs.getInt("id"), (Boolean) rs.getObject("status"));
+            Long ticket = (Long) rs.getObject("waitlist_ticket");
+            if (ticket != null) {
+                tickets.put(rs.getInt("id"), ticket);
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package clubbook.backend.controller;
 
+import clubbook.backend.dtos.EventHeadcountDto;
 import clubbook.backend.dtos.UpdateEventAttendanceDto;
 import clubbook.backend.model.EventAttendance;
 import clubbook.backend.responses.ResponseMessages;
@@ -10,6 +11,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Arrays;
@@ -82,6 +85,23 @@ class EventAttendanceControllerTest {
         verify(eventAttendanceService, times(1)).getEventAttendanceByUser(eventId, userId);
     }
 
+    // Test getHeadcount
+    @Test
+    void getHeadcount() {
+        // Given
+        int eventId = 1;
+        EventHeadcountDto mockHeadcount = new EventHeadcountDto(3, 1, 5);
+        when(eventAttendanceService.getHeadcount(eventId)).thenReturn(mockHeadcount);
+
+        // When
+        ResponseEntity<ResponseWrapper<EventHeadcountDto>> response = eventAttendanceController.getHeadcount(eventId);
+
+        // Then
+        assertEquals(ResponseMessages.OK, response.getBody().getMessage());
+        assertEquals(mockHeadcount, response.getBody().getData());
+        verify(eventAttendanceService, times(1)).getHeadcount(eventId);
+    }
+
     // Test updateAttendance
     @Test
     void updateAttendance() {
@@ -99,4 +119,40 @@ class EventAttendanceControllerTest {
         assertEquals(true, response.getBody().getData());
         verify(eventAttendanceService, times(1)).saveEventAttendance(attendanceDto);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateAttendance_Conflict() {
+        // Given
+        UpdateEventAttendanceDto attendanceDto = new UpdateEventAttendanceDto();
+        attendanceDto.setEventId(1);
+        attendanceDto.setUserId(1);
+        attendanceDto.setStatus(true);
+        doThrow(new OptimisticLockingFailureException("changed")).when(eventAttendanceService).saveEventAttendance(attendanceDto);
+
+        // When
+        ResponseEntity<ResponseWrapper<Boolean>> response = eventAttendanceController.updateAttendance(attendanceDto);
+
+        // Then
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(ResponseMessages.ATTENDANCE_CONFLICT, response.getBody().getMessage());
+        assertEquals(false, response.getBody().getData());
+    }
+
+    @Test
+    void updateAttendance_Waitlisted() {
+        // Given
+        UpdateEventAttendanceDto attendanceDto = new UpdateEventAttendanceDto();
+        attendanceDto.setEventId(1);
+        attendanceDto.setUserId(1);
+        attendanceDto.setStatus(true);
+        when(eventAttendanceService.saveEventAttendance(attendanceDto)).thenReturn(true);
+
+        // When
+        ResponseEntity<ResponseWrapper<Boolean>> response = eventAttendanceController.updateAttendance(attendanceDto);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ResponseMessages.ATTENDANCE_WAITLISTED, response.getBody().getMessage());
+        assertEquals(false, response.getBody().getData());
+    }
+}
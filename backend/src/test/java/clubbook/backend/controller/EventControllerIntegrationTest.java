@@ -4,25 +4,47 @@ import clubbook.backend.dtos.EventDto;
 import clubbook.backend.dtos.NewEventDto;
 import clubbook.backend.model.EventType;
 import clubbook.backend.model.enumClasses.EventTypeEnum;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
-
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "calendar.events-version.check-interval=PT1S")
 @AutoConfigureMockMvc
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Sql({"/scripts/roles_dataset.sql", "/scripts/dataset.sql", "/scripts/events.sql"})
@@ -31,6 +53,12 @@ class EventControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void getEventTypes_NotLogged() throws Exception {
         mockMvc.perform(get("/event/types"))
@@ -146,6 +174,68 @@ class EventControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "testadmin1@gmail.com", roles = {"ADMINISTRATOR"})
+    void saveNewEvent_InvertedBirthRange() throws Exception {
+        NewEventDto newEventDto = new NewEventDto();
+        newEventDto.setTitle("Inverted Title");
+        newEventDto.setAddress("Test Address");
+        newEventDto.setDate(LocalDate.now().plusDays(20));
+        newEventDto.setDeadline(LocalDate.now().plusDays(10));
+        newEventDto.setType(2);
+        newEventDto.setBirthYearStart(LocalDate.of(2010, 12, 31));
+        newEventDto.setBirthYearEnd(LocalDate.of(2000, 1, 1));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        String newEventDtoJson = objectMapper.writeValueAsString(newEventDto);
+
+        mockMvc.perform(post("/event/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(newEventDtoJson))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_event WHERE title = 'Inverted Title'", Integer.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void saveNewEvent_InitializesAttendanceInBulk() throws Exception {
+        NewEventDto newEventDto = new NewEventDto();
+        newEventDto.setTitle("Bulk Title");
+        newEventDto.setAddress("Test Address");
+        newEventDto.setDate(LocalDate.now().plusDays(20));
+        newEventDto.setDeadline(LocalDate.now().plusDays(10));
+        newEventDto.setType(2);
+        newEventDto.setBirthYearStart(LocalDate.of(2000, 1, 1));
+        newEventDto.setBirthYearEnd(LocalDate.of(2010, 12, 31));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        String newEventDtoJson = objectMapper.writeValueAsString(newEventDto);
+
+        mockMvc.perform(post("/event/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(newEventDtoJson))
+                .andExpect(status().isOk());
+
+        Integer eventId = jdbcTemplate.queryForObject("SELECT id FROM t_event WHERE title = 'Bulk Title'", Integer.class);
+        Integer expected = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_user u JOIN t_role r ON u.role_fk_id = r.role_id WHERE u.allowed_access " +
+                "AND (r.name = 'TEACHER' OR (r.name = 'STUDENT' AND u.birthday BETWEEN DATE '2000-01-01' AND DATE '2010-12-31'))",
+                Integer.class);
+        Integer attendances = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_event_attendance WHERE event_id = ? AND status IS NULL", Integer.class, eventId);
+        Integer notified = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT n.user_id) FROM t_notification n JOIN t_event_attendance ea ON ea.user_id = n.user_id " +
+                "WHERE ea.event_id = ? AND n.title = 'Nuevo evento'", Integer.class, eventId);
+
+        assertTrue(expected > 0);
+        assertEquals(expected, attendances);
+        assertEquals(expected, notified);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_event_attendance ea JOIN t_user u ON ea.user_id = u.id JOIN t_role r ON u.role_fk_id = r.role_id " +
+                "WHERE ea.event_id = ? AND r.name = 'ADMINISTRATOR'", Integer.class, eventId));
+    }
+
     @Test
     void editEvent_NotLogged() throws Exception {
         EventDto editEventDto = new EventDto();
@@ -232,6 +322,82 @@ class EventControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "testadmin1@gmail.com", roles = {"ADMINISTRATOR"})
+    void editEvent_InvertedBirthRange() throws Exception {
+        EventDto editEventDto = new EventDto();
+        editEventDto.setId(106);
+        editEventDto.setTitle("Test Title");
+        editEventDto.setAddress("Test Address");
+        editEventDto.setDate(LocalDate.now().plusDays(20));
+        editEventDto.setDeadline(LocalDate.now().plusDays(10));
+        editEventDto.setAdditionalInfo("Test Additional");
+        editEventDto.setBirthYearStart(LocalDate.of(2010, 12, 31));
+        editEventDto.setBirthYearEnd(LocalDate.of(2000, 1, 1));
+        editEventDto.setType(new EventType(2, EventTypeEnum.EXHIBITION, new Date()));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        String editEventDtoJson = objectMapper.writeValueAsString(editEventDto);
+
+        mockMvc.perform(put("/event/edit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(editEventDtoJson))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Set<Integer> queryIds(String sql, Object... args) {
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, args));
+    }
+
+    private Set<Integer> notifiedUsers(String title) {
+        return this.queryIds("SELECT user_id FROM t_notification WHERE title = ?", title);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void editEvent_DiffsAttendanceInBulk() throws Exception {
+        String studentsOfEvent = "SELECT ea.user_id FROM t_event_attendance ea JOIN t_user u ON ea.user_id = u.id " +
+                "JOIN t_role r ON u.role_fk_id = r.role_id WHERE ea.event_id = 102 AND r.name = 'STUDENT'";
+        Set<Integer> before = this.queryIds(studentsOfEvent);
+        Set<Integer> eligible = this.queryIds("SELECT u.id FROM t_user u JOIN t_role r ON u.role_fk_id = r.role_id " +
+                "WHERE r.name = 'STUDENT' AND u.allowed_access AND u.birthday BETWEEN DATE '1998-01-01' AND DATE '2000-12-31'");
+        Set<Integer> kept = new HashSet<>(before);
+        kept.retainAll(eligible);
+        Set<Integer> removed = new HashSet<>(before);
+        removed.removeAll(eligible);
+        Set<Integer> added = new HashSet<>(eligible);
+        added.removeAll(before);
+        assertTrue(!kept.isEmpty() && !removed.isEmpty() && !added.isEmpty());
+
+        EventDto editEventDto = new EventDto();
+        editEventDto.setId(102);
+        editEventDto.setTitle("Test Title");
+        editEventDto.setAddress("Test Address");
+        editEventDto.setDate(LocalDate.now().plusDays(20));
+        editEventDto.setDeadline(LocalDate.now().plusDays(10));
+        editEventDto.setAdditionalInfo("Test Additional");
+        editEventDto.setBirthYearStart(LocalDate.of(1998, 1, 1));
+        editEventDto.setBirthYearEnd(LocalDate.of(2000, 12, 31));
+        editEventDto.setType(new EventType(2, EventTypeEnum.EXHIBITION, new Date()));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        String editEventDtoJson = objectMapper.writeValueAsString(editEventDto);
+
+        mockMvc.perform(put("/event/edit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(editEventDtoJson))
+                .andExpect(status().isOk());
+
+        assertEquals(eligible, this.queryIds(studentsOfEvent));
+        assertEquals(List.of(61), jdbcTemplate.queryForList("SELECT ea.user_id FROM t_event_attendance ea JOIN t_user u ON ea.user_id = u.id " +
+                "JOIN t_role r ON u.role_fk_id = r.role_id WHERE ea.event_id = 102 AND r.name = 'TEACHER'", Integer.class));
+        assertEquals(kept, this.notifiedUsers("Evento modificado"));
+        assertEquals(removed, this.notifiedUsers("Evento cancelado"));
+        assertEquals(added, this.notifiedUsers("Nuevo evento"));
+    }
+
     @Test
     void getAllEvents_NotLogged() throws Exception {
         mockMvc.perform(get("/event/all/1"))
@@ -245,6 +411,19 @@ class EventControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void getAllEvents_Student_ChangedByAnotherInstance_Reloaded() throws Exception {
+        assertFalse(searchIds(get("/event/all/1")).contains(300));
+
+        jdbcTemplate.update("INSERT INTO T_EVENT(id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES(300, NULL, 'Pabellón Municipal', '2020-12-31', '1990-01-01', DATEADD('DAY', 20, CURRENT_DATE), 'Exhibición de Año Nuevo', 2, DATEADD('DAY', 15, CURRENT_DATE))");
+        jdbcTemplate.update("MERGE INTO T_Calendar_Version (scope, version) KEY (scope) " +
+                "VALUES ('events', COALESCE((SELECT version FROM T_Calendar_Version WHERE scope = 'events'), 0) + 1)");
+        Thread.sleep(1100);
+        assertTrue(searchIds(get("/event/all/1")).contains(300));
+    }
+
     @Test
     @WithMockUser(username = "testteacher1@gmail.com", roles = {"TEACHER"})
     void getAllEvents_Teacher() throws Exception {
@@ -286,6 +465,54 @@ class EventControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    private Set<Integer> monthEventIds(LocalDate date, int userId) throws Exception {
+        String body = mockMvc.perform(get("/event/month/" + date.getMonthValue() + "/" + date.getYear() + "/" + userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Set<Integer> ids = new HashSet<>();
+        new ObjectMapper().readTree(body).get("data").forEach(day -> day.forEach(event -> ids.add(event.get("id").asInt())));
+        return ids;
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getMonthEvents_CachedUntilEventChanges() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        Set<Integer> ids = this.monthEventIds(date, 71);
+        assertTrue(ids.containsAll(Set.of(101, 102, 103, 104, 105, 106)));
+
+        jdbcTemplate.update("DELETE FROM t_event WHERE id = 106");
+        assertEquals(ids, this.monthEventIds(date, 71));
+
+        NewEventDto newEventDto = new NewEventDto();
+        newEventDto.setTitle("Cached Title");
+        newEventDto.setAddress("Test Address");
+        newEventDto.setDate(date);
+        newEventDto.setDeadline(LocalDate.now().plusDays(5));
+        newEventDto.setType(2);
+        newEventDto.setBirthYearStart(LocalDate.of(2000, 1, 1));
+        newEventDto.setBirthYearEnd(LocalDate.of(2010, 12, 31));
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        mockMvc.perform(post("/event/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newEventDto)))
+                .andExpect(status().isOk());
+
+        Integer newId = jdbcTemplate.queryForObject("SELECT id FROM t_event WHERE title = 'Cached Title'", Integer.class);
+        Set<Integer> refreshed = this.monthEventIds(date, 71);
+        assertTrue(refreshed.contains(newId));
+        assertTrue(!refreshed.contains(106));
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void getMonthEvents_StudentSeesAdmittedEvents() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        assertEquals(Set.of(102, 103), this.monthEventIds(date, 1));
+        assertEquals(Set.of(102, 103), this.monthEventIds(date, 1));
+    }
+
     @Test
     void getAllPastEvents_NotLogged() throws Exception {
         mockMvc.perform(get("/event/past"))
@@ -313,6 +540,96 @@ class EventControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    private List<Integer> collectPages(String path, int size) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Integer> ids = new ArrayList<>();
+        String token = null;
+        do {
+            String url = path + "?size=" + size + (token == null ? "" : "&token=" + token);
+            String body = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode data = objectMapper.readTree(body).get("data");
+            assertTrue(data.get("events").size() <= size);
+            data.get("events").forEach(event -> ids.add(event.get("id").asInt()));
+            token = data.get("nextToken").isNull() ? null : data.get("nextToken").asText();
+        } while (token != null);
+        return ids;
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getAllPastEventsPage_WalksEveryEventOnce() throws Exception {
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "SELECT 200 + X, 'Past', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', -MOD(X, 9) - 1, CURRENT_DATE), 'Past', 3, DATEADD('DAY', -20, CURRENT_DATE) " +
+                "FROM SYSTEM_RANGE(1, 25)");
+        List<Integer> expected = jdbcTemplate.queryForList("SELECT id FROM t_event WHERE date < CURRENT_DATE ORDER BY date DESC, id DESC", Integer.class);
+
+        assertEquals(25, expected.size());
+        assertEquals(expected, this.collectPages("/event/past/page", 7));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getAllEventsPage_Administrator() throws Exception {
+        assertEquals(List.of(101, 102, 103, 104, 105, 106), this.collectPages("/event/all/71/page", 4));
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void getAllEventsPage_Student() throws Exception {
+        assertEquals(List.of(102, 103), this.collectPages("/event/all/1/page", 1));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void getAllEventsPage_InvalidToken() throws Exception {
+        mockMvc.perform(get("/event/all/71/page?token=not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertListingsLoadNoEntities(int userId) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        LocalDate date = LocalDate.now().plusDays(10);
+        for (String path : List.of("/event/all/" + userId, "/event/all/" + userId + "/page", "/event/next/" + userId,
+                "/event/month/" + date.getMonthValue() + "/" + date.getYear() + "/" + userId)) {
+            mockMvc.perform(get(path))
+                    .andExpect(status().isOk());
+        }
+        long eventLoads = statistics.getEntityStatistics("clubbook.backend.model.Event").getLoadCount();
+        long attendanceLoads = statistics.getEntityStatistics("clubbook.backend.model.EventAttendance").getLoadCount();
+        statistics.setStatisticsEnabled(false);
+        assertEquals(0, eventLoads);
+        assertEquals(0, attendanceLoads);
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void listEvents_Administrator_LoadsNoEntities() throws Exception {
+        jdbcTemplate.update("INSERT INTO t_event (id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES (201, 'Past', 'Address', DATE '2010-12-31', DATE '2000-01-01', DATEADD('DAY', -5, CURRENT_DATE), 'Past', 3, DATEADD('DAY', -20, CURRENT_DATE))");
+        this.assertListingsLoadNoEntities(71);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        mockMvc.perform(get("/event/past"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/event/past/page"))
+                .andExpect(status().isOk());
+        long entityLoads = statistics.getEntityLoadCount();
+        statistics.setStatisticsEnabled(false);
+        assertEquals(0, entityLoads);
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void listEvents_Student_LoadsNoEntities() throws Exception {
+        this.assertListingsLoadNoEntities(1);
+    }
+
     @Test
     void getNextEvent_NotLogged() throws Exception {
         mockMvc.perform(get("/event/next/1"))
@@ -393,4 +710,201 @@ class EventControllerIntegrationTest {
         mockMvc.perform(get("/event/generatepdf/101"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void generatePdf_StreamsRosterByStatus() throws Exception {
+        jdbcTemplate.update("UPDATE t_event_attendance SET status = TRUE WHERE event_id = 102 AND user_id = 1");
+        jdbcTemplate.update("UPDATE t_event_attendance SET status = FALSE WHERE event_id = 102 AND user_id = 4");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        MvcResult result = mockMvc.perform(get("/event/generatepdf/102"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] pdf = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andReturn().getResponse().getContentAsByteArray();
+        long userLoads = statistics.getEntityStatistics("clubbook.backend.model.User").getLoadCount();
+        long attendanceLoads = statistics.getEntityStatistics("clubbook.backend.model.EventAttendance").getLoadCount();
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(0, userLoads);
+        assertEquals(0, attendanceLoads);
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            assertEquals(3, reader.getNumberOfPages());
+            String attending = PdfTextExtractor.getTextFromPage(reader, 1);
+            String pending = PdfTextExtractor.getTextFromPage(reader, 2);
+            String declined = PdfTextExtractor.getTextFromPage(reader, 3);
+            assertTrue(attending.contains("Asistentes:") && attending.contains("STUDENT: John Gordon"), attending);
+            assertTrue(pending.contains("Sin confirmar:") && pending.contains("TEACHER: Alice Smith") && !pending.contains("John Gordon"), pending);
+            assertTrue(declined.contains("No Asistentes:") && declined.contains("STUDENT: Bob Smith"), declined);
+        } finally {
+            reader.close();
+        }
+    }
+
+    // getCalendarFeed Tests
+    @Test
+    void getCalendarToken_NotLogged() throws Exception {
+        mockMvc.perform(get("/event/calendar/token"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getCalendarFeed_UnknownToken() throws Exception {
+        mockMvc.perform(get("/event/calendar/unknown.ics"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getCalendarFeed_Student_RevalidatesWithETag() throws Exception {
+        String body = mockMvc.perform(get("/event/calendar/token").with(user("teststudent1@gmail.com").roles("STUDENT")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = new ObjectMapper().readTree(body).get("data").asText();
+        assertTrue(token.length() >= 43, token);
+        mockMvc.perform(get("/event/calendar/token").with(user("teststudent1@gmail.com").roles("STUDENT")))
+                .andExpect(jsonPath("$.data").value(token));
+
+        MvcResult result = mockMvc.perform(get("/event/calendar/" + token + ".ics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/calendar"))
+                .andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+        String feed = result.getResponse().getContentAsString();
+        assertTrue(eTag != null && eTag.startsWith("\""), eTag);
+        assertTrue(feed.startsWith("BEGIN:VCALENDAR\r\n") && feed.endsWith("END:VCALENDAR\r\n"), feed);
+        assertTrue(feed.contains("UID:event-102@clubbook") && !feed.contains("UID:event-101@clubbook"), feed);
+        assertTrue(feed.contains("UID:schedule-11@clubbook") && feed.contains("RRULE:FREQ=WEEKLY;BYDAY=TU")
+                && !feed.contains("UID:schedule-3@clubbook"), feed);
+
+        mockMvc.perform(get("/event/calendar/" + token + ".ics").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(delete("/event/102").with(user("testadministrator1@gmail.com").roles("ADMINISTRATOR")))
+                .andExpect(status().isOk());
+
+        result = mockMvc.perform(get("/event/calendar/" + token + ".ics").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+        assertFalse(result.getResponse().getContentAsString().contains("UID:event-102@clubbook"));
+    }
+
+    // getEventStream Tests
+    @Test
+    void getEventStream_NotLogged() throws Exception {
+        mockMvc.perform(get("/event/stream"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void getEventStream_Student_ReceivesDeletion() throws Exception {
+        MvcResult result = mockMvc.perform(get("/event/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(delete("/event/103").with(user("testadministrator1@gmail.com").roles("ADMINISTRATOR")))
+                .andExpect(status().isOk());
+
+        String stream = "";
+        for (int i = 0; i < 50 && !stream.contains("\"eventId\":103"); i++) {
+            Thread.sleep(100);
+            stream = result.getResponse().getContentAsString();
+        }
+        assertTrue(stream.contains("event:change") && stream.contains("\"type\":\"DELETED\"")
+                && stream.contains("\"eventId\":103"), stream);
+    }
+
+    // searchEvents Tests
+    @Test
+    void searchEvents_NotLogged() throws Exception {
+        mockMvc.perform(get("/event/search/1").param("q", "event"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void searchEvents_Administrator_FoldsAccentsAndMatchesPrefixes() throws Exception {
+        jdbcTemplate.update("INSERT INTO T_EVENT(id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES(300, 'Traer el maillot del club', 'Pabellón Municipal', '2020-12-31', '1990-01-01', DATEADD('DAY', 20, CURRENT_DATE), 'Exhibición de Año Nuevo', 2, DATEADD('DAY', 15, CURRENT_DATE))");
+        String today = LocalDate.now().toString();
+
+        assertEquals(List.of(300), searchIds(get("/event/search/71").param("q", "EXHIBICION pabe")));
+        assertEquals(List.of(300), searchIds(get("/event/search/71").param("q", "año maillot").param("type", "EXHIBITION")));
+        assertEquals(List.of(), searchIds(get("/event/search/71").param("q", "exhib").param("type", "TRAINING")));
+        assertEquals(List.of(), searchIds(get("/event/search/71").param("q", "exhib")
+                .param("from", today).param("to", LocalDate.now().plusDays(15).toString())));
+        assertEquals(List.of(101, 102, 103, 104, 105, 106), searchIds(get("/event/search/71").param("q", "event")));
+
+        mockMvc.perform(delete("/event/102").with(user("testadministrator1@gmail.com").roles("ADMINISTRATOR")))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(101, 103, 104, 105, 106), searchIds(get("/event/search/71").param("q", "event")));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void searchEvents_ChangedByAnotherInstance_Reloaded() throws Exception {
+        assertEquals(List.of(), searchIds(get("/event/search/71").param("q", "exhibicion")));
+
+        jdbcTemplate.update("INSERT INTO T_EVENT(id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES(300, NULL, 'Pabellón Municipal', '2020-12-31', '1990-01-01', DATEADD('DAY', 20, CURRENT_DATE), 'Exhibición de Año Nuevo', 2, DATEADD('DAY', 15, CURRENT_DATE))");
+        assertEquals(List.of(), searchIds(get("/event/search/71").param("q", "exhibicion")));
+
+        jdbcTemplate.update("MERGE INTO T_Calendar_Version (scope, version) KEY (scope) " +
+                "VALUES ('events', COALESCE((SELECT version FROM T_Calendar_Version WHERE scope = 'events'), 0) + 1)");
+        Thread.sleep(1100);
+        assertEquals(List.of(300), searchIds(get("/event/search/71").param("q", "exhibicion")));
+    }
+
+    @Test
+    @WithMockUser(username = "testadministrator1@gmail.com", roles = {"ADMINISTRATOR"})
+    void searchEvents_SavedOnThisInstance_AppliedWithoutReload() throws Exception {
+        assertEquals(List.of(), searchIds(get("/event/search/71").param("q", "exhibicion")));
+        jdbcTemplate.update("INSERT INTO T_EVENT(id, additional_info, address, birth_year_end, birth_year_start, date, title, type_event_type_id, deadline) " +
+                "VALUES(300, NULL, 'Pabellón Municipal', '2020-12-31', '1990-01-01', DATEADD('DAY', 20, CURRENT_DATE), 'Exhibición de Año Nuevo', 2, DATEADD('DAY', 15, CURRENT_DATE))");
+
+        NewEventDto newEventDto = new NewEventDto();
+        newEventDto.setTitle("Exhibición de Reyes");
+        newEventDto.setAddress("Test Address");
+        newEventDto.setDate(LocalDate.now().plusDays(20));
+        newEventDto.setDeadline(LocalDate.now().plusDays(10));
+        newEventDto.setType(2);
+        newEventDto.setBirthYearStart(LocalDate.of(2000, 1, 1));
+        newEventDto.setBirthYearEnd(LocalDate.of(2010, 12, 31));
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        mockMvc.perform(post("/event/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newEventDto)))
+                .andExpect(status().isOk());
+        Integer eventId = jdbcTemplate.queryForObject("SELECT id FROM t_event WHERE title = 'Exhibición de Reyes'", Integer.class);
+
+        Thread.sleep(1100);
+        // The event inserted behind the index did not increase the version, so it is only found after a reload.
+        assertEquals(List.of(eventId), searchIds(get("/event/search/71").param("q", "exhibicion")));
+    }
+
+    @Test
+    @WithMockUser(username = "teststudent1@gmail.com", roles = {"STUDENT"})
+    void searchEvents_Student_OnlyEventsAdmitted() throws Exception {
+        assertEquals(List.of(102, 103), searchIds(get("/event/search/1").param("q", "address")));
+    }
+
+    private List<Integer> searchIds(RequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> ids = new ArrayList<>();
+        new ObjectMapper().readTree(body).get("data").forEach(event -> ids.add(event.get("id").asInt()));
+        return ids;
+    }
+}
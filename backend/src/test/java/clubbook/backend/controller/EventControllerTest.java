@@ -10,11 +10,14 @@ import clubbook.backend.repository.EventRepository;
 import clubbook.backend.repository.EventTypeRepository;
 import clubbook.backend.responses.ResponseWrapper;
 import clubbook.backend.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -23,6 +26,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -46,6 +50,30 @@ class EventControllerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private EventIntervalIndex eventIntervalIndex;
+
+    @Mock
+    private EventCalendarCache eventCalendarCache;
+
+    @Mock
+    private EventHeadcountService eventHeadcountService;
+
+    @Mock
+    private CalendarVersionService calendarVersionService;
+
+    @Mock
+    private CalendarFeedService calendarFeedService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private EventStreamService eventStreamService;
+
+    @Mock
+    private EventSearchIndex eventSearchIndex;
+
     @InjectMocks
     private EventService eventService;
 
@@ -114,7 +142,7 @@ class EventControllerTest {
         this.eventDto = new NewEventDto("Title Event", "Address Event", 1,
                 LocalDate.now().plusDays(10), "Additional Info 1", LocalDate.of(2010, 1, 1), LocalDate.of(2018,12,31), LocalDate.now().plusDays(5));
 
-        this.eventController = new EventController(this.eventService, this.seasonService);
+        this.eventController = new EventController(this.eventService, this.seasonService, this.calendarFeedService, this.eventStreamService);
     }
 
     @Test
@@ -254,7 +282,7 @@ class EventControllerTest {
 
     @Test
     void getAllPastEventsTest() {
-        when(this.eventRepository.findAllByDateBeforeOrderByDateAsc(LocalDate.now())).thenReturn(eventList);
+        when(this.eventRepository.findEventDtosBefore(LocalDate.now())).thenReturn(eventList.stream().map(EventDto::new).toList());
         ResponseEntity<ResponseWrapper<List<EventDto>>> allPastEvents = this.eventController.getAllPastEvents();
         assertEquals(HttpStatus.OK, allPastEvents.getStatusCode());
     }
@@ -270,4 +298,105 @@ class EventControllerTest {
         assertEquals(HttpStatus.OK, responseWrapperResponseEntity.getStatusCode());
         assertTrue(responseWrapperResponseEntity.getBody().getData());
     }
-}
\ No newline at end of file
+
+    @Test
+    void intervalIndexMatchesRangeScan() {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        List<Event> events = new ArrayList<>(300);
+        for (int i = 1; i <= 300; i++) {
+            Event event = new Event();
+            event.setId(i);
+            event.setTitle("Title " + i);
+            event.setDate(today.plusDays(random.nextInt(120) - 10));
+            LocalDate start = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(8000));
+            event.setBirthYearStart(start);
+            event.setBirthYearEnd(start.plusDays(random.nextInt(2000)));
+            event.setType(this.eventTypeMap.get(EventTypeEnum.TRAINING));
+            events.add(event);
+        }
+        EventRepository repository = mock(EventRepository.class);
+        when(repository.findEventDtosFrom(any(LocalDate.class), any(Pageable.class)))
+                .thenAnswer(invocation -> events.stream().map(EventDto::new).toList());
+        CalendarVersionService calendarVersionService = mock(CalendarVersionService.class);
+        when(calendarVersionService.getEventsVersion()).thenReturn(0L);
+        EventIntervalIndex index = new EventIntervalIndex(repository, calendarVersionService);
+
+        Event edited = events.get(0);
+        edited.setDate(today.plusDays(3));
+        edited.setBirthYearStart(LocalDate.of(1990, 1, 1));
+        edited.setBirthYearEnd(LocalDate.of(2030, 1, 1));
+        index.findUpcomingThatAdmit(LocalDate.of(2005, 1, 1));
+        index.put(edited, 1);
+        index.remove(events.get(1).getId(), 2);
+        when(calendarVersionService.getEventsVersion()).thenReturn(2L);
+        List<Event> current = new ArrayList<>(events);
+        current.remove(1);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDate birthday = LocalDate.of(1995, 1, 1).plusDays(random.nextInt(12000));
+            List<Integer> expected = current.stream()
+                    .filter(e -> !e.getBirthYearStart().isAfter(birthday) && !e.getBirthYearEnd().isBefore(birthday))
+                    .filter(e -> !e.getDate().isBefore(today))
+                    .sorted(Comparator.comparing(Event::getDate).thenComparingInt(Event::getId))
+                    .map(Event::getId)
+                    .toList();
+            List<Integer> found = index.findUpcomingThatAdmit(birthday).stream().map(EventDto::getId).toList();
+            assertEquals(expected, found);
+
+            EventDto next = index.findNextThatAdmit(birthday);
+            assertEquals(expected.isEmpty() ? null : expected.get(0), next == null ? null : next.getId());
+        }
+        verify(repository, times(1)).findEventDtosFrom(any(LocalDate.class), any(Pageable.class));
+        verify(repository, never()).findUpcomingEventsThatAdmit(any(), any(), anyInt());
+
+        when(calendarVersionService.getEventsVersion()).thenReturn(3L);
+        index.findUpcomingThatAdmit(LocalDate.of(2005, 1, 1));
+        verify(repository, times(2)).findEventDtosFrom(any(LocalDate.class), any(Pageable.class));
+    }
+
+    @Test
+    void calendarCacheEvictsLeastRecentlyUsedMonth() {
+        EventRepository repository = mock(EventRepository.class);
+        when(repository.findEventDtosBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of());
+        CalendarVersionService calendarVersionService = mock(CalendarVersionService.class);
+        when(calendarVersionService.getEventsVersion()).thenReturn(0L);
+        EventCalendarCache cache = new EventCalendarCache(repository, calendarVersionService, new ObjectMapper());
+
+        cache.findMonth(1, 2020);
+        cache.findMonth(2, 2020);
+        for (int i = 2; i <= 48; i++) {
+            cache.findMonth(1, 2020);
+            cache.findMonth(1 + i % 12, 2020 + i / 12);
+        }
+        cache.findMonth(1, 2020);
+        cache.findMonth(2, 2020);
+
+        verify(repository, times(1)).findEventDtosBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 2, 1));
+        verify(repository, times(2)).findEventDtosBetween(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 3, 1));
+    }
+
+    @Test
+    void calendarCacheEvictsEveryMonthWhenAnotherInstanceChangesEvents() {
+        EventRepository repository = mock(EventRepository.class);
+        when(repository.findEventDtosBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of());
+        CalendarVersionService calendarVersionService = mock(CalendarVersionService.class);
+        when(calendarVersionService.getEventsVersion()).thenReturn(4L);
+        EventCalendarCache cache = new EventCalendarCache(repository, calendarVersionService, new ObjectMapper());
+
+        cache.findMonth(1, 2020);
+        cache.findMonth(2, 2020);
+        cache.evict(5, LocalDate.of(2020, 1, 15));
+        when(calendarVersionService.getEventsVersion()).thenReturn(5L);
+        cache.findMonth(1, 2020);
+        cache.findMonth(2, 2020);
+
+        verify(repository, times(2)).findEventDtosBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 2, 1));
+        verify(repository, times(1)).findEventDtosBetween(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 3, 1));
+
+        when(calendarVersionService.getEventsVersion()).thenReturn(6L);
+        cache.findMonth(2, 2020);
+
+        verify(repository, times(2)).findEventDtosBetween(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 3, 1));
+    }
+}
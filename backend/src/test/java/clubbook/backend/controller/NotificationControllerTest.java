@@ -5,6 +5,8 @@ import clubbook.backend.model.enumClasses.RoleEnum;
 import clubbook.backend.model.notification.*;
 import clubbook.backend.repository.NotificationRepository;
 import clubbook.backend.repository.NotificationTokenRepository;
+import clubbook.backend.service.JobLeaseService;
+import clubbook.backend.service.NotificationOutboxService;
 import clubbook.backend.service.NotificationService;
 import clubbook.backend.service.NotificationTokenService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,10 +17,17 @@ import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -30,6 +39,9 @@ class NotificationControllerTest {
     @Mock
     private NotificationTokenRepository notificationTokenRepository;
 
+    @Mock
+    private JobLeaseService jobLeaseService;
+
     @InjectMocks
     private NotificationTokenService notificationTokenService;
 
@@ -42,7 +54,7 @@ class NotificationControllerTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        this.notificationService = new NotificationService(this.notificationRepository);
+        this.notificationService = new NotificationService(this.notificationRepository, this.jobLeaseService);
         this.notificationTokenService = new NotificationTokenService(this.notificationTokenRepository);
         this.notificationController = new NotificationController(this.notificationTokenService, this.notificationService);
     }
@@ -119,4 +131,41 @@ class NotificationControllerTest {
         assertEquals(notificationList.size(), this.notificationController.getNotifications(id).getBody().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void relayFromOutboxSkipsDelivered() {
+        User user = new User();
+        user.setId(1);
+        Map<String, Notification> pending = new LinkedHashMap<>();
+        for (String id : new String[]{"a", "b", "c"}) {
+            NotificationFactory notificationFactory = new AttendanceNotificationFactory(LocalDate.now(), user);
+            notificationFactory.createNotification();
+            pending.put(id, notificationFactory.getNotification());
+        }
+        when(this.notificationRepository.deleteFromOutbox(List.of("a", "b", "c"))).thenReturn(List.of("a", "c"));
+
+        assertEquals(2, this.notificationService.relayFromOutbox(pending));
+        verify(this.notificationRepository).insertAllInBatch(argThat(list ->
+                list.size() == 2 && list.get(0) == pending.get("a") && list.get(1) == pending.get("c")));
+    }
+
+    @Test
+    void outboxWorkerRecordsFailedDelivery() throws InterruptedException {
+        User user = new User();
+        user.setId(1);
+        NotificationFactory notificationFactory = new AttendanceNotificationFactory(LocalDate.now(), user);
+        notificationFactory.createNotification();
+        when(this.notificationRepository.deleteFromOutbox(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        NotificationOutboxService notificationOutboxService = new NotificationOutboxService(this.notificationService, this.jobLeaseService, 10, 10);
+        notificationOutboxService.start();
+        try {
+            notificationOutboxService.enqueue(List.of(notificationFactory.getNotification()));
+            verify(this.notificationRepository, timeout(5000)).recordOutboxFailure(argThat(ids -> ids.size() == 1),
+                    eq("java.lang.IllegalStateException: database unavailable"));
+        } finally {
+            notificationOutboxService.stop();
+        }
+        verify(this.notificationRepository, never()).insertAllInBatch(any());
+    }
+
+}
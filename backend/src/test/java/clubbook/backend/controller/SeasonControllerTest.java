@@ -45,6 +45,9 @@ class SeasonControllerTest {
     @Mock
     private NotebookService notebookService;
 
+    @Mock
+    private CalendarVersionService calendarVersionService;
+
     @InjectMocks
     private SeasonService seasonService; //Done
 
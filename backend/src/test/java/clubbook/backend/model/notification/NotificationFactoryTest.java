@@ -52,6 +52,19 @@ class NotificationFactoryTest {
                 notification.getDate().getYear(), notification.getContent());
     }
 
+    @Test
+    void createConsecutiveAbsenceNotification() {
+        this.notificationFactory = new ConsecutiveAbsenceNotificationFactory(LocalDate.now(), this.user, 3);
+        this.notificationFactory.createNotification();
+        Notification notification = this.notificationFactory.getNotification();
+        assertEquals("Faltas de asistencia consecutivas", notification.getTitle());
+        assertEquals(LocalDate.now(), notification.getDate());
+        assertEquals("El alumno Student1 Name Student1 LastName ha faltado a 3 clases seguidas. La última falta fue el día " +
+                notification.getDate().getDayOfMonth() + " de " +
+                notificationFactory.getSpanishMonth(notification.getDate().getMonthValue()) + " " +
+                notification.getDate().getYear(), notification.getContent());
+    }
+
     @Test
     void createDeleteEventNotification() {
         this.notificationFactory = new DeleteEventNotificationFactory(LocalDate.now(), this.user);
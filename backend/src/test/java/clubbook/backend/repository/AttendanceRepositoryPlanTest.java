@@ -0,0 +1,117 @@
+package clubbook.backend.repository;
+
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:attendanceplans;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Sql({"/scripts/roles_dataset.sql", "/scripts/dataset.sql"})
+public class AttendanceRepositoryPlanTest {
+
+    private static final int CLASS_GROUP = 5;
+    private static final int STUDENTS = 500;
+    private static final int DAYS = 730;
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttendanceRepositoryPlanTest.class);
+    private static final Pattern ATTENDANCE_ACCESS = Pattern.compile("T_ATTENDANCE A\\s*/\\*([^*]*)\\*/");
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadSyntheticAttendance() {
+        jdbcTemplate.update("INSERT INTO t_user (id, address, birthday, email, first_name, id_card, last_name, partner, password, phone_number, role_fk_id, allowed_access) " +
+                "SELECT 1000 + X, 'C/ Synthetic', DATE '2000-01-01', CONCAT('synthetic', X, '@gmail.com'), 'Synthetic', CONCAT('IDS', X), CONCAT('Student', X), false, 'password', '000000000', 1, true " +
+                "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+        jdbcTemplate.update("INSERT INTO t_class_group_students (class_group_id, students_id) " +
+                "SELECT " + CLASS_GROUP + ", 1000 + X FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+        jdbcTemplate.update("INSERT INTO t_attendance (id, attendance_date, user_id, attended) " +
+                "SELECT 10000 + s.X * " + DAYS + " + d.X, DATEADD('DAY', d.X, DATE '2023-01-01'), 1000 + s.X, MOD(s.X + d.X, 5) <> 0 " +
+                "FROM SYSTEM_RANGE(1, " + STUDENTS + ") s, SYSTEM_RANGE(0, " + (DAYS - 1) + ") d");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private String explain(String methodName) {
+        Method method = Arrays.stream(AttendanceRepository.class.getMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst().orElseThrow();
+        String sql = method.getAnnotation(Query.class).value()
+                .replace(":from", "DATE '2024-01-01'")
+                .replace(":to", "DATE '2024-02-01'")
+                .replace(":classGroupIds", String.valueOf(CLASS_GROUP))
+                .replaceAll("\\s*;\\s*$", "");
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", plan).replace("\"", "").toUpperCase();
+    }
+
+    private void assertDateRangeSeek(String plan) {
+        Matcher matcher = ATTENDANCE_ACCESS.matcher(plan);
+        assertTrue(matcher.find(), plan);
+        String access = matcher.group(1);
+        assertFalse(access.contains("TABLESCAN"), plan);
+        assertTrue(access.contains("ATTENDANCE_DATE >="), plan);
+        assertTrue(access.contains("ATTENDANCE_DATE <"), plan);
+    }
+
+    private long count(Stream<Object[]> rows) {
+        try (rows) {
+            return rows.count();
+        }
+    }
+
+    @Test
+    public void monthQueriesSeekDateRange() {
+        this.assertDateRangeSeek(this.explain("streamAttendanceBetween"));
+        this.assertDateRangeSeek(this.explain("streamClassGroupsAttendanceBetween"));
+    }
+
+    @Test
+    @Transactional
+    public void monthQueriesReadOnlyTheMonth() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 2, 1);
+        this.count(this.attendanceRepository.streamAttendanceBetween(from, to));
+
+        long start = System.nanoTime();
+        long monthRows = this.count(this.attendanceRepository.streamAttendanceBetween(from, to));
+        long monthMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        List<Object[]> classGroupRows;
+        try (Stream<Object[]> rows = this.attendanceRepository.streamClassGroupsAttendanceBetween(List.of(CLASS_GROUP), from, to)) {
+            classGroupRows = rows.toList();
+        }
+        long classGroupMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(monthRows >= 31L * STUDENTS);
+        assertEquals(31 * STUDENTS, classGroupRows.size());
+        for (Object[] row : classGroupRows) {
+            assertEquals(2024, ((java.sql.Date) row[4]).toLocalDate().getYear());
+        }
+        LOGGER.info("Month of {} students out of {} days: streamAttendanceBetween took {} ms, streamClassGroupsAttendanceBetween took {} ms",
+                STUDENTS, DAYS, monthMillis, classGroupMillis);
+    }
+}